@@ -0,0 +1,46 @@
+package net.tylerwade.cryptoapp.benchmark;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+
+/**
+ * Synthetic payloads generated in CoinGecko's response shape and sizes (not recorded from the live API),
+ * checked in under {@code src/jmh/resources/fixtures} so benchmark runs are reproducible offline.
+ */
+public final class Fixtures {
+
+    public static final String COINS_MARKETS = "coins-markets-usd-250.json";
+    public static final String MARKET_CHART = "market-chart-bitcoin-usd-365.json";
+    public static final String COIN_DATA = "coin-bitcoin.json";
+
+    private Fixtures() {
+    }
+
+    /**
+     * Raw bytes of a fixture.
+     * @param name file name in the fixtures directory
+     * @return payload bytes
+     */
+    public static byte[] bytes(String name) {
+        try (InputStream in = Fixtures.class.getResourceAsStream("/fixtures/" + name)) {
+            if (in == null) {
+                throw new IllegalArgumentException("Fixture not found: " + name);
+            }
+            return in.readAllBytes();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Object mapper configured like Spring Boot's.
+     * @return new object mapper
+     */
+    public static ObjectMapper objectMapper() {
+        return Jackson2ObjectMapperBuilder.json().build();
+    }
+}
@@ -0,0 +1,60 @@
+package net.tylerwade.cryptoapp.coins;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import net.tylerwade.cryptoapp.benchmark.Fixtures;
+import net.tylerwade.cryptoapp.coins.coinpage.Coin;
+import net.tylerwade.cryptoapp.coins.marketchart.MarketChart;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Deserialization of CoinGecko payloads the way {@code CoinGeckoClient} reads them: a 250 coin
+ * {@code /coins/markets} page, a 365 day {@code market_chart} and a single coin's data.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class CoinJsonBenchmark {
+
+    private ObjectMapper objectMapper;
+    private byte[] marketsPayload;
+    private byte[] marketChartPayload;
+    private byte[] coinDataPayload;
+
+    @Setup
+    public void setup() {
+        objectMapper = Fixtures.objectMapper();
+        marketsPayload = Fixtures.bytes(Fixtures.COINS_MARKETS);
+        marketChartPayload = Fixtures.bytes(Fixtures.MARKET_CHART);
+        coinDataPayload = Fixtures.bytes(Fixtures.COIN_DATA);
+    }
+
+    @Benchmark
+    public Coin[] readCoinsMarkets() throws IOException {
+        return objectMapper.readValue(marketsPayload, Coin[].class);
+    }
+
+    @Benchmark
+    public MarketChart readMarketChart() throws IOException {
+        return objectMapper.readValue(marketChartPayload, MarketChart.class);
+    }
+
+    @Benchmark
+    public CoinData readCoinData() throws IOException {
+        return objectMapper.readValue(coinDataPayload, CoinData.class);
+    }
+}
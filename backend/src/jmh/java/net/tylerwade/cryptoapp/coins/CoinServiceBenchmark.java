@@ -0,0 +1,122 @@
+package net.tylerwade.cryptoapp.coins;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sun.net.httpserver.HttpServer;
+import net.tylerwade.cryptoapp.benchmark.Fixtures;
+import net.tylerwade.cryptoapp.coins.cache.CoinCacheManager;
+import net.tylerwade.cryptoapp.coins.cache.EncodedBody;
+import net.tylerwade.cryptoapp.coins.cache.EncodedBodyCache;
+import net.tylerwade.cryptoapp.coins.coingecko.CoinGeckoClient;
+import net.tylerwade.cryptoapp.coins.coingecko.UpstreamBudget;
+import net.tylerwade.cryptoapp.coins.coinpage.Coin;
+import net.tylerwade.cryptoapp.coins.fx.ExchangeRateStore;
+import net.tylerwade.cryptoapp.coins.history.ChartSegmentStore;
+import net.tylerwade.cryptoapp.coins.history.PriceHistoryStore;
+import net.tylerwade.cryptoapp.coins.query.CoinSearchIndexStore;
+import net.tylerwade.cryptoapp.coins.snapshot.MarketSnapshot;
+import net.tylerwade.cryptoapp.coins.snapshot.MarketSnapshotStore;
+import net.tylerwade.cryptoapp.config.CoinGeckoProperties;
+import net.tylerwade.cryptoapp.config.CryptoAppProperties;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link CoinService} lookups answered from warm caches by many threads at once. The coin data cache is
+ * filled from a local stub of CoinGecko serving the synthetic fixtures, coin pages come from a market
+ * snapshot built from the synthetic {@code /coins/markets} page.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Threads(8)
+@Fork(1)
+public class CoinServiceBenchmark {
+
+    private static final int COIN_IDS = 100;
+
+    private HttpServer upstream;
+    private CoinService coinService;
+    private String[] ids;
+
+    @Setup(Level.Trial)
+    public void setup() throws IOException {
+        byte[] coinData = Fixtures.bytes(Fixtures.COIN_DATA);
+        upstream = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        upstream.createContext("/coins/", exchange -> {
+            exchange.getResponseHeaders().set("Content-Type", "application/json");
+            exchange.sendResponseHeaders(200, coinData.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(coinData);
+            }
+        });
+        upstream.start();
+
+        CoinGeckoProperties coinGeckoProperties = new CoinGeckoProperties();
+        coinGeckoProperties.setApiUrl("http://localhost:" + upstream.getAddress().getPort());
+        coinGeckoProperties.setApiKey("benchmark");
+        CryptoAppProperties properties = new CryptoAppProperties();
+        properties.getPriceHistory().setEnabled(false);
+        properties.getFx().setEnabled(false);
+        ObjectMapper objectMapper = Fixtures.objectMapper();
+        ExchangeRateStore exchangeRateStore = new ExchangeRateStore(properties);
+        MarketSnapshotStore marketSnapshotStore = new MarketSnapshotStore(exchangeRateStore);
+        coinService = new CoinService(
+                new CoinGeckoClient(coinGeckoProperties, objectMapper, new UpstreamBudget(coinGeckoProperties)),
+                properties,
+                new CoinCacheManager(properties),
+                marketSnapshotStore,
+                new CoinSearchIndexStore(),
+                new PriceHistoryStore(null, new ChartSegmentStore(properties), properties),
+                new EncodedBodyCache(objectMapper, properties),
+                exchangeRateStore);
+
+        Coin[] coins = objectMapper.readValue(Fixtures.bytes(Fixtures.COINS_MARKETS), Coin[].class);
+        marketSnapshotStore.put(MarketSnapshot.of("usd", List.of(coins), false, LocalDateTime.now()));
+        ids = new String[COIN_IDS];
+        for (int i = 0; i < COIN_IDS; i++) {
+            ids[i] = coins[i].getId();
+            coinService.getCoinById(ids[i]);
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        upstream.stop(0);
+    }
+
+    @Benchmark
+    public CoinData coinDataHit() {
+        return coinService.getCoinById(ids[ThreadLocalRandom.current().nextInt(COIN_IDS)]);
+    }
+
+    @Benchmark
+    public Coin[] coinPageFromSnapshot() {
+        return coinService.getCoins("usd", ThreadLocalRandom.current().nextInt(1, 11), 10, null);
+    }
+
+    @Benchmark
+    public EncodedBody encodedCoinPageFromSnapshot() {
+        return coinService.getCoinsBody("usd", ThreadLocalRandom.current().nextInt(1, 11), 10, null);
+    }
+}
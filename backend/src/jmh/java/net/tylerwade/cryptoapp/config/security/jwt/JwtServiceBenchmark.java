@@ -0,0 +1,49 @@
+package net.tylerwade.cryptoapp.config.security.jwt;
+
+import net.tylerwade.cryptoapp.auth.AppUser;
+import net.tylerwade.cryptoapp.config.CryptoAppProperties;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Token parsing done by the authentication filter on every authenticated request.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class JwtServiceBenchmark {
+
+    private JwtService jwtService;
+    private String token;
+
+    @Setup
+    public void setup() {
+        JwtProperties jwtProperties = new JwtProperties("benchmark-secret-benchmark-secret-benchmark-secret-0123456789",
+                259_200_000L, "cryptoapp");
+        jwtService = new JwtService(jwtProperties, new CryptoAppProperties());
+        token = jwtService.generateToken(AppUser.builder()
+                .id("6f1c2b7e-3f0a-4b8e-9d2a-1c5e7f9a0b3d")
+                .username("satoshi@example.com")
+                .firstName("Satoshi")
+                .lastName("Nakamoto")
+                .build());
+    }
+
+    @Benchmark
+    public String extractUserIdFromToken() {
+        return jwtService.extractUserIdFromToken(token);
+    }
+}
@@ -0,0 +1,68 @@
+package net.tylerwade.cryptoapp.portfolio;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import net.tylerwade.cryptoapp.auth.AppUser;
+import net.tylerwade.cryptoapp.benchmark.Fixtures;
+import net.tylerwade.cryptoapp.portfolio.holding.Holding;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Serialization of a portfolio as the portfolio endpoints return it, with its eagerly loaded holdings.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class PortfolioJsonBenchmark {
+
+    @Param({"10", "250"})
+    private int holdingCount;
+
+    private ObjectMapper objectMapper;
+    private Portfolio portfolio;
+
+    @Setup
+    public void setup() {
+        objectMapper = Fixtures.objectMapper();
+        LocalDateTime now = LocalDateTime.now();
+        portfolio = Portfolio.builder()
+                .id(1L)
+                .name("Benchmark")
+                .user(AppUser.builder().id("user").username("satoshi@example.com").build())
+                .holdings(new ArrayList<>())
+                .createdAt(now)
+                .modifiedAt(now)
+                .build();
+        for (int h = 0; h < holdingCount; h++) {
+            portfolio.getHoldings().add(Holding.builder()
+                    .cryptoId("coin-" + h)
+                    .portfolio(portfolio)
+                    .quantity(h + 0.5)
+                    .createdAt(now)
+                    .modifiedAt(now)
+                    .build());
+        }
+    }
+
+    @Benchmark
+    public byte[] writePortfolio() throws JsonProcessingException {
+        return objectMapper.writeValueAsBytes(portfolio);
+    }
+}
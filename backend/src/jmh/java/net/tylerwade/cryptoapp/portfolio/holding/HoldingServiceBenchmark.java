@@ -0,0 +1,74 @@
+package net.tylerwade.cryptoapp.portfolio.holding;
+
+import net.tylerwade.cryptoapp.portfolio.Portfolio;
+import net.tylerwade.cryptoapp.portfolio.transaction.Transaction;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Aggregation of a coin's transactions into its holding. The repository is replaced by an in-memory
+ * stand-in, so only the aggregation and holding construction are measured.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class HoldingServiceBenchmark {
+
+    @Param({"100", "10000", "1000000"})
+    private int transactionCount;
+
+    private HoldingService holdingService;
+    private List<Transaction> transactions;
+
+    @Setup
+    public void setup() {
+        HoldingDao holdingDao = (HoldingDao) Proxy.newProxyInstance(HoldingDao.class.getClassLoader(),
+                new Class<?>[]{HoldingDao.class}, (proxy, method, args) -> switch (method.getName()) {
+                    case "findByCryptoIdAndPortfolioId" -> Optional.empty();
+                    case "save" -> args[0];
+                    default -> null;
+                });
+        holdingService = new HoldingService(holdingDao, null);
+
+        Portfolio portfolio = Portfolio.builder().id(1L).name("Benchmark").build();
+        Random random = new Random(25);
+        transactions = new ArrayList<>(transactionCount);
+        for (int i = 0; i < transactionCount; i++) {
+            transactions.add(Transaction.builder()
+                    .id((long) i)
+                    .portfolio(portfolio)
+                    .cryptoId("bitcoin")
+                    // Mostly buys so the holding never nets out to zero
+                    .type(random.nextInt(4) == 0 ? "sell" : "buy")
+                    .quantity(random.nextDouble())
+                    .price(60_000 * (0.5 + random.nextDouble()))
+                    .fee(random.nextDouble())
+                    .build());
+        }
+    }
+
+    @Benchmark
+    public List<Transaction> updateHolding() {
+        holdingService.updateHolding(transactions);
+        return transactions;
+    }
+}
@@ -1,5 +1,10 @@
 package net.tylerwade.cryptoapp;
 
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.availability.ApplicationAvailability;
+import org.springframework.boot.availability.ReadinessState;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.RestController;
 
@@ -7,8 +12,11 @@ import org.springframework.web.bind.annotation.RestController;
  * Simple health/status endpoint to verify the application is running.
  */
 @RestController
+@RequiredArgsConstructor
 public class StatusCheckController {
 
+    private final ApplicationAvailability applicationAvailability;
+
     /**
      * Returns constant OK string for liveness checks.
      * @return OK
@@ -17,4 +25,18 @@ public class StatusCheckController {
     public String status() {
         return "OK";
     }
-}
\ No newline at end of file
+
+    /**
+     * Readiness check for load balancers. Only reports ready once startup, including the cache warm-up,
+     * is complete.
+     * @return READY, or 503 with the current readiness state
+     */
+    @GetMapping("/status/ready")
+    public ResponseEntity<String> ready() {
+        ReadinessState state = applicationAvailability.getReadinessState();
+        if (state == ReadinessState.ACCEPTING_TRAFFIC) {
+            return ResponseEntity.ok("READY");
+        }
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).body(state.name());
+    }
+}
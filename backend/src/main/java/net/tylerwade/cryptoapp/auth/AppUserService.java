@@ -1,6 +1,7 @@
 package net.tylerwade.cryptoapp.auth;
 
 import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
 import net.tylerwade.cryptoapp.auth.dto.ChangePasswordRequest;
 import net.tylerwade.cryptoapp.auth.dto.LoginRequest;
 import net.tylerwade.cryptoapp.auth.dto.RegisterRequest;
@@ -23,6 +24,7 @@ import java.util.Optional;
  * Service layer for user account operations such as registration, authentication,
  * password changes and user lookup required by Spring Security.
  */
+@Slf4j
 @Service
 @RequiredArgsConstructor
 public class AppUserService implements UserDetailsService {
@@ -135,7 +137,7 @@ public class AppUserService implements UserDetailsService {
                     .build());
         } catch (Exception e) {
             // Log the error but do not interrupt the flow
-            System.err.println("Failed to send password change confirmation email: " + e.getMessage());
+            log.warn("Failed to send password change confirmation email: {}", e.getMessage());
         }
 
         // Note: Do not log the user in automatically after password change for security reasons.
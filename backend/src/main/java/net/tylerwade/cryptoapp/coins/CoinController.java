@@ -1,14 +1,26 @@
 package net.tylerwade.cryptoapp.coins;
 
 import lombok.RequiredArgsConstructor;
+import net.tylerwade.cryptoapp.coins.batch.CoinBatch;
+import net.tylerwade.cryptoapp.coins.batch.CoinBatchLoader;
+import net.tylerwade.cryptoapp.coins.cache.EncodedBody;
+import net.tylerwade.cryptoapp.coins.cache.HttpCached;
 import net.tylerwade.cryptoapp.coins.coinpage.Coin;
-import net.tylerwade.cryptoapp.coins.marketchart.MarketChart;
 import net.tylerwade.cryptoapp.coins.query.SearchResult;
+import net.tylerwade.cryptoapp.coins.screener.CoinScreener;
+import net.tylerwade.cryptoapp.coins.stream.PriceStream;
+import net.tylerwade.cryptoapp.coins.stream.PriceUpdate;
+import org.springframework.http.MediaType;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.util.Map;
 
 /**
  * REST endpoints for retrieving cryptocurrency market data and performing
  * search queries against the external data provider (CoinGecko API).
+ * Cached responses support conditional GET, see {@link HttpCached}, and the hot read endpoints
+ * return bodies serialized and compressed once per cached value, see {@link EncodedBody}.
  */
 @RestController
 @RequestMapping("/api/v1/coins")
@@ -16,6 +28,9 @@ import org.springframework.web.bind.annotation.*;
 public class CoinController {
 
     private final CoinService coinService;
+    private final CoinScreener coinScreener;
+    private final PriceStream priceStream;
+    private final CoinBatchLoader coinBatchLoader;
 
     /**
      * Get a page of market coins optionally filtered by ids.
@@ -25,12 +40,60 @@ public class CoinController {
      * @param ids comma separated coin ids (optional)
      * @return array of coins
      */
+    @HttpCached(HttpCached.CacheName.COIN_PAGE)
     @GetMapping
-    public Coin[] getCoins(@RequestParam("vs_currency") String vsCurrency,
+    public EncodedBody getCoins(@RequestParam("vs_currency") String vsCurrency,
                            @RequestParam(value = "page", required = false, defaultValue = "0") int page,
                            @RequestParam(value = "per_page", required = false, defaultValue = "100") int perPage,
                            @RequestParam(value = "ids", required = false, defaultValue = "") String ids) {
-        return coinService.getCoins(vsCurrency, page, perPage, ids);
+        return coinService.getCoinsBody(vsCurrency, page, perPage, ids);
+    }
+
+    /**
+     * Screen the market list with range filters and a sort key, e.g.
+     * {@code ?market_cap_max=1000000000&sort=total_volume&order=desc}.
+     * @param vsCurrency fiat currency code (e.g. usd)
+     * @param params all request parameters, filters are given as {@code <field>_min} / {@code <field>_max}
+     * @param sort field to sort by
+     * @param order asc or desc
+     * @param page page number
+     * @param perPage page size
+     * @return array of matching coins
+     */
+    @HttpCached(HttpCached.CacheName.COIN_PAGE)
+    @GetMapping("/screen")
+    public Coin[] screen(@RequestParam(value = "vs_currency", required = false, defaultValue = "usd") String vsCurrency,
+                         @RequestParam Map<String, String> params,
+                         @RequestParam(value = "sort", required = false, defaultValue = "market_cap") String sort,
+                         @RequestParam(value = "order", required = false, defaultValue = "desc") String order,
+                         @RequestParam(value = "page", required = false, defaultValue = "1") int page,
+                         @RequestParam(value = "per_page", required = false, defaultValue = "100") int perPage) {
+        return coinScreener.screen(coinScreener.parseCriteria(vsCurrency, params, sort, order, page, perPage));
+    }
+
+    /**
+     * Stream price updates of the given coins as Server-Sent Events ({@code price} events carrying a
+     * {@link PriceUpdate}). The current prices are sent on connect, then every change picked up by the
+     * market snapshot.
+     * @param ids comma separated coin ids
+     * @param vsCurrency fiat currency code (e.g. usd)
+     * @return event stream
+     */
+    @GetMapping(path = "/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter stream(@RequestParam("ids") String ids,
+                             @RequestParam(value = "vs_currency", required = false, defaultValue = "usd") String vsCurrency) {
+        return priceStream.subscribe(ids, vsCurrency);
+    }
+
+    /**
+     * Retrieve detailed data for many coins at once. Coins that could not be loaded are listed with
+     * their error instead of failing the whole request.
+     * @param ids comma separated coin ids
+     * @return coin data and errors by id
+     */
+    @GetMapping("/batch")
+    public CoinBatch getCoinsById(@RequestParam("ids") String ids) {
+        return coinBatchLoader.load(ids);
     }
 
     /**
@@ -38,9 +101,10 @@ public class CoinController {
      * @param id coin id
      * @return coin data
      */
+    @HttpCached(HttpCached.CacheName.COIN_DATA)
     @GetMapping("/{id}")
-    public CoinData getCoinById(@PathVariable String id) {
-        return coinService.getCoinById(id);
+    public EncodedBody getCoinById(@PathVariable String id) {
+        return coinService.getCoinByIdBody(id);
     }
 
     /**
@@ -48,9 +112,23 @@ public class CoinController {
      * @param query search term
      * @return search results
      */
+    @HttpCached(HttpCached.CacheName.SEARCH)
     @GetMapping("/search")
-    public SearchResult search(@RequestParam("query") String query) {
-        return coinService.searchCoins(query);
+    public EncodedBody search(@RequestParam("query") String query) {
+        return coinService.searchCoinsBody(query);
+    }
+
+    /**
+     * Suggest coins for a search box prefix, best market cap rank first.
+     * @param prefix typed prefix
+     * @param limit maximum number of coins
+     * @return search result with the suggested coins
+     */
+    @HttpCached(HttpCached.CacheName.SEARCH)
+    @GetMapping("/suggest")
+    public SearchResult suggest(@RequestParam("prefix") String prefix,
+                                @RequestParam(value = "limit", required = false, defaultValue = "10") int limit) {
+        return coinService.suggestCoins(prefix, limit);
     }
 
     /**
@@ -58,14 +136,36 @@ public class CoinController {
      * @param id coin id
      * @param days number of days of data to retrieve
      * @param vs_currency fiat currency code (e.g. usd)
+     * @param points maximum points per series, downsampled preserving the chart shape (optional)
      * @return market chart data
      */
+    @HttpCached(HttpCached.CacheName.MARKET_CHART)
     @GetMapping("/{id}/market_chart")
-    public MarketChart getMarketChart(
+    public EncodedBody getMarketChart(
+            @PathVariable String id,
+            @RequestParam(value = "days", required = false, defaultValue = "7") int days,
+            @RequestParam(value = "vs_currency", required = false, defaultValue = "usd") String vs_currency,
+            @RequestParam(value = "points", required = false) Integer points
+    ) {
+        return coinService.getMarketChartBody(id, days, vs_currency, points);
+    }
+
+    /**
+     * Get historical market chart data for a coin with every series as flat timestamp and value arrays.
+     * @param id coin id
+     * @param days number of days of data to retrieve
+     * @param vs_currency fiat currency code (e.g. usd)
+     * @param points maximum points per series, downsampled preserving the chart shape (optional)
+     * @return market chart columns
+     */
+    @HttpCached(HttpCached.CacheName.MARKET_CHART)
+    @GetMapping("/{id}/market_chart/columns")
+    public EncodedBody getMarketChartColumns(
             @PathVariable String id,
             @RequestParam(value = "days", required = false, defaultValue = "7") int days,
-            @RequestParam(value = "vs_currency", required = false, defaultValue = "usd") String vs_currency
+            @RequestParam(value = "vs_currency", required = false, defaultValue = "usd") String vs_currency,
+            @RequestParam(value = "points", required = false) Integer points
     ) {
-        return coinService.getMarketChartData(id, days, vs_currency);
+        return coinService.getMarketChartColumnsBody(id, days, vs_currency, points);
     }
 }
\ No newline at end of file
@@ -3,6 +3,9 @@ package net.tylerwade.cryptoapp.coins;
 import lombok.*;
 
 import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
 
 @Getter
 @Setter
@@ -46,74 +49,54 @@ public class CoinData {
         private String large;
     }
 
+    /**
+     * Market data of the coin. Currency amounts are keyed by currency code, as CoinGecko returns them,
+     * and trimmed to the served currencies once fetched (see {@link #retainCurrencies(Collection)}).
+     */
     @Getter @Setter @NoArgsConstructor
     public static class MarketData {
-        private CurrentPrice current_price;
-        private MarketCap market_cap;
+        private Map<String, Double> current_price;
+        private Map<String, Double> market_cap;
         private long market_cap_rank;
-        private TotalVolume total_volume;
-        private High24h high_24h;
-        private Low24h low_24h;
-        private Ath ath;
-        private Atl atl;
-        private PriceChange24hInCurrency price_change_24h_in_currency;
-        private PriceChangePercentage24InCurrency price_change_percentage_24h_in_currency;
+        private Map<String, Double> total_volume;
+        private Map<String, Double> high_24h;
+        private Map<String, Double> low_24h;
+        private Map<String, Double> ath;
+        private Map<String, Double> atl;
+        private Map<String, Double> price_change_24h_in_currency;
+        private Map<String, Double> price_change_percentage_24h_in_currency;
         private double total_supply;
         private double max_supply;
         private double circulating_supply;
 
-        @Getter @Setter @NoArgsConstructor
-        public static class CurrentPrice {
-            private double usd;
-            private double eur;
+        /**
+         * Drop the amounts of currencies that are not served, CoinGecko sends every currency it knows.
+         * @param currencies lower case currency codes to keep
+         */
+        public void retainCurrencies(Collection<String> currencies) {
+            current_price = retain(current_price, currencies);
+            market_cap = retain(market_cap, currencies);
+            total_volume = retain(total_volume, currencies);
+            high_24h = retain(high_24h, currencies);
+            low_24h = retain(low_24h, currencies);
+            ath = retain(ath, currencies);
+            atl = retain(atl, currencies);
+            price_change_24h_in_currency = retain(price_change_24h_in_currency, currencies);
+            price_change_percentage_24h_in_currency = retain(price_change_percentage_24h_in_currency, currencies);
         }
 
-        @Getter @Setter @NoArgsConstructor
-        public static class MarketCap {
-            private long usd;
-            private long eur;
-        }
-
-        @Getter @Setter @NoArgsConstructor
-        public static class TotalVolume {
-            private long usd;
-            private long eur;
-        }
-
-        @Getter @Setter @NoArgsConstructor
-        public static class High24h {
-            private double usd;
-            private double eur;
-        }
-
-        @Getter @Setter @NoArgsConstructor
-        public static class Low24h {
-            private double usd;
-            private double eur;
-        }
-
-        @Getter @Setter @NoArgsConstructor
-        public static class PriceChange24hInCurrency {
-            private double usd;
-            private double eur;
-        }
-
-        @Getter @Setter @NoArgsConstructor
-        public static class PriceChangePercentage24InCurrency {
-            private double usd;
-            private double eur;
-        }
-
-        @Getter @Setter @NoArgsConstructor
-        public static class Ath {
-            private double usd;
-            private double eur;
-        }
-
-        @Getter @Setter @NoArgsConstructor
-        public static class Atl {
-            private double usd;
-            private double eur;
+        private static Map<String, Double> retain(Map<String, Double> amounts, Collection<String> currencies) {
+            if (amounts == null) {
+                return null;
+            }
+            Map<String, Double> retained = HashMap.newHashMap(currencies.size());
+            for (String currency : currencies) {
+                Double amount = amounts.get(currency);
+                if (amount != null) {
+                    retained.put(currency, amount);
+                }
+            }
+            return retained;
         }
     }
-}
\ No newline at end of file
+}
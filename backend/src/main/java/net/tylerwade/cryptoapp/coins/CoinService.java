@@ -1,41 +1,128 @@
 package net.tylerwade.cryptoapp.coins;
 
-import lombok.RequiredArgsConstructor;
+import net.tylerwade.cryptoapp.coins.cache.CoinCache;
+import net.tylerwade.cryptoapp.coins.cache.CoinCacheManager;
+import net.tylerwade.cryptoapp.coins.cache.EncodedBody;
+import net.tylerwade.cryptoapp.coins.cache.EncodedBodyCache;
+import net.tylerwade.cryptoapp.coins.cache.StaleMarker;
+import net.tylerwade.cryptoapp.coins.coingecko.CoinGeckoClient;
+import net.tylerwade.cryptoapp.coins.coingecko.CoinGeckoEndpoint;
 import net.tylerwade.cryptoapp.coins.coinpage.CachedCoinPage;
 import net.tylerwade.cryptoapp.coins.coinpage.Coin;
 import net.tylerwade.cryptoapp.coins.coinpage.GetCoinPageParams;
+import net.tylerwade.cryptoapp.coins.coinpage.MarketCoinKey;
+import net.tylerwade.cryptoapp.coins.fx.ExchangeRateResponse;
+import net.tylerwade.cryptoapp.coins.fx.ExchangeRateStore;
+import net.tylerwade.cryptoapp.coins.fx.ExchangeRates;
+import net.tylerwade.cryptoapp.coins.history.HistoryChart;
+import net.tylerwade.cryptoapp.coins.history.PriceHistoryStore;
+import net.tylerwade.cryptoapp.coins.marketchart.CachedMarketChart;
+import net.tylerwade.cryptoapp.coins.marketchart.CompactMarketChart;
+import net.tylerwade.cryptoapp.coins.marketchart.DownsampledChartParams;
 import net.tylerwade.cryptoapp.coins.marketchart.GetMarketChartParams;
+import net.tylerwade.cryptoapp.coins.marketchart.Lttb;
 import net.tylerwade.cryptoapp.coins.marketchart.MarketChart;
+import net.tylerwade.cryptoapp.coins.marketchart.MarketChartColumns;
+import net.tylerwade.cryptoapp.coins.marketchart.MarketChartEncoder;
+import net.tylerwade.cryptoapp.coins.marketchart.MarketChartKey;
+import net.tylerwade.cryptoapp.coins.marketchart.MarketChartStats;
+import net.tylerwade.cryptoapp.coins.query.CoinListEntry;
+import net.tylerwade.cryptoapp.coins.query.CoinSearchIndex;
+import net.tylerwade.cryptoapp.coins.query.CoinSearchIndexStore;
+import net.tylerwade.cryptoapp.coins.query.CoinSuggestIndex;
+import net.tylerwade.cryptoapp.coins.query.SearchCoin;
 import net.tylerwade.cryptoapp.coins.query.SearchResult;
-import net.tylerwade.cryptoapp.config.CoinGeckoProperties;
+import net.tylerwade.cryptoapp.coins.snapshot.MarketSnapshot;
+import net.tylerwade.cryptoapp.coins.snapshot.MarketSnapshotStore;
+import net.tylerwade.cryptoapp.common.exception.HttpRequestException;
 import net.tylerwade.cryptoapp.config.CryptoAppProperties;
-import org.springframework.http.HttpEntity;
-import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Service;
-import org.springframework.web.client.RestClientException;
-import org.springframework.web.client.RestTemplate;
 
+import java.net.URLEncoder;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
 import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
 
 /**
- * Service for interacting with external CoinGecko API and providing simple in-memory caching
- * for coin lists, single coin data and search results.
+ * Service for interacting with external CoinGecko API and providing bounded in-memory caching
+ * for coin lists, single coin data, search results and market charts. The {@code *Body} methods
+ * return the same data serialized once per cached value, see {@link EncodedBodyCache}.
  */
 @Service
-@RequiredArgsConstructor
 public class CoinService {
-    private final CoinGeckoProperties coinGeckoProperties;
+    private static final int MAX_PER_PAGE = 250; // CoinGecko maximum
+    private static final int MIN_CHART_POINTS = 3; // first, last and one sampled point
+    private static final int DEFAULT_CHART_DAYS = 7; // refetched when a refreshed chart was evicted meanwhile
+
+    private final CoinGeckoClient coinGeckoClient;
     private final CryptoAppProperties cryptoAppProperties;
+    private final MarketSnapshotStore marketSnapshotStore;
+    private final CoinSearchIndexStore coinSearchIndexStore;
+    private final PriceHistoryStore priceHistoryStore;
+    private final EncodedBodyCache encodedBodyCache;
+    private final ExchangeRateStore exchangeRateStore;
+    private final Set<String> coinDataCurrencies;
+
+    private final CoinCache<GetCoinPageParams, CachedCoinPage> coinPageCache;
+    private final CoinCache<MarketCoinKey, Coin> marketCoinCache;
+    private final CoinCache<String, CoinData> coinDataCache;
+    private final CoinCache<String, SearchResult> searchCache;
+    private final CoinCache<MarketChartKey, CachedMarketChart> marketChartCache;
+    private final CoinCache<DownsampledChartParams, CompactMarketChart> downsampledChartCache;
+    private final MarketChartEncoder marketChartEncoder;
 
-    private final RestTemplate restTemplate = new RestTemplate();
-    private final HashMap<GetCoinPageParams, CachedCoinPage> coinPageCache = new HashMap<>();
-    private final HashMap<String, CoinData> coinDataCache = new HashMap<>();
-    private final HashMap<String, SearchResult> searchCache = new HashMap<>();
-    private final HashMap<GetMarketChartParams, MarketChart> marketChartCache = new HashMap<>();
+    public CoinService(CoinGeckoClient coinGeckoClient,
+                       CryptoAppProperties cryptoAppProperties,
+                       CoinCacheManager coinCacheManager,
+                       MarketSnapshotStore marketSnapshotStore,
+                       CoinSearchIndexStore coinSearchIndexStore,
+                       PriceHistoryStore priceHistoryStore,
+                       EncodedBodyCache encodedBodyCache,
+                       ExchangeRateStore exchangeRateStore) {
+        this.coinGeckoClient = coinGeckoClient;
+        this.cryptoAppProperties = cryptoAppProperties;
+        this.marketSnapshotStore = marketSnapshotStore;
+        this.coinSearchIndexStore = coinSearchIndexStore;
+        this.priceHistoryStore = priceHistoryStore;
+        this.encodedBodyCache = encodedBodyCache;
+        this.exchangeRateStore = exchangeRateStore;
+        Set<String> currencies = new HashSet<>(cryptoAppProperties.getMarketSnapshot().getCurrencies().stream()
+                .map(String::toLowerCase)
+                .toList());
+        currencies.add(cryptoAppProperties.getFx().getBaseCurrency().toLowerCase());
+        this.coinDataCurrencies = Set.copyOf(currencies);
+
+        CryptoAppProperties.Caches caches = cryptoAppProperties.getCaches();
+        this.coinPageCache = coinCacheManager.create("coinPage", caches.getCoinPage(),
+                page -> page.getCoins() == null ? 0 : page.getCoins().length, this::fetchCoinPage);
+        this.marketCoinCache = coinCacheManager.create("marketCoin", caches.getMarketCoin(),
+                coin -> 1, this::fetchMarketCoin, this::fetchMarketCoins);
+        this.coinDataCache = coinCacheManager.create("coinData", caches.getCoinData(),
+                coinData -> 1, this::fetchCoinData);
+        this.searchCache = coinCacheManager.create("search", caches.getSearch(),
+                result -> result.getCoins() == null ? 0 : result.getCoins().length, this::fetchSearchResult);
+        this.marketChartEncoder = new MarketChartEncoder(caches.getMarketChartEncoding());
+        this.marketChartCache = coinCacheManager.create("marketChart", caches.getMarketChart(),
+                cached -> (int) Math.min(Integer.MAX_VALUE, cached.chart().sizeInBytes()),
+                key -> fetchCachedMarketChart(key, cachedChartDays(key)));
+        this.downsampledChartCache = coinCacheManager.create("downsampledChart", caches.getDownsampledChart(),
+                chart -> (int) Math.min(Integer.MAX_VALUE, chart.sizeInBytes()), this::downsample);
+    }
 
     /**
-     * Fetch a page of market coins optionally filtered by ids. Results cached briefly depending on environment.
+     * Fetch a page of market coins optionally filtered by ids. Served from the market snapshot when it
+     * covers the request. Otherwise plain pages come from a page cache kept briefly depending on environment
+     * and ids requests are assembled from per coin cache entries, fetching only the missing ids.
+     * If CoinGecko is unavailable and nothing is cached, an outdated snapshot is served marked as stale.
      * @param vsCurrency fiat currency code (e.g. "usd")
      * @param page page number
      * @param perPage page size
@@ -43,47 +130,104 @@ public class CoinService {
      * @return array of Coin
      */
     public Coin[] getCoins(String vsCurrency, int page, int perPage, String ids) {
-        // Check coin cache
-        GetCoinPageParams params = new GetCoinPageParams(vsCurrency, page, perPage, ids);
-        if (coinPageCache.containsKey(params)) {
-            CachedCoinPage cachedCoinPage = coinPageCache.get(params);
-            if (cachedCoinPage != null) {
-                if (cryptoAppProperties.isProduction()) {
-                    // In prod, cache for 2 min
-                    if (cachedCoinPage.getCachedAt().isAfter(LocalDateTime.now().minusMinutes(2))) {
-                        System.out.println("Cache hit for " + params);
-                        return cachedCoinPage.getCoins();
-                    }
-                } else {
-                    // In dev, cache for 10 min
-                    if (cachedCoinPage.getCachedAt().isAfter(LocalDateTime.now().minusMinutes(10))) {
-                        System.out.println("Cache hit for " + params);
-                        return cachedCoinPage.getCoins();
-                    }
-                }
-            }
+        return resolveCoins(GetCoinPageParams.of(vsCurrency, page, perPage, ids)).coins();
+    }
+
+    /**
+     * Same as {@link #getCoins(String, int, int, String)}, serialized. Pages of the snapshot or the page
+     * cache are serialized once per snapshot or cached page, ids requests are serialized per call.
+     * @param vsCurrency fiat currency code (e.g. "usd")
+     * @param page page number
+     * @param perPage page size
+     * @param ids comma separated coin ids or null
+     * @return encoded array of Coin
+     */
+    public EncodedBody getCoinsBody(String vsCurrency, int page, int perPage, String ids) {
+        GetCoinPageParams params = GetCoinPageParams.of(vsCurrency, page, perPage, ids);
+        ResolvedCoins resolved = resolveCoins(params);
+        if (resolved.source() == null) {
+            return encodedBodyCache.encode(resolved.coins(), resolved.cachedAt());
         }
+        return encodedBodyCache.get(resolved.source(), params, resolved.cachedAt(), resolved::coins);
+    }
 
-        try {
-            HttpHeaders headers = new HttpHeaders();
-            headers.set("Accept", "application/json");
-            headers.set("x-cg-demo-api-key", coinGeckoProperties.getApiKey());
+    /**
+     * Coins of a page request together with the cached value they were taken from.
+     * @param source snapshot or cached page, null if assembled for this request
+     * @param coins coins of the page
+     * @param cachedAt load time of the source, or null
+     */
+    private record ResolvedCoins(Object source, Coin[] coins, LocalDateTime cachedAt) {
+    }
 
-            String url = buildUrl(String.format("/coins/markets?vs_currency=%s&page=%d&per_page=%d", vsCurrency, page, perPage));
-            if (ids != null && !ids.isEmpty()) {
-                url += "&ids=" + ids;
+    private ResolvedCoins resolveCoins(GetCoinPageParams params) {
+        MarketSnapshot snapshot = marketSnapshotStore.get(params.vsCurrency(), cryptoAppProperties.getMarketSnapshot().getMaxAge());
+        Coin[] coins = fromSnapshot(snapshot, params);
+        if (coins != null) {
+            return new ResolvedCoins(snapshot, coins, snapshot.getCachedAt());
+        }
+        try {
+            if (params.hasIds()) {
+                return new ResolvedCoins(null, getCoinsByIds(params), null);
+            }
+            CachedCoinPage cachedPage = coinPageCache.get(params);
+            return new ResolvedCoins(cachedPage, cachedPage.getCoins(), cachedPage.getCachedAt());
+        } catch (HttpRequestException e) {
+            MarketSnapshot outdated = marketSnapshotStore.latest(params.vsCurrency());
+            Coin[] staleCoins = isUpstreamUnavailable(e) ? fromSnapshot(outdated, params) : null;
+            if (staleCoins == null) {
+                throw e;
             }
-            Coin[] coins = restTemplate.getForObject(url, Coin[].class, new HttpEntity<>(headers));
+            StaleMarker.mark(Duration.between(outdated.getCachedAt(), LocalDateTime.now()));
+            return new ResolvedCoins(outdated, staleCoins, outdated.getCachedAt());
+        }
+    }
 
-            // Write coins to cache
-            CachedCoinPage cachedPage = new CachedCoinPage(coins, LocalDateTime.now());
+    /**
+     * Answer a coin page request from a snapshot.
+     * @param snapshot market snapshot or null
+     * @param params canonical params
+     * @return coins or null if there is no snapshot or it does not cover the request
+     */
+    private static Coin[] fromSnapshot(MarketSnapshot snapshot, GetCoinPageParams params) {
+        if (snapshot == null) {
+            return null;
+        }
+        return params.hasIds()
+                ? snapshot.byIds(params.idList(), params.page(), params.perPage())
+                : snapshot.page(params.page(), params.perPage());
+    }
 
-            coinPageCache.put(params, cachedPage);
+    private static boolean isUpstreamUnavailable(HttpRequestException e) {
+        return e.getHttpStatus().is5xxServerError() || e.getHttpStatus() == HttpStatus.TOO_MANY_REQUESTS;
+    }
 
-            return coins;
-        } catch (RestClientException e) {
-            throw new RuntimeException(e);
-        }
+    /**
+     * Fetch a page of the market list straight from CoinGecko, bypassing the caches.
+     * @param vsCurrency fiat currency code (e.g. "usd")
+     * @param page page number
+     * @param perPage page size
+     * @return array of Coin
+     */
+    public Coin[] fetchMarketPage(String vsCurrency, int page, int perPage) {
+        return fetchCoinPage(GetCoinPageParams.of(vsCurrency, page, perPage, null)).getCoins();
+    }
+
+    /**
+     * Assemble an ids filtered page from the per coin cache, in market cap order like CoinGecko.
+     * @param params canonical params with ids
+     * @return array of Coin
+     */
+    private Coin[] getCoinsByIds(GetCoinPageParams params) {
+        List<MarketCoinKey> keys = params.idList().stream()
+                .map(id -> new MarketCoinKey(params.vsCurrency(), id))
+                .toList();
+        List<Coin> coins = new ArrayList<>(marketCoinCache.getAll(keys, this::fetchMarketCoins).values());
+        coins.sort(Comparator.comparingDouble(Coin::getMarket_cap).reversed());
+
+        int from = Math.min((Math.max(params.page(), 1) - 1) * params.perPage(), coins.size());
+        int to = Math.min(from + params.perPage(), coins.size());
+        return coins.subList(from, to).toArray(Coin[]::new);
     }
 
     /**
@@ -92,127 +236,336 @@ public class CoinService {
      * @return CoinData
      */
     public CoinData getCoinById(String id) {
-        if (coinDataCache.containsKey(id)) {
-            // Check cache
-            CoinData cachedData = coinDataCache.get(id);
-            if (cachedData != null) {
-                if (cryptoAppProperties.isProduction()) {
-                    // In prod, cache for 2 min
-                    if (cachedData.getCachedAt() != null && cachedData.getCachedAt().isAfter(LocalDateTime.now().minusMinutes(2))) {
-                        System.out.println("Cache hit for coin " + id);
-                        return cachedData;
-                    }
-                } else {
-                    // In dev, cache for 10 min
-                    if (cachedData.getCachedAt() != null && cachedData.getCachedAt().isAfter(LocalDateTime.now().minusMinutes(10))) {
-                        System.out.println("Cache hit for coin " + id);
-                        return cachedData;
-                    }
-                }
-            }
-        }
+        return coinDataCache.get(id);
+    }
 
-        // No cache, fetch from API
-        try {
-            HttpHeaders headers = new HttpHeaders();
-            headers.set("Accept", "application/json");
-            headers.set("x-cg-demo-api-key", coinGeckoProperties.getApiKey());
-
-            String url = buildUrl(String.format("/coins/%s?tickers=false&market_data=true&community_data=false&developer_data=false&sparkline=false", id));
-
-            CoinData coinData = restTemplate.getForObject(url, CoinData.class, new HttpEntity<>(headers));
-            if (coinData != null) {
-                coinData.setCachedAt(LocalDateTime.now());
-                coinDataCache.put(id, coinData);
-                return coinData;
-            } else {
-                throw new RuntimeException("Coin data is null for id: " + id);
-            }
-        } catch (RestClientException e) {
-            throw new RuntimeException(e);
-        }
+    /**
+     * Return single coin data if it is cached, without loading it.
+     * @param id coin id
+     * @return CoinData or null if it is not cached or past its hard TTL
+     */
+    public CoinData getCachedCoinById(String id) {
+        return coinDataCache.getIfPresent(id);
+    }
+
+    /**
+     * Same as {@link #getCoinById(String)}, serialized once per cached coin data.
+     * @param id coin id
+     * @return encoded CoinData
+     */
+    public EncodedBody getCoinByIdBody(String id) {
+        CoinData coinData = coinDataCache.get(id);
+        return encodedBodyCache.get(coinData, null, coinData.getCachedAt(), () -> coinData);
     }
 
     /**
-     * Perform a search query against CoinGecko with 10 minute cache.
+     * Search coins by id, symbol or name. Answered from the local search index once it is built,
+     * otherwise the query is sent to CoinGecko with 10 minute cache.
      * @param query search input
-     * @return SearchResult containing coins, exchanges, categories
+     * @return SearchResult containing the matching coins
      */
     public SearchResult searchCoins(String query) {
-        // Check if cached
-        if (searchCache.containsKey(query)) {
-            SearchResult cachedResult = searchCache.get(query);
-            // Cache for 10m
-            if (cachedResult != null && cachedResult.getCachedAt() != null && cachedResult.getCachedAt().isAfter(LocalDateTime.now().minusMinutes(10))) {
-                System.out.println("Cache hit for search: " + query);
-                return cachedResult;
-            }
+        CoinSearchIndex index = coinSearchIndexStore.get();
+        if (index != null) {
+            return index.search(query, cryptoAppProperties.getSearchIndex().getLimit());
         }
-        // Cache miss - fetch from API
-        try {
-            HttpHeaders headers = new HttpHeaders();
-            headers.set("Accept", "application/json");
-            headers.set("x-cg-demo-api-key", coinGeckoProperties.getApiKey());
-
-            String url = buildUrl(String.format("/search?query=%s", query));
-            SearchResult searchResult = restTemplate.getForObject(url, SearchResult.class, new HttpEntity<>(headers));
-            if (searchResult != null) {
-                searchResult.setCachedAt(LocalDateTime.now());
-                searchCache.put(query, searchResult);
-                return searchResult;
-            } else {
-                throw new RuntimeException("Search result is null for query: " + query);
-            }
-        } catch (RestClientException e) {
-            throw new RuntimeException(e);
+        return searchCache.get(query);
+    }
+
+    /**
+     * Same as {@link #searchCoins(String)}, serialized once per query and search index or cached result.
+     * @param query search input
+     * @return encoded SearchResult
+     */
+    public EncodedBody searchCoinsBody(String query) {
+        CoinSearchIndex index = coinSearchIndexStore.get();
+        if (index != null) {
+            return encodedBodyCache.get(index, query, index.getBuiltAt(),
+                    () -> index.search(query, cryptoAppProperties.getSearchIndex().getLimit()));
+        }
+        SearchResult result = searchCache.get(query);
+        return encodedBodyCache.get(result, null, result.getCachedAt(), () -> result);
+    }
+
+    /**
+     * Suggest the best ranked coins for a typed prefix from the local suggest index, never calling CoinGecko.
+     * @param prefix typed prefix
+     * @param limit maximum number of coins
+     * @return SearchResult containing the suggested coins, empty until the index is built
+     */
+    public SearchResult suggestCoins(String prefix, int limit) {
+        CoinSuggestIndex suggestIndex = coinSearchIndexStore.getSuggestIndex();
+        if (suggestIndex == null) {
+            return new SearchResult(new SearchCoin[0], null);
+        }
+        return suggestIndex.suggest(prefix, Math.min(limit, suggestIndex.getTopK()));
+    }
+
+    /**
+     * Fetch the full coin list straight from CoinGecko, bypassing the caches.
+     * @return all coins with id, symbol and name
+     */
+    public CoinListEntry[] fetchCoinList() {
+        CoinListEntry[] coinList = coinGeckoClient.get(CoinGeckoEndpoint.COIN_LIST, "/coins/list", CoinListEntry[].class);
+        if (coinList == null) {
+            throw HttpRequestException.internalServerError("Coin list is null.");
         }
+        return coinList;
     }
 
     /**
-     * Fetch market chart data for a coin over a number of days with 12 hour cache.
+     * Fetch the exchange rate table straight from CoinGecko.
+     * @return rates of every currency CoinGecko knows
+     */
+    public ExchangeRates fetchExchangeRates() {
+        ExchangeRateResponse response = coinGeckoClient.get(CoinGeckoEndpoint.EXCHANGE_RATES, "/exchange_rates", ExchangeRateResponse.class);
+        if (response == null || response.getRates() == null) {
+            throw HttpRequestException.internalServerError("Exchange rates are null.");
+        }
+        return ExchangeRates.of(response, LocalDateTime.now());
+    }
+
+    /**
+     * Fetch market chart data for a coin over a number of days with 12 hour cache. One chart is cached per
+     * coin and currency, the longest one requested, and shorter ranges are served as views over its last
+     * days. Charts are loaded from the Postgres price history, which fetches from CoinGecko only what it is
+     * missing, and are cached in compact form and decoded for each call. With currency conversion enabled
+     * only base currency charts are cached and other currencies are converted at the current exchange rate.
      * @param id coin id
-     * @param days number of days (1,7,14,30,90,180,365,max)
+     * @param days number of days (1,7,14,30,90,180,365)
      * @param vs_currency fiat currency code (e.g. "usd")
      * @return MarketChart data
      */
     public MarketChart getMarketChartData(String id, int days, String vs_currency) {
-        // Check cache
-        GetMarketChartParams params = new GetMarketChartParams(id, days, vs_currency);
-        if (marketChartCache.containsKey(params)) {
-            MarketChart marketChart = marketChartCache.get(params);
-            // Cache for 12 hours
-            System.out.println("Cache hit for market chart: " + params);
-            if (marketChart != null && marketChart.getCachedAt().isAfter(LocalDateTime.now().minusHours(12))) {
-                return marketChart;
+        return getMarketChartData(id, days, vs_currency, null);
+    }
+
+    /**
+     * Fetch market chart data, optionally downsampled with LTTB to at most the given number of points
+     * per series. Downsampled charts are cached per range and point count and rebuilt when their source
+     * chart was refreshed.
+     * @param id coin id
+     * @param days number of days (1,7,14,30,90,180,365)
+     * @param vs_currency fiat currency code (e.g. "usd")
+     * @param points maximum points per series or null for all points
+     * @return MarketChart data
+     */
+    public MarketChart getMarketChartData(String id, int days, String vs_currency, Integer points) {
+        return resolveMarketChart(id, days, vs_currency, points).toMarketChart();
+    }
+
+    /**
+     * Same as {@link #getMarketChartData(String, int, String, Integer)}, serialized once per cached chart
+     * and range, so cache hits skip decoding the compact chart.
+     * @param id coin id
+     * @param days number of days (1,7,14,30,90,180,365)
+     * @param vs_currency fiat currency code (e.g. "usd")
+     * @param points maximum points per series or null for all points
+     * @return encoded MarketChart
+     */
+    public EncodedBody getMarketChartBody(String id, int days, String vs_currency, Integer points) {
+        ResolvedMarketChart resolved = resolveMarketChart(id, days, vs_currency, points);
+        return encodedBodyCache.get(resolved.source(), new ChartBodyVariant(resolved.days(), resolved.rate(), false),
+                resolved.cachedAt(), resolved::toMarketChart);
+    }
+
+    /**
+     * Same as {@link #getMarketChartBody(String, int, String, Integer)} as a {@link MarketChartColumns} view.
+     * @param id coin id
+     * @param days number of days (1,7,14,30,90,180,365)
+     * @param vs_currency fiat currency code (e.g. "usd")
+     * @param points maximum points per series or null for all points
+     * @return encoded MarketChartColumns
+     */
+    public EncodedBody getMarketChartColumnsBody(String id, int days, String vs_currency, Integer points) {
+        ResolvedMarketChart resolved = resolveMarketChart(id, days, vs_currency, points);
+        return encodedBodyCache.get(resolved.source(), new ChartBodyVariant(resolved.days(), resolved.rate(), true),
+                resolved.cachedAt(), () -> MarketChartColumns.of(resolved.toMarketChart()));
+    }
+
+    /**
+     * Cached compact chart answering a chart request.
+     * @param source cached chart, either the coin's range or a downsampled one
+     * @param days trailing days to cut from the source, null to use it whole
+     * @param rate factor converting the source into the requested currency
+     * @param ratesFetchedAt fetch time of the exchange rates the rate was taken from, null if not converted
+     */
+    private record ResolvedMarketChart(CompactMarketChart source, Integer days, double rate, LocalDateTime ratesFetchedAt) {
+
+        MarketChart toMarketChart() {
+            MarketChart chart = source.toMarketChart();
+            chart = days == null ? chart : chart.lastDays(days);
+            return rate == 1 ? chart : chart.convert(rate);
+        }
+
+        /**
+         * Last change of the chart as served, a new exchange rate changes converted charts.
+         * @return later of the source's load time and the rates' fetch time
+         */
+        LocalDateTime cachedAt() {
+            LocalDateTime cachedAt = source.getCachedAt();
+            if (ratesFetchedAt == null || cachedAt == null) {
+                return cachedAt;
             }
+            return ratesFetchedAt.isAfter(cachedAt) ? ratesFetchedAt : cachedAt;
         }
+    }
 
-        // Cache miss - fetch from API
-        try {
-            HttpHeaders headers = new HttpHeaders();
-            headers.set("Accept", "application/json");
-            headers.set("x-cg-demo-api-key", coinGeckoProperties.getApiKey());
-
-            String url = buildUrl(String.format("/coins/%s/market_chart?interval=daily&vs_currency=%s&days=%d", id, vs_currency, days));
-            MarketChart marketChart = restTemplate.getForObject(url, MarketChart.class, new HttpEntity<>(headers));
-            if (marketChart != null) {
-                marketChart.setCachedAt(LocalDateTime.now());
-                marketChartCache.put(params, marketChart);
-                return marketChart;
-            } else {
-                throw new RuntimeException("Market chart data is null for days: " + days);
+    private record ChartBodyVariant(Integer days, double rate, boolean columns) {
+    }
+
+    private ResolvedMarketChart resolveMarketChart(String id, int days, String vs_currency, Integer points) {
+        if (days < 1) {
+            throw HttpRequestException.badRequest("days must be at least 1.");
+        }
+        if (points != null && points < MIN_CHART_POINTS) {
+            throw HttpRequestException.badRequest("points must be at least " + MIN_CHART_POINTS + ".");
+        }
+        // Downsampling picks the same points at any positive scale, so converted charts share the base ones.
+        // The rates are read before the rate, so their fetch time is never newer than the rate used.
+        ExchangeRates rates = exchangeRateStore.latest();
+        Double conversionRate = exchangeRateStore.conversionRate(vs_currency);
+        double rate = conversionRate == null ? 1 : conversionRate;
+        LocalDateTime ratesFetchedAt = conversionRate == null || rates == null ? null : rates.getFetchedAt();
+        String chartCurrency = conversionRate == null ? vs_currency : exchangeRateStore.getBaseCurrency();
+        GetMarketChartParams params = new GetMarketChartParams(id, days, chartCurrency);
+        ResolvedMarketChart range = new ResolvedMarketChart(marketChartRange(params).chart(), days, rate, ratesFetchedAt);
+        if (points == null) {
+            return range;
+        }
+
+        DownsampledChartParams key = DownsampledChartParams.of(params, points);
+        LocalDateTime sourceCachedAt = range.source().getCachedAt();
+        CompactMarketChart held = downsampledChartCache.peek(key);
+        if ((held == null || !Objects.equals(held.getCachedAt(), sourceCachedAt))
+                && range.source().priceCountInLastDays(days) <= points) {
+            // Nothing to sample down, counting the points only decodes timestamps
+            return range;
+        }
+        // A sample of an older source chart is replaced within the same read, counted once
+        CompactMarketChart downsampled = downsampledChartCache.get(key,
+                chart -> Objects.equals(chart.getCachedAt(), sourceCachedAt), this::downsample);
+        return new ResolvedMarketChart(downsampled, null, rate, ratesFetchedAt);
+    }
+
+    private CompactMarketChart downsample(DownsampledChartParams key) {
+        MarketChart chart = marketChartRange(key.params()).chart().toMarketChart().lastDays(key.params().days());
+        return marketChartEncoder.encode(Lttb.downsample(chart, key.points()));
+    }
+
+    /**
+     * Memory use of the cached market charts, downsampled ones included.
+     * @return statistics including bytes per point
+     */
+    public MarketChartStats marketChartStats() {
+        List<CompactMarketChart> charts = new ArrayList<>(marketChartCache.values().stream().map(CachedMarketChart::chart).toList());
+        charts.addAll(downsampledChartCache.values());
+        return marketChartEncoder.stats(charts);
+    }
+
+    private CachedCoinPage fetchCoinPage(GetCoinPageParams params) {
+        String path = String.format("/coins/markets?vs_currency=%s&page=%d&per_page=%d", encode(params.vsCurrency()), params.page(), params.perPage());
+        if (params.hasIds()) {
+            path += "&ids=" + encode(params.ids());
+        }
+        Coin[] coins = coinGeckoClient.get(CoinGeckoEndpoint.MARKETS, path, Coin[].class);
+        if (coins == null) {
+            throw HttpRequestException.internalServerError("Coin page is null for: " + params);
+        }
+        return new CachedCoinPage(coins, LocalDateTime.now());
+    }
+
+    private Coin fetchMarketCoin(MarketCoinKey key) {
+        Coin coin = fetchMarketCoins(Set.of(key)).get(key);
+        if (coin == null) {
+            throw HttpRequestException.notFound("Coin not found: " + key.id());
+        }
+        return coin;
+    }
+
+    /**
+     * Fetch market data for many coins with as few calls as the page size allows, one call per currency
+     * and page of ids.
+     * @param keys coins to fetch, in any currencies
+     * @return fetched coins, ids unknown to CoinGecko are left out
+     */
+    private Map<MarketCoinKey, Coin> fetchMarketCoins(Set<MarketCoinKey> keys) {
+        Map<String, List<String>> idsByCurrency = new HashMap<>();
+        for (MarketCoinKey key : keys) {
+            idsByCurrency.computeIfAbsent(key.vsCurrency(), currency -> new ArrayList<>()).add(key.id());
+        }
+        Map<MarketCoinKey, Coin> result = new HashMap<>();
+        idsByCurrency.forEach((vsCurrency, batch) -> {
+            for (int from = 0; from < batch.size(); from += MAX_PER_PAGE) {
+                String ids = String.join(",", batch.subList(from, Math.min(from + MAX_PER_PAGE, batch.size())));
+                for (Coin coin : fetchCoinPage(GetCoinPageParams.of(vsCurrency, 1, MAX_PER_PAGE, ids)).getCoins()) {
+                    result.put(new MarketCoinKey(vsCurrency, coin.getId()), coin);
+                }
             }
-        } catch (RestClientException e) {
-            throw new RuntimeException(e);
+        });
+        return result;
+    }
+
+    private CoinData fetchCoinData(String id) {
+        String path = String.format("/coins/%s?tickers=false&market_data=true&community_data=false&developer_data=false&sparkline=false", encode(id));
+        CoinData coinData = coinGeckoClient.get(CoinGeckoEndpoint.COIN, path, CoinData.class);
+        if (coinData != null) {
+            if (coinData.getMarket_data() != null) {
+                coinData.getMarket_data().retainCurrencies(coinDataCurrencies);
+            }
+            coinData.setCachedAt(LocalDateTime.now());
+            return coinData;
+        } else {
+            throw HttpRequestException.internalServerError("Coin data is null for id: " + id);
+        }
+    }
+
+    private SearchResult fetchSearchResult(String query) {
+        String path = String.format("/search?query=%s", encode(query));
+        SearchResult searchResult = coinGeckoClient.get(CoinGeckoEndpoint.SEARCH, path, SearchResult.class);
+        if (searchResult != null) {
+            searchResult.setCachedAt(LocalDateTime.now());
+            return searchResult;
+        } else {
+            throw HttpRequestException.internalServerError("Search result is null for query: " + query);
         }
     }
 
     /**
-     * Build full API URL for a given path.
-     * @param path relative path
-     * @return full URL string
+     * Cached chart of the coin and currency covering the requested days. A chart is only fetched when
+     * nothing long enough is cached, and then replaces the shorter one.
+     * @param params requested chart
+     * @return cached chart covering at least the requested days
      */
-    private String buildUrl(String path) {
-        return coinGeckoProperties.getApiUrl() + path;
+    private CachedMarketChart marketChartRange(GetMarketChartParams params) {
+        return marketChartCache.get(MarketChartKey.of(params),
+                cached -> cached.covers(params.days()),
+                key -> fetchCachedMarketChart(key, Math.max(params.days(), cachedChartDays(key))));
+    }
+
+    private int cachedChartDays(MarketChartKey key) {
+        CachedMarketChart cached = marketChartCache.peek(key);
+        return cached == null ? DEFAULT_CHART_DAYS : cached.days();
+    }
+
+    private CachedMarketChart fetchCachedMarketChart(MarketChartKey key, int days) {
+        HistoryChart loaded = priceHistoryStore.load(key, days,
+                fetchDays -> fetchMarketChart(new GetMarketChartParams(key.id(), fetchDays, key.vs_currency())));
+        return new CachedMarketChart(days, marketChartEncoder.encode(loaded.chart()), loaded.stale());
+    }
+
+    private MarketChart fetchMarketChart(GetMarketChartParams params) {
+        String path = String.format("/coins/%s/market_chart?interval=daily&vs_currency=%s&days=%d", encode(params.id()), encode(params.vs_currency()), params.days());
+        MarketChart marketChart = coinGeckoClient.get(CoinGeckoEndpoint.MARKET_CHART, path, MarketChart.class);
+        if (marketChart != null) {
+            marketChart.setCachedAt(LocalDateTime.now());
+            return marketChart;
+        } else {
+            throw HttpRequestException.internalServerError("Market chart data is null for days: " + params.days());
+        }
+    }
+
+    private static String encode(String value) {
+        return URLEncoder.encode(value, StandardCharsets.UTF_8);
     }
-}
\ No newline at end of file
+}
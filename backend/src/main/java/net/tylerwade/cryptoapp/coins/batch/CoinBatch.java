@@ -0,0 +1,17 @@
+package net.tylerwade.cryptoapp.coins.batch;
+
+import net.tylerwade.cryptoapp.coins.CoinData;
+
+import java.util.Map;
+
+/**
+ * Result of a batch coin data request. Every requested id is in exactly one of the maps.
+ * Ids are in canonical form (trimmed and lower case) and both maps are sorted by id.
+ * @param coins coin data by id
+ * @param errors reason by id for coins that could not be loaded
+ */
+public record CoinBatch(
+        Map<String, CoinData> coins,
+        Map<String, CoinBatchError> errors
+) {
+}
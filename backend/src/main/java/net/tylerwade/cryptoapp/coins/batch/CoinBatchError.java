@@ -0,0 +1,12 @@
+package net.tylerwade.cryptoapp.coins.batch;
+
+/**
+ * Marker of a coin a batch request could not load.
+ * @param status HTTP status the single coin request would have failed with
+ * @param message error message
+ */
+public record CoinBatchError(
+        int status,
+        String message
+) {
+}
@@ -0,0 +1,117 @@
+package net.tylerwade.cryptoapp.coins.batch;
+
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import net.tylerwade.cryptoapp.coins.CoinData;
+import net.tylerwade.cryptoapp.coins.CoinService;
+import net.tylerwade.cryptoapp.coins.coinpage.GetCoinPageParams;
+import net.tylerwade.cryptoapp.common.exception.HttpRequestException;
+import net.tylerwade.cryptoapp.config.CryptoAppProperties;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Loads coin data for many ids in one request. Cached coins are answered right away, the missing ones are
+ * loaded through the coin data cache on virtual threads, so concurrent batches and single requests for the
+ * same coin still share one upstream call. A semaphore shared by all batches caps the loads in flight and
+ * the whole batch is bounded by a deadline, after which the coins still loading are reported as timed out
+ * while their loads finish into the cache. Loads are never interrupted, as other requests for the same coin
+ * may be waiting on them.
+ */
+@Slf4j
+@Component
+public class CoinBatchLoader {
+
+    private final CoinService coinService;
+    private final CryptoAppProperties.CoinBatch settings;
+    private final Semaphore permits;
+    private final ExecutorService loader = Executors.newVirtualThreadPerTaskExecutor();
+
+    public CoinBatchLoader(CoinService coinService, CryptoAppProperties cryptoAppProperties) {
+        this.coinService = coinService;
+        this.settings = cryptoAppProperties.getCoinBatch();
+        this.permits = new Semaphore(Math.max(1, settings.getConcurrency()));
+    }
+
+    /**
+     * Load coin data for the given ids.
+     * @param ids comma separated coin ids
+     * @return loaded coins and per id errors
+     */
+    public CoinBatch load(String ids) {
+        List<String> idList = List.of(GetCoinPageParams.canonicalIds(ids).split(","));
+        if (idList.getFirst().isEmpty()) {
+            throw HttpRequestException.badRequest("ids must not be empty.");
+        }
+        if (idList.size() > settings.getMaxIds()) {
+            throw HttpRequestException.badRequest("At most " + settings.getMaxIds() + " ids are allowed per batch.");
+        }
+        long deadline = System.nanoTime() + settings.getTimeout().toNanos();
+
+        Map<String, CoinData> coins = new TreeMap<>();
+        Map<String, CoinBatchError> errors = new TreeMap<>();
+        Map<String, Future<CoinData>> pending = new LinkedHashMap<>();
+        for (String id : idList) {
+            CoinData cached = coinService.getCachedCoinById(id);
+            if (cached != null) {
+                coins.put(id, cached);
+            } else {
+                pending.put(id, loader.submit(() -> loadWithPermit(id, deadline)));
+            }
+        }
+
+        pending.forEach((id, future) -> {
+            try {
+                coins.put(id, future.get(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS));
+            } catch (TimeoutException e) {
+                errors.put(id, timedOut());
+            } catch (ExecutionException e) {
+                errors.put(id, error(e.getCause()));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                errors.put(id, timedOut());
+            }
+        });
+        return new CoinBatch(coins, errors);
+    }
+
+    private CoinData loadWithPermit(String id, long deadline) throws InterruptedException {
+        if (!permits.tryAcquire(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS)) {
+            throw new HttpRequestException("Timed out waiting for a load slot.", HttpStatus.GATEWAY_TIMEOUT);
+        }
+        try {
+            return coinService.getCoinById(id);
+        } finally {
+            permits.release();
+        }
+    }
+
+    private static CoinBatchError timedOut() {
+        return new CoinBatchError(HttpStatus.GATEWAY_TIMEOUT.value(), "Timed out loading coin data.");
+    }
+
+    private static CoinBatchError error(Throwable cause) {
+        if (cause instanceof HttpRequestException e) {
+            return new CoinBatchError(e.getHttpStatus().value(), e.getMessage());
+        }
+        log.warn("Batch coin load failed", cause);
+        return new CoinBatchError(HttpStatus.INTERNAL_SERVER_ERROR.value(), "Could not load coin data.");
+    }
+
+    @PreDestroy
+    public void close() {
+        loader.shutdownNow();
+    }
+}
@@ -0,0 +1,74 @@
+package net.tylerwade.cryptoapp.coins.cache;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * A cached value together with the time it was loaded and last read. A null value records a key a bulk
+ * load did not return, so it is not requested again until the entry expires.
+ * Times are readings of the owning cache's ticker, in nanoseconds.
+ * @param <V> cached value type
+ */
+final class CacheEntry<V> {
+
+    private static final long ACCESS_RESOLUTION_NANOS = TimeUnit.SECONDS.toNanos(1);
+
+    private final V value;
+    private final boolean fallback;
+    private final long loadedAt;
+    private volatile long lastAccessedAt;
+    private final AtomicBoolean refreshing = new AtomicBoolean();
+
+    CacheEntry(V value, long loadedAt, long lastAccessedAt) {
+        this.value = value;
+        this.fallback = value instanceof FallbackValue fallbackValue && fallbackValue.staleAge() != null;
+        this.loadedAt = loadedAt;
+        this.lastAccessedAt = lastAccessedAt;
+    }
+
+    V value() {
+        return value;
+    }
+
+    boolean isAbsent() {
+        return value == null;
+    }
+
+    /**
+     * Whether the value was loaded from a fallback, see {@link FallbackValue}.
+     * @return true if the value is stale data
+     */
+    boolean isFallback() {
+        return fallback;
+    }
+
+    long age(long now) {
+        return now - loadedAt;
+    }
+
+    long lastAccessedAt() {
+        return lastAccessedAt;
+    }
+
+    /**
+     * Record a read. Only written once per second to avoid a volatile write on every hit.
+     * @param now current nano time
+     */
+    void touch(long now) {
+        if (now - lastAccessedAt > ACCESS_RESOLUTION_NANOS) {
+            lastAccessedAt = now;
+        }
+    }
+
+    /**
+     * Claim the right to refresh this entry.
+     * @return true if no refresh was already scheduled
+     */
+    boolean startRefresh() {
+        return refreshing.compareAndSet(false, true);
+    }
+
+    void endRefresh() {
+        refreshing.set(false);
+    }
+}
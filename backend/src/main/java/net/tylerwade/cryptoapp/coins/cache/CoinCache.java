@@ -0,0 +1,451 @@
+package net.tylerwade.cryptoapp.coins.cache;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import com.github.benmanes.caffeine.cache.Ticker;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import lombok.extern.slf4j.Slf4j;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+import java.util.function.Predicate;
+import java.util.function.ToIntFunction;
+
+/**
+ * Bounded, thread-safe cache of values loaded from the CoinGecko API.
+ * Backed by Caffeine so reads are lock-free and eviction uses frequency-aware (W-TinyLFU)
+ * admission bounded by the total weight of all entries.
+ * <p>
+ * Entries follow a soft/hard TTL model: a value older than the soft TTL is still returned
+ * immediately while it is reloaded on the refresh executor, and only a value past the hard TTL
+ * makes the caller wait for the load. Past the hard TTL the value is retained for a while longer
+ * and returned if that load fails (stale-if-error), marking the request with {@link StaleMarker}.
+ * <p>
+ * Hits and misses are counted here rather than by Caffeine, which would count reading an entry only retained
+ * for stale-if-error as a hit: a lookup is a hit only if it is answered without waiting for a load.
+ * <p>
+ * Values loaded from a fallback (see {@link FallbackValue}) mark every request reading them stale and are
+ * refreshed after {@link #FALLBACK_TTL}.
+ * <p>
+ * Caches with a bulk loader refresh every soft expired key read together, and the refresh-ahead pass,
+ * with one bulk load instead of one load per key. Keys a bulk load does not return are cached as absent
+ * for the soft TTL, so made up keys do not reach the upstream on every read.
+ * @param <K> cache key type, must be immutable with value based equality
+ * @param <V> cached value type
+ */
+@Slf4j
+public class CoinCache<K, V> {
+
+    /**
+     * Soft TTL of values loaded from a fallback, so the upstream is retried soon rather than after the full TTL.
+     */
+    public static final Duration FALLBACK_TTL = Duration.ofMinutes(1);
+
+    private final String name;
+    private final Cache<K, CacheEntry<V>> cache;
+    private final Function<K, V> loader;
+    private final Function<Set<K>, Map<K, V>> bulkLoader;
+    private final Executor refreshExecutor;
+    private final Ticker ticker;
+    private final long softTtlNanos;
+    private final long fallbackTtlNanos;
+    private final long hardTtlNanos;
+    private final SingleFlight<K, CacheEntry<V>> singleFlight = new SingleFlight<>();
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder refreshes = new LongAdder();
+    private final LongAdder staleFallbacks = new LongAdder();
+
+    CoinCache(String name,
+              Duration softTtl,
+              Duration hardTtl,
+              Duration staleIfError,
+              long maximumWeight,
+              ToIntFunction<V> weigher,
+              Function<K, V> loader,
+              Function<Set<K>, Map<K, V>> bulkLoader,
+              Executor refreshExecutor) {
+        this(name, softTtl, hardTtl, staleIfError, maximumWeight, weigher, loader, bulkLoader, refreshExecutor,
+                Ticker.systemTicker());
+    }
+
+    /**
+     * Cache reading the time from the given ticker, used by tests to move time without waiting.
+     */
+    CoinCache(String name,
+              Duration softTtl,
+              Duration hardTtl,
+              Duration staleIfError,
+              long maximumWeight,
+              ToIntFunction<V> weigher,
+              Function<K, V> loader,
+              Function<Set<K>, Map<K, V>> bulkLoader,
+              Executor refreshExecutor,
+              Ticker ticker) {
+        this.name = name;
+        this.ticker = ticker;
+        this.loader = loader;
+        this.bulkLoader = bulkLoader;
+        this.refreshExecutor = refreshExecutor;
+        this.softTtlNanos = softTtl.toNanos();
+        this.fallbackTtlNanos = Math.min(softTtlNanos, FALLBACK_TTL.toNanos());
+        this.hardTtlNanos = Math.max(hardTtl.toNanos(), softTtlNanos);
+        Duration retention = Duration.ofNanos(hardTtlNanos).plus(staleIfError);
+        this.cache = Caffeine.newBuilder()
+                .expireAfter(Expiry.writing((K key, CacheEntry<V> entry) -> entry.isAbsent() ? softTtl : retention))
+                .maximumWeight(maximumWeight)
+                .ticker(ticker)
+                .weigher((K key, CacheEntry<V> entry) -> entry.isAbsent() ? 1 : Math.max(1, weigher.applyAsInt(entry.value())))
+                .recordStats() // for evictions, hits and misses are counted against the hard TTL below
+                .build();
+    }
+
+    /**
+     * Return the cached value for the key, loading and caching it on a miss.
+     * Concurrent misses for the same key share a single load and a value past its soft TTL
+     * is returned as is while a background refresh is scheduled.
+     * @param key cache key
+     * @return cached or freshly loaded value
+     */
+    public V get(K key) {
+        return get(key, value -> true, loader);
+    }
+
+    /**
+     * Return the cached value for the key if it satisfies the request, otherwise load one that does
+     * with the given loader and cache it in place of the existing value. This lets one entry serve
+     * requests it covers (e.g. a long chart serving shorter ranges) and only be replaced by a wider load.
+     * Background refreshes keep using the cache's own loader.
+     * @param key cache key
+     * @param covers whether a value satisfies this request
+     * @param loader loads a value satisfying the request
+     * @return cached or freshly loaded value, expired only if it covers the request and the load failed
+     */
+    public V get(K key, Predicate<V> covers, Function<K, V> loader) {
+        CacheEntry<V> entry = present(cache.asMap().get(key));
+        long now = ticker.read();
+        if (entry != null && entry.age(now) <= hardTtlNanos && covers.test(entry.value())) {
+            hits.increment();
+            return hit(key, entry, now);
+        }
+        misses.increment();
+        try {
+            CacheEntry<V> loaded = singleFlight.execute(key, k -> load(k, covers, loader));
+            if (!covers.test(loaded.value())) {
+                // Joined a load for a narrower request that was already in flight
+                loaded = singleFlight.execute(key, k -> load(k, covers, loader));
+            }
+            return read(loaded);
+        } catch (RuntimeException e) {
+            if (entry == null || !covers.test(entry.value())) {
+                throw e;
+            }
+            staleFallbacks.increment();
+            StaleMarker.mark(Duration.ofNanos(entry.age(now)));
+            log.debug("Serving expired {} cache entry {} after failed load: {}", name, key, e.getMessage());
+            return entry.value();
+        }
+    }
+
+    /**
+     * Return the cached values for many keys, loading all missing ones with a single bulk load.
+     * If the load fails, expired values still retained are returned for the keys that have one.
+     * Keys past their soft TTL are refreshed in the background together, with the same bulk load.
+     * Keys the load leaves out are remembered as absent for the soft TTL and not loaded again meanwhile.
+     * @param keys cache keys
+     * @param bulkLoader loads the missing keys, may leave out keys that do not exist upstream
+     * @return values in key order, keys that could not be loaded or are absent upstream are left out
+     */
+    public Map<K, V> getAll(Collection<K> keys, Function<Set<K>, Map<K, V>> bulkLoader) {
+        Map<K, V> found = new HashMap<>();
+        Map<K, V> expired = new HashMap<>();
+        long oldestExpired = 0;
+        List<K> missing = new ArrayList<>();
+        Map<K, CacheEntry<V>> softExpired = new HashMap<>();
+        long now = ticker.read();
+        for (K key : keys) {
+            CacheEntry<V> entry = cache.asMap().get(key);
+            if (entry != null && entry.isAbsent() && entry.age(now) <= softTtlNanos) {
+                hits.increment();
+            } else if (entry != null && !entry.isAbsent() && entry.age(now) <= hardTtlNanos) {
+                hits.increment();
+                entry.touch(now);
+                if (entry.age(now) > softTtl(entry)) {
+                    softExpired.put(key, entry);
+                }
+                found.put(key, read(entry));
+            } else {
+                misses.increment();
+                missing.add(key);
+                if (entry != null && !entry.isAbsent()) {
+                    expired.put(key, entry.value());
+                    oldestExpired = Math.max(oldestExpired, entry.age(now));
+                }
+            }
+        }
+        refreshAllAsync(softExpired, bulkLoader);
+        if (!missing.isEmpty()) {
+            try {
+                singleFlight.executeAll(missing, batch -> loadAll(batch, bulkLoader))
+                        .forEach((key, entry) -> found.put(key, read(entry)));
+            } catch (RuntimeException e) {
+                if (expired.isEmpty()) {
+                    throw e;
+                }
+                staleFallbacks.add(expired.size());
+                StaleMarker.mark(Duration.ofNanos(oldestExpired));
+                log.debug("Serving {} expired {} cache entries after failed load: {}", expired.size(), name, e.getMessage());
+                found.putAll(expired);
+            }
+        }
+
+        Map<K, V> result = new LinkedHashMap<>();
+        for (K key : keys) {
+            V value = found.get(key);
+            if (value != null) {
+                result.put(key, value);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Return the cached value without loading it. Only a found value is counted, as a hit, since callers
+     * load absent values with {@link #get(Object)}, which counts the miss.
+     * @param key cache key
+     * @return cached value or null if absent or past its hard TTL
+     */
+    public V getIfPresent(K key) {
+        CacheEntry<V> entry = present(cache.asMap().get(key));
+        if (entry == null || entry.age(ticker.read()) > hardTtlNanos) {
+            return null;
+        }
+        hits.increment();
+        return entry.value();
+    }
+
+    /**
+     * Return the value held for the key regardless of its age, without loading it or counting a hit.
+     * @param key cache key
+     * @return held value, possibly expired, or null if absent
+     */
+    public V peek(K key) {
+        CacheEntry<V> entry = cache.asMap().get(key);
+        return entry == null ? null : entry.value();
+    }
+
+    /**
+     * Values currently held, including expired ones retained for stale-if-error.
+     * @return snapshot of the cached values
+     */
+    public List<V> values() {
+        return cache.asMap().values().stream()
+                .filter(entry -> !entry.isAbsent())
+                .map(CacheEntry::value)
+                .toList();
+    }
+
+    /**
+     * Store a value, replacing any existing entry.
+     * @param key cache key
+     * @param value value to cache
+     */
+    public void put(K key, V value) {
+        long now = ticker.read();
+        cache.put(key, new CacheEntry<>(value, now, now));
+    }
+
+    /**
+     * Remove a single entry.
+     * @param key cache key
+     */
+    public void invalidate(K key) {
+        cache.invalidate(key);
+    }
+
+    /**
+     * Schedule a refresh for entries that were read within the last soft TTL and whose age
+     * passed the given fraction of it, so hot keys are reloaded before they go stale.
+     * @param ratio fraction of the soft TTL after which an entry is refreshed ahead of time
+     */
+    void refreshAhead(double ratio) {
+        long now = ticker.read();
+        Map<K, CacheEntry<V>> due = new HashMap<>();
+        cache.asMap().forEach((key, entry) -> {
+            boolean recentlyRead = now - entry.lastAccessedAt() < softTtlNanos;
+            if (!entry.isAbsent() && recentlyRead && entry.age(now) > (long) (softTtl(entry) * ratio)) {
+                due.put(key, entry);
+            }
+        });
+        if (bulkLoader != null) {
+            refreshAllAsync(due, bulkLoader);
+        } else {
+            due.forEach(this::refreshAsync);
+        }
+    }
+
+    private V hit(K key, CacheEntry<V> entry, long now) {
+        entry.touch(now);
+        if (entry.age(now) > softTtl(entry)) {
+            refreshAsync(key, entry);
+        }
+        return read(entry);
+    }
+
+    private long softTtl(CacheEntry<V> entry) {
+        return entry.isFallback() ? fallbackTtlNanos : softTtlNanos;
+    }
+
+    /**
+     * Value of an entry returned to a caller, marking the request stale if it was loaded from a fallback.
+     */
+    private static <V> V read(CacheEntry<V> entry) {
+        if (entry.isFallback()) {
+            StaleMarker.mark(((FallbackValue) entry.value()).staleAge());
+        }
+        return entry.value();
+    }
+
+    private void refreshAsync(K key, CacheEntry<V> entry) {
+        if (!entry.startRefresh()) {
+            return;
+        }
+        try {
+            refreshExecutor.execute(() -> {
+                try {
+                    singleFlight.execute(key, k -> reload(k, loader));
+                    refreshes.increment();
+                } catch (RuntimeException e) {
+                    log.warn("Refresh of {} cache entry {} failed: {}", name, key, e.getMessage());
+                } finally {
+                    entry.endRefresh();
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            // Refresh queue is full, the entry is tried again on a later read
+            entry.endRefresh();
+        }
+    }
+
+    /**
+     * Refresh many entries with one bulk load on the refresh executor. Entries already being refreshed
+     * are left out.
+     * @param entries entries to refresh by key
+     * @param bulkLoader loads the keys, may leave out keys that no longer exist upstream
+     */
+    private void refreshAllAsync(Map<K, CacheEntry<V>> entries, Function<Set<K>, Map<K, V>> bulkLoader) {
+        Map<K, CacheEntry<V>> claimed = new HashMap<>();
+        entries.forEach((key, entry) -> {
+            if (entry.startRefresh()) {
+                claimed.put(key, entry);
+            }
+        });
+        if (claimed.isEmpty()) {
+            return;
+        }
+        try {
+            refreshExecutor.execute(() -> {
+                try {
+                    refreshes.add(singleFlight.executeAll(claimed.keySet(), batch -> reloadAll(batch, bulkLoader)).size());
+                } catch (RuntimeException e) {
+                    log.warn("Refresh of {} {} cache entries failed: {}", claimed.size(), name, e.getMessage());
+                } finally {
+                    claimed.values().forEach(CacheEntry::endRefresh);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            // Refresh queue is full, the entries are tried again on a later read
+            claimed.values().forEach(CacheEntry::endRefresh);
+        }
+    }
+
+    private CacheEntry<V> load(K key, Predicate<V> covers, Function<K, V> loader) {
+        // Another load may have completed between the miss and joining the flight
+        CacheEntry<V> cached = present(cache.asMap().get(key));
+        if (cached != null && cached.age(ticker.read()) <= hardTtlNanos && covers.test(cached.value())) {
+            return cached;
+        }
+        return reload(key, loader);
+    }
+
+    private CacheEntry<V> reload(K key, Function<K, V> loader) {
+        V value = loader.apply(key);
+        long now = ticker.read();
+        // Carry the last read over so keys nobody reads stop being refreshed ahead of time
+        CacheEntry<V> previous = cache.asMap().get(key);
+        CacheEntry<V> entry = new CacheEntry<>(value, now, previous == null ? now : previous.lastAccessedAt());
+        cache.put(key, entry);
+        return entry;
+    }
+
+    private Map<K, CacheEntry<V>> reloadAll(Set<K> keys, Function<Set<K>, Map<K, V>> bulkLoader) {
+        Map<K, V> values = bulkLoader.apply(keys);
+        long now = ticker.read();
+        Map<K, CacheEntry<V>> entries = new HashMap<>();
+        values.forEach((key, value) -> {
+            CacheEntry<V> previous = cache.asMap().get(key);
+            CacheEntry<V> entry = new CacheEntry<>(value, now, previous == null ? now : previous.lastAccessedAt());
+            cache.put(key, entry);
+            entries.put(key, entry);
+        });
+        return entries;
+    }
+
+    private Map<K, CacheEntry<V>> loadAll(Set<K> keys, Function<Set<K>, Map<K, V>> bulkLoader) {
+        Map<K, V> values = bulkLoader.apply(keys);
+        long now = ticker.read();
+        Map<K, CacheEntry<V>> entries = new HashMap<>();
+        for (K key : keys) {
+            // Left out keys are cached as absent entries
+            CacheEntry<V> entry = new CacheEntry<>(values.get(key), now, now);
+            cache.put(key, entry);
+            entries.put(key, entry);
+        }
+        return entries;
+    }
+
+    /**
+     * Entry unless it records an absent key.
+     * @param entry cached entry or null
+     * @return entry holding a value or null
+     */
+    private static <V> CacheEntry<V> present(CacheEntry<V> entry) {
+        return entry == null || entry.isAbsent() ? null : entry;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * Snapshot of the hit, miss, eviction, refresh and stale fallback counters together with the current size.
+     * @return cache statistics
+     */
+    public CoinCacheStats stats() {
+        CacheStats stats = cache.stats();
+        long weight = cache.policy().eviction()
+                .map(eviction -> eviction.weightedSize().orElse(0L))
+                .orElse(0L);
+        return new CoinCacheStats(
+                name,
+                hits.sum(),
+                misses.sum(),
+                stats.evictionCount(),
+                refreshes.sum(),
+                staleFallbacks.sum(),
+                cache.estimatedSize(),
+                weight
+        );
+    }
+}
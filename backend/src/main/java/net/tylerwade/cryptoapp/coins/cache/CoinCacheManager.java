@@ -0,0 +1,179 @@
+package net.tylerwade.cryptoapp.coins.cache;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import jakarta.annotation.PreDestroy;
+import net.tylerwade.cryptoapp.config.CryptoAppProperties;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import java.util.function.ToIntFunction;
+
+/**
+ * Creates the coin caches from their configured specs, owns the bounded executor their
+ * background refreshes run on and keeps track of them so their statistics can be reported
+ * in one place. Every cache publishes its counters and size as meters tagged with its name,
+ * including caches created after the registry was bound.
+ */
+@Component
+public class CoinCacheManager implements MeterBinder {
+
+    private final CryptoAppProperties cryptoAppProperties;
+    private final ThreadPoolExecutor refreshExecutor;
+    private final List<CoinCache<?, ?>> caches = new CopyOnWriteArrayList<>();
+    private MeterRegistry registry;
+
+    public CoinCacheManager(CryptoAppProperties cryptoAppProperties) {
+        this.cryptoAppProperties = cryptoAppProperties;
+
+        CryptoAppProperties.Caches caches = cryptoAppProperties.getCaches();
+        this.refreshExecutor = new ThreadPoolExecutor(
+                caches.getRefreshThreads(),
+                caches.getRefreshThreads(),
+                30, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(caches.getRefreshQueueCapacity()),
+                Thread.ofPlatform().name("coin-cache-refresh-", 0).daemon().factory()
+        );
+        this.refreshExecutor.allowCoreThreadTimeOut(true);
+    }
+
+    /**
+     * Create and register a new cache.
+     * @param name cache name used in statistics
+     * @param spec configured ttl and weight bound
+     * @param weigher weight of a single value
+     * @param loader loads a value on a cache miss or refresh
+     * @return new cache
+     */
+    public <K, V> CoinCache<K, V> create(String name,
+                                         CryptoAppProperties.CacheSpec spec,
+                                         ToIntFunction<V> weigher,
+                                         Function<K, V> loader) {
+        return create(name, spec, weigher, loader, null);
+    }
+
+    /**
+     * Create and register a new cache whose refreshes load many keys at once.
+     * @param name cache name used in statistics
+     * @param spec configured ttl and weight bound
+     * @param weigher weight of a single value
+     * @param loader loads a value on a cache miss
+     * @param bulkLoader loads many keys in one call for refreshes, may leave out keys that do not exist, or null
+     * @return new cache
+     */
+    public <K, V> CoinCache<K, V> create(String name,
+                                         CryptoAppProperties.CacheSpec spec,
+                                         ToIntFunction<V> weigher,
+                                         Function<K, V> loader,
+                                         Function<Set<K>, Map<K, V>> bulkLoader) {
+        Duration softTtl = spec.ttl(cryptoAppProperties.isProduction());
+        Duration hardTtl = spec.getMaxStale() == null ? softTtl : softTtl.plus(spec.getMaxStale());
+        CoinCache<K, V> cache = new CoinCache<>(
+                name,
+                softTtl,
+                hardTtl,
+                spec.getStaleIfError() == null ? Duration.ZERO : spec.getStaleIfError(),
+                spec.getMaximumWeight(),
+                weigher,
+                loader,
+                bulkLoader,
+                refreshExecutor
+        );
+        register(cache);
+        return cache;
+    }
+
+    @Override
+    public synchronized void bindTo(MeterRegistry registry) {
+        this.registry = registry;
+        caches.forEach(this::bind);
+        Gauge.builder("coins.cache.refresh_queue", this, CoinCacheManager::getRefreshQueueSize)
+                .description("Refreshes waiting for a free refresh thread")
+                .register(registry);
+    }
+
+    private synchronized void register(CoinCache<?, ?> cache) {
+        caches.add(cache);
+        if (registry != null) {
+            bind(cache);
+        }
+    }
+
+    private void bind(CoinCache<?, ?> cache) {
+        Tags tags = Tags.of("cache", cache.getName());
+        FunctionCounter.builder("coins.cache.gets", cache, c -> c.stats().hits())
+                .tags(tags).tag("result", "hit")
+                .description("Cache lookups")
+                .register(registry);
+        FunctionCounter.builder("coins.cache.gets", cache, c -> c.stats().misses())
+                .tags(tags).tag("result", "miss")
+                .description("Cache lookups")
+                .register(registry);
+        FunctionCounter.builder("coins.cache.evictions", cache, c -> c.stats().evictions())
+                .tags(tags)
+                .description("Entries evicted by size or expiry")
+                .register(registry);
+        FunctionCounter.builder("coins.cache.refreshes", cache, c -> c.stats().refreshes())
+                .tags(tags)
+                .description("Background refreshes")
+                .register(registry);
+        FunctionCounter.builder("coins.cache.stale_fallbacks", cache, c -> c.stats().staleFallbacks())
+                .tags(tags)
+                .description("Expired values served because the load failed")
+                .register(registry);
+        Gauge.builder("coins.cache.size", cache, c -> c.stats().size())
+                .tags(tags)
+                .description("Entries held")
+                .register(registry);
+        Gauge.builder("coins.cache.weight", cache, c -> c.stats().weight())
+                .tags(tags)
+                .description("Weighted size in the cache's weight unit")
+                .register(registry);
+    }
+
+    /**
+     * Refresh recently read entries that are close to their soft TTL.
+     */
+    @Scheduled(fixedDelayString = "${cryptoapp.caches.refresh-ahead-interval:15s}")
+    public void refreshAhead() {
+        double ratio = cryptoAppProperties.getCaches().getRefreshAheadRatio();
+        caches.forEach(cache -> cache.refreshAhead(ratio));
+    }
+
+    /**
+     * Statistics for every registered cache.
+     * @return list of cache statistics
+     */
+    public List<CoinCacheStats> stats() {
+        return caches.stream().map(CoinCache::stats).toList();
+    }
+
+    public List<CoinCache<?, ?>> getCaches() {
+        return List.copyOf(caches);
+    }
+
+    /**
+     * Number of refreshes waiting for a free refresh thread.
+     * @return refresh queue depth
+     */
+    public int getRefreshQueueSize() {
+        return refreshExecutor.getQueue().size();
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        refreshExecutor.shutdownNow();
+    }
+}
@@ -0,0 +1,13 @@
+package net.tylerwade.cryptoapp.coins.cache;
+
+public record CoinCacheStats(
+        String name,
+        long hits,
+        long misses,
+        long evictions,
+        long refreshes,
+        long staleFallbacks,
+        long size,
+        long weight
+) {
+}
@@ -0,0 +1,154 @@
+package net.tylerwade.cryptoapp.coins.cache;
+
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import net.tylerwade.cryptoapp.coins.CoinData;
+import net.tylerwade.cryptoapp.coins.coinpage.Coin;
+import net.tylerwade.cryptoapp.coins.marketchart.MarketChart;
+import net.tylerwade.cryptoapp.coins.query.SearchCoin;
+import net.tylerwade.cryptoapp.coins.query.SearchResult;
+import net.tylerwade.cryptoapp.config.CryptoAppProperties;
+import org.springframework.core.MethodParameter;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.HttpMessageConverter;
+import org.springframework.http.server.ServerHttpRequest;
+import org.springframework.http.server.ServerHttpResponse;
+import org.springframework.http.server.ServletServerHttpRequest;
+import org.springframework.http.server.ServletServerHttpResponse;
+import org.springframework.web.bind.annotation.RestControllerAdvice;
+import org.springframework.web.context.request.ServletWebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyAdvice;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.Objects;
+
+/**
+ * Conditional GET support for endpoints marked with {@link HttpCached}. Responses get a weak {@code ETag}
+ * identifying the cached value they were built from, its {@code cachedAt} as {@code Last-Modified} and a
+ * {@code Cache-Control} header whose {@code max-age} is the remaining soft TTL and whose
+ * {@code stale-while-revalidate} is the cache's max stale time.
+ * <p>
+ * The ETag is derived from the request and the value's load time, or for values without one (market pages)
+ * from the fields that change between loads, so a matching {@code If-None-Match} is answered with 304
+ * before the body is serialized. {@link EncodedBody} responses carry their own ETag, taken from the
+ * serialized bytes.
+ */
+@RestControllerAdvice
+public class ConditionalResponseAdvice implements ResponseBodyAdvice<Object> {
+
+    private final CryptoAppProperties cryptoAppProperties;
+
+    public ConditionalResponseAdvice(CryptoAppProperties cryptoAppProperties) {
+        this.cryptoAppProperties = cryptoAppProperties;
+    }
+
+    @Override
+    public boolean supports(MethodParameter returnType, Class<? extends HttpMessageConverter<?>> converterType) {
+        return returnType.hasMethodAnnotation(HttpCached.class);
+    }
+
+    @Override
+    public Object beforeBodyWrite(Object body,
+                                  MethodParameter returnType,
+                                  MediaType selectedContentType,
+                                  Class<? extends HttpMessageConverter<?>> selectedConverterType,
+                                  ServerHttpRequest request,
+                                  ServerHttpResponse response) {
+        if (body == null || request.getMethod() != HttpMethod.GET
+                || !(request instanceof ServletServerHttpRequest servletRequest)
+                || !(response instanceof ServletServerHttpResponse servletResponse)) {
+            return body;
+        }
+        HttpCached httpCached = Objects.requireNonNull(returnType.getMethodAnnotation(HttpCached.class));
+        CryptoAppProperties.CacheSpec spec = spec(httpCached.value());
+        LocalDateTime cachedAt = cachedAt(body);
+        HttpServletRequest httpRequest = servletRequest.getServletRequest();
+        // Written to the servlet response directly, a 304 never flushes the ServerHttpResponse headers
+        HttpServletResponse httpResponse = servletResponse.getServletResponse();
+
+        Duration ttl = spec.ttl(cryptoAppProperties.isProduction());
+        Duration maxAge = cachedAt == null ? ttl : ttl.minus(Duration.between(cachedAt, LocalDateTime.now()));
+        String cacheControl = "public, max-age=" + Math.max(0, maxAge.toSeconds());
+        if (spec.getMaxStale() != null) {
+            // Without a max stale the cache itself never serves past the ttl
+            cacheControl += ", stale-while-revalidate=" + spec.getMaxStale().toSeconds();
+        }
+        httpResponse.setHeader(HttpHeaders.CACHE_CONTROL, cacheControl);
+
+        String etag = etag(body, cachedAt, httpRequest);
+        if (etag == null) {
+            return body;
+        }
+        long lastModified = cachedAt == null ? -1 : epochMillis(cachedAt);
+        if (new ServletWebRequest(httpRequest, httpResponse).checkNotModified(etag, lastModified)) {
+            return null;
+        }
+        return body;
+    }
+
+    private CryptoAppProperties.CacheSpec spec(HttpCached.CacheName cacheName) {
+        CryptoAppProperties.Caches caches = cryptoAppProperties.getCaches();
+        return switch (cacheName) {
+            case COIN_PAGE -> caches.getCoinPage();
+            case COIN_DATA -> caches.getCoinData();
+            case SEARCH -> caches.getSearch();
+            case MARKET_CHART -> caches.getMarketChart();
+        };
+    }
+
+    private static String etag(Object body, LocalDateTime cachedAt, HttpServletRequest httpRequest) {
+        if (body instanceof EncodedBody encodedBody) {
+            return encodedBody.getEtag();
+        }
+        Long version = version(body, cachedAt);
+        if (version == null) {
+            return null;
+        }
+        long requestHash = 31L * httpRequest.getRequestURI().hashCode() + Objects.hashCode(httpRequest.getQueryString());
+        return "W/\"" + Long.toHexString(31 * requestHash + version) + "\"";
+    }
+
+    private static LocalDateTime cachedAt(Object body) {
+        return switch (body) {
+            case EncodedBody encodedBody -> encodedBody.getCachedAt();
+            case CoinData coinData -> coinData.getCachedAt();
+            case SearchResult searchResult -> searchResult.getCachedAt();
+            case MarketChart marketChart -> marketChart.getCachedAt();
+            default -> null;
+        };
+    }
+
+    /**
+     * Version of a response body without serializing it.
+     * @return version or null if none can be derived
+     */
+    private static Long version(Object body, LocalDateTime cachedAt) {
+        if (cachedAt != null) {
+            return epochMillis(cachedAt) * 1_000_000L + cachedAt.getNano() % 1_000_000;
+        }
+        if (body instanceof Coin[] coins) {
+            long hash = coins.length;
+            for (Coin coin : coins) {
+                hash = 31 * hash + Objects.hash(coin.getId(), coin.getCurrent_price(), coin.getMarket_cap(),
+                        coin.getTotal_volume(), coin.getLast_updated());
+            }
+            return hash;
+        }
+        if (body instanceof SearchResult searchResult && searchResult.getCoins() != null) {
+            long hash = 17;
+            for (SearchCoin coin : searchResult.getCoins()) {
+                hash = 31 * hash + Objects.hashCode(coin.getId());
+            }
+            return hash;
+        }
+        return null;
+    }
+
+    private static long epochMillis(LocalDateTime dateTime) {
+        return dateTime.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+    }
+}
@@ -0,0 +1,117 @@
+package net.tylerwade.cryptoapp.coins.cache;
+
+import lombok.Getter;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.LocalDateTime;
+import java.util.zip.CRC32C;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Response body serialized to JSON once, together with a gzip variant, so cache hits are written to the
+ * response as they are. Instances are immutable, the bytes must not be modified.
+ */
+public final class EncodedBody {
+
+    public static final String GZIP = "gzip";
+
+    private final byte[] bytes;
+    @Getter
+    private final String contentEncoding;
+    @Getter
+    private final String etag;
+    @Getter
+    private final LocalDateTime cachedAt;
+    private final EncodedBody gzip;
+
+    private EncodedBody(byte[] bytes, String contentEncoding, String etag, LocalDateTime cachedAt, EncodedBody gzip) {
+        this.bytes = bytes;
+        this.contentEncoding = contentEncoding;
+        this.etag = etag;
+        this.cachedAt = cachedAt;
+        this.gzip = gzip;
+    }
+
+    /**
+     * Wrap serialized JSON, compressing it if it is large enough to benefit.
+     * @param json serialized body
+     * @param cachedAt time the serialized value was loaded, or null
+     * @param gzipMinBytes smallest body that gets a gzip variant
+     * @return encoded body with an ETag derived from the JSON
+     */
+    public static EncodedBody of(byte[] json, LocalDateTime cachedAt, int gzipMinBytes) {
+        CRC32C crc = new CRC32C();
+        crc.update(json);
+        String etag = "W/\"" + Long.toHexString(crc.getValue()) + "-" + Integer.toHexString(json.length) + "\"";
+        EncodedBody gzip = json.length >= gzipMinBytes ? new EncodedBody(gzip(json), GZIP, etag, cachedAt, null) : null;
+        return new EncodedBody(json, null, etag, cachedAt, gzip);
+    }
+
+    /**
+     * Pick the variant matching an {@code Accept-Encoding} header.
+     * @param acceptEncoding header value or null
+     * @return gzip variant if accepted and available, otherwise this body
+     */
+    public EncodedBody forAcceptEncoding(String acceptEncoding) {
+        return gzip != null && acceptsGzip(acceptEncoding) ? gzip : this;
+    }
+
+    /**
+     * Encoded bytes, written to the response as they are.
+     * @return bytes that must not be modified
+     */
+    public byte[] bytes() {
+        return bytes;
+    }
+
+    /**
+     * Memory held by this body and its variant.
+     * @return size in bytes
+     */
+    public int sizeInBytes() {
+        return bytes.length + (gzip == null ? 0 : gzip.bytes.length);
+    }
+
+    private static boolean acceptsGzip(String acceptEncoding) {
+        if (acceptEncoding == null) {
+            return false;
+        }
+        // An explicit gzip entry decides, otherwise a wildcard does
+        Boolean wildcard = null;
+        for (String coding : acceptEncoding.split(",")) {
+            String[] parts = coding.trim().split(";");
+            String name = parts[0].trim();
+            if (name.equalsIgnoreCase(GZIP)) {
+                return isAcceptable(parts);
+            }
+            if (name.equals("*") && wildcard == null) {
+                wildcard = isAcceptable(parts);
+            }
+        }
+        return wildcard != null && wildcard;
+    }
+
+    /**
+     * Whether a coding's parameters leave it acceptable, q=0 means not acceptable.
+     */
+    private static boolean isAcceptable(String[] parts) {
+        for (int i = 1; i < parts.length; i++) {
+            if (parts[i].trim().matches("[qQ]=0(\\.0*)?")) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static byte[] gzip(byte[] json) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(json.length / 4);
+        try (GZIPOutputStream gzip = new GZIPOutputStream(out)) {
+            gzip.write(json);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return out.toByteArray();
+    }
+}
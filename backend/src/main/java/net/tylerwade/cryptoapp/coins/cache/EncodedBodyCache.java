@@ -0,0 +1,99 @@
+package net.tylerwade.cryptoapp.coins.cache;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import net.tylerwade.cryptoapp.common.exception.HttpRequestException;
+import net.tylerwade.cryptoapp.config.CryptoAppProperties;
+import org.springframework.stereotype.Component;
+
+import java.lang.ref.WeakReference;
+import java.time.LocalDateTime;
+import java.util.Objects;
+import java.util.function.Supplier;
+
+/**
+ * Serialized and compressed response bodies of cached values. Bodies are keyed by the identity of the
+ * cached value they were built from plus the request variant (page, range, ...), so they are built once
+ * per load of that value and a refreshed value simply gets new entries while the old ones expire.
+ * The keys hold their source weakly, so a superseded or evicted value is not kept reachable by its bodies.
+ */
+@Component
+public class EncodedBodyCache {
+
+    private final ObjectMapper objectMapper;
+    private final int gzipMinBytes;
+    private final Cache<SourceKey, EncodedBody> cache;
+
+    public EncodedBodyCache(ObjectMapper objectMapper, CryptoAppProperties cryptoAppProperties) {
+        CryptoAppProperties.Caches caches = cryptoAppProperties.getCaches();
+        this.objectMapper = objectMapper;
+        this.gzipMinBytes = caches.getGzipMinBytes();
+        this.cache = Caffeine.newBuilder()
+                .maximumWeight(caches.getEncodedBodyMaximumWeight())
+                .weigher((SourceKey key, EncodedBody body) -> body.sizeInBytes())
+                .expireAfterAccess(caches.getEncodedBodyExpiry())
+                .build();
+    }
+
+    /**
+     * Encoded body for a cached value, built on first use.
+     * @param source cached value the body is derived from, compared by identity
+     * @param variant request specific part of the key, or null
+     * @param cachedAt load time of the source, or null
+     * @param body builds the object to serialize
+     * @return encoded body
+     */
+    public EncodedBody get(Object source, Object variant, LocalDateTime cachedAt, Supplier<?> body) {
+        return cache.get(new SourceKey(source, variant), key -> encode(body.get(), cachedAt));
+    }
+
+    /**
+     * Encode a body that is not cached, e.g. one assembled for a single request.
+     * @param body object to serialize
+     * @param cachedAt load time of the data, or null
+     * @return encoded body
+     */
+    public EncodedBody encode(Object body, LocalDateTime cachedAt) {
+        try {
+            return EncodedBody.of(objectMapper.writeValueAsBytes(body), cachedAt, gzipMinBytes);
+        } catch (JsonProcessingException e) {
+            throw HttpRequestException.internalServerError("Could not serialize response: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Key matching its source by identity, cached values are immutable once loaded. The source is held weakly,
+     * a key whose source was collected matches no other key and its body expires unread.
+     */
+    private static final class SourceKey {
+
+        private final WeakReference<Object> source;
+        private final Object variant;
+        private final int hash;
+
+        private SourceKey(Object source, Object variant) {
+            this.source = new WeakReference<>(source);
+            this.variant = variant;
+            this.hash = 31 * System.identityHashCode(source) + Objects.hashCode(variant);
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof SourceKey other)) {
+                return false;
+            }
+            Object referent = source.get();
+            return referent != null && referent == other.source.get() && Objects.equals(other.variant, variant);
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+    }
+}
@@ -0,0 +1,65 @@
+package net.tylerwade.cryptoapp.coins.cache;
+
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpInputMessage;
+import org.springframework.http.HttpOutputMessage;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.AbstractHttpMessageConverter;
+import org.springframework.http.converter.HttpMessageNotReadableException;
+import org.springframework.stereotype.Component;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+
+import java.io.IOException;
+
+/**
+ * Writes an {@link EncodedBody} straight to the response, choosing the gzip variant when the request's
+ * {@code Accept-Encoding} allows it. Registered as a bean so Spring Boot puts it ahead of Jackson.
+ */
+@Component
+public class EncodedBodyHttpMessageConverter extends AbstractHttpMessageConverter<EncodedBody> {
+
+    public EncodedBodyHttpMessageConverter() {
+        super(MediaType.APPLICATION_JSON);
+    }
+
+    @Override
+    protected boolean supports(Class<?> clazz) {
+        return EncodedBody.class.isAssignableFrom(clazz);
+    }
+
+    @Override
+    public boolean canRead(Class<?> clazz, MediaType mediaType) {
+        return false;
+    }
+
+    @Override
+    protected EncodedBody readInternal(Class<? extends EncodedBody> clazz, HttpInputMessage inputMessage) {
+        throw new HttpMessageNotReadableException("Encoded bodies are write only.", inputMessage);
+    }
+
+    @Override
+    protected void writeInternal(EncodedBody body, HttpOutputMessage outputMessage) throws IOException {
+        EncodedBody variant = body.forAcceptEncoding(acceptEncoding());
+        HttpHeaders headers = outputMessage.getHeaders();
+        headers.add(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+        if (variant.getContentEncoding() != null) {
+            headers.set(HttpHeaders.CONTENT_ENCODING, variant.getContentEncoding());
+        }
+        headers.setContentLength(variant.bytes().length);
+        outputMessage.getBody().write(variant.bytes());
+    }
+
+    @Override
+    protected Long getContentLength(EncodedBody body, MediaType contentType) {
+        // Depends on the chosen variant, set when writing
+        return null;
+    }
+
+    private static String acceptEncoding() {
+        if (RequestContextHolder.getRequestAttributes() instanceof ServletRequestAttributes attributes) {
+            return attributes.getRequest().getHeader(HttpHeaders.ACCEPT_ENCODING);
+        }
+        return null;
+    }
+}
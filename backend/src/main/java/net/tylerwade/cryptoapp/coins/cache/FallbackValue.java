@@ -0,0 +1,18 @@
+package net.tylerwade.cryptoapp.coins.cache;
+
+import java.time.Duration;
+
+/**
+ * Cached value a loader may have built from a fallback after its upstream failed, e.g. stored chart history
+ * served while CoinGecko is down. {@link CoinCache} marks every request reading such a value with
+ * {@link StaleMarker}, not just the one that loaded it, and refreshes it after {@link CoinCache#FALLBACK_TTL}
+ * instead of the cache's own TTL.
+ */
+public interface FallbackValue {
+
+    /**
+     * Age of the data if it was loaded from a fallback.
+     * @return age or null if the value is fresh
+     */
+    Duration staleAge();
+}
@@ -0,0 +1,28 @@
+package net.tylerwade.cryptoapp.coins.cache;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Marks an endpoint whose response is served from a coin cache, so {@link ConditionalResponseAdvice} adds
+ * validators and a {@code Cache-Control} header derived from that cache's TTLs.
+ */
+@Target(ElementType.METHOD)
+@Retention(RetentionPolicy.RUNTIME)
+public @interface HttpCached {
+
+    /**
+     * Cache the response comes from.
+     * @return cache whose TTLs the response may be cached for downstream
+     */
+    CacheName value();
+
+    enum CacheName {
+        COIN_PAGE,
+        COIN_DATA,
+        SEARCH,
+        MARKET_CHART
+    }
+}
@@ -0,0 +1,118 @@
+package net.tylerwade.cryptoapp.coins.cache;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+
+/**
+ * Deduplicates concurrent loads of the same key. The first caller for a key runs the load while
+ * every other caller arriving before it finishes waits for and shares its result or its failure.
+ * @param <K> key type, must be immutable with value based equality
+ * @param <V> loaded value type
+ */
+public class SingleFlight<K, V> {
+
+    private final ConcurrentHashMap<K, CompletableFuture<V>> inFlight = new ConcurrentHashMap<>();
+
+    /**
+     * Run the load for the key unless one is already in flight, in which case wait for that one.
+     * @param key key being loaded
+     * @param load load function, only invoked by the leading caller
+     * @return loaded value
+     */
+    public V execute(K key, Function<K, V> load) {
+        CompletableFuture<V> call = new CompletableFuture<>();
+        CompletableFuture<V> existing = inFlight.putIfAbsent(key, call);
+        if (existing != null) {
+            return await(existing);
+        }
+
+        try {
+            V value = load.apply(key);
+            call.complete(value);
+            return value;
+        } catch (RuntimeException | Error e) {
+            call.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlight.remove(key, call);
+        }
+    }
+
+    /**
+     * Load many keys at once. Keys already in flight are waited for, the remaining keys are loaded
+     * together in one call of the bulk load which other callers can join per key.
+     * @param keys keys to load
+     * @param load bulk load function receiving the keys this caller leads, may leave keys out
+     * @return loaded values, keys the load left out are absent
+     */
+    public Map<K, V> executeAll(Collection<K> keys, Function<Set<K>, Map<K, V>> load) {
+        Map<K, CompletableFuture<V>> led = new LinkedHashMap<>();
+        Map<K, CompletableFuture<V>> joined = new HashMap<>();
+        for (K key : keys) {
+            CompletableFuture<V> call = new CompletableFuture<>();
+            CompletableFuture<V> existing = inFlight.putIfAbsent(key, call);
+            if (existing == null) {
+                led.put(key, call);
+            } else {
+                joined.put(key, existing);
+            }
+        }
+
+        Map<K, V> result = new HashMap<>();
+        if (!led.isEmpty()) {
+            try {
+                Map<K, V> loaded = load.apply(led.keySet());
+                led.forEach((key, call) -> {
+                    V value = loaded.get(key);
+                    call.complete(value);
+                    if (value != null) {
+                        result.put(key, value);
+                    }
+                });
+            } catch (RuntimeException | Error e) {
+                led.values().forEach(call -> call.completeExceptionally(e));
+                throw e;
+            } finally {
+                led.forEach(inFlight::remove);
+            }
+        }
+
+        // Only wait for others after completing our own calls, so overlapping batches cannot deadlock
+        joined.forEach((key, call) -> {
+            V value = await(call);
+            if (value != null) {
+                result.put(key, value);
+            }
+        });
+        return result;
+    }
+
+    /**
+     * Number of loads currently in flight.
+     * @return in flight count
+     */
+    public int inFlightCount() {
+        return inFlight.size();
+    }
+
+    private V await(CompletableFuture<V> call) {
+        try {
+            return call.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            if (e.getCause() instanceof Error error) {
+                throw error;
+            }
+            throw e;
+        }
+    }
+}
@@ -0,0 +1,42 @@
+package net.tylerwade.cryptoapp.coins.cache;
+
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
+
+import java.time.Duration;
+
+/**
+ * Marks the current request as answered with data that is older than its cache allows, so the
+ * response can tell clients about it. Calls outside of a request, e.g. background refreshes, are ignored.
+ */
+public final class StaleMarker {
+
+    private static final String ATTRIBUTE = StaleMarker.class.getName() + ".age";
+
+    private StaleMarker() {
+    }
+
+    /**
+     * Mark the current request stale, keeping the largest age if marked more than once.
+     * @param age age of the stale data
+     */
+    public static void mark(Duration age) {
+        RequestAttributes attributes = RequestContextHolder.getRequestAttributes();
+        if (attributes == null) {
+            return;
+        }
+        Duration current = (Duration) attributes.getAttribute(ATTRIBUTE, RequestAttributes.SCOPE_REQUEST);
+        if (current == null || age.compareTo(current) > 0) {
+            attributes.setAttribute(ATTRIBUTE, age, RequestAttributes.SCOPE_REQUEST);
+        }
+    }
+
+    /**
+     * Age of the stale data the current request was answered with.
+     * @return age or null if the request was not marked
+     */
+    public static Duration get() {
+        RequestAttributes attributes = RequestContextHolder.getRequestAttributes();
+        return attributes == null ? null : (Duration) attributes.getAttribute(ATTRIBUTE, RequestAttributes.SCOPE_REQUEST);
+    }
+}
@@ -0,0 +1,44 @@
+package net.tylerwade.cryptoapp.coins.cache;
+
+import org.springframework.core.MethodParameter;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.HttpMessageConverter;
+import org.springframework.http.server.ServerHttpRequest;
+import org.springframework.http.server.ServerHttpResponse;
+import org.springframework.web.bind.annotation.RestControllerAdvice;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyAdvice;
+
+import java.time.Duration;
+
+/**
+ * Adds staleness headers to responses served from expired cache entries after the upstream failed:
+ * {@code Warning: 110 - "Response is Stale"}, {@code X-Data-Stale: true} and the data's {@code Age}.
+ */
+@RestControllerAdvice
+public class StaleResponseAdvice implements ResponseBodyAdvice<Object> {
+
+    public static final String STALE_HEADER = "X-Data-Stale";
+
+    @Override
+    public boolean supports(MethodParameter returnType, Class<? extends HttpMessageConverter<?>> converterType) {
+        return true;
+    }
+
+    @Override
+    public Object beforeBodyWrite(Object body,
+                                  MethodParameter returnType,
+                                  MediaType selectedContentType,
+                                  Class<? extends HttpMessageConverter<?>> selectedConverterType,
+                                  ServerHttpRequest request,
+                                  ServerHttpResponse response) {
+        Duration age = StaleMarker.get();
+        if (age != null) {
+            HttpHeaders headers = response.getHeaders();
+            headers.set(HttpHeaders.WARNING, "110 - \"Response is Stale\"");
+            headers.set(STALE_HEADER, "true");
+            headers.set(HttpHeaders.AGE, Long.toString(age.toSeconds()));
+        }
+        return body;
+    }
+}
@@ -0,0 +1,144 @@
+package net.tylerwade.cryptoapp.coins.coingecko;
+
+import com.github.benmanes.caffeine.cache.Ticker;
+import lombok.extern.slf4j.Slf4j;
+import net.tylerwade.cryptoapp.common.exception.HttpRequestException;
+import net.tylerwade.cryptoapp.config.CoinGeckoProperties;
+import org.springframework.http.HttpStatus;
+
+/**
+ * Circuit breaker of one upstream endpoint family. Opens after a number of consecutive failures or
+ * when the failure rate over the last calls gets too high, then fails fast until the open duration
+ * has passed. After that a few trial calls are let through half open: if all succeed the circuit
+ * closes again, if one fails it opens for another round.
+ */
+@Slf4j
+class CircuitBreaker {
+
+    enum State { CLOSED, OPEN, HALF_OPEN }
+
+    private final CoinGeckoEndpoint endpoint;
+    private final CoinGeckoProperties.Breaker settings;
+    private final Ticker ticker;
+    private final long openNanos;
+
+    private State state = State.CLOSED;
+    private long openedAt;
+    private int consecutiveFailures;
+
+    // Ring buffer of the outcomes of the last calls, true for a failure
+    private final boolean[] window;
+    private int windowIndex;
+    private int windowCalls;
+    private int windowFailures;
+
+    private int trialsInFlight;
+    private int trialSuccesses;
+
+    CircuitBreaker(CoinGeckoEndpoint endpoint, CoinGeckoProperties.Breaker settings) {
+        this(endpoint, settings, Ticker.systemTicker());
+    }
+
+    /**
+     * Breaker reading the time from the given ticker, used by tests to let the open duration pass without waiting.
+     */
+    CircuitBreaker(CoinGeckoEndpoint endpoint, CoinGeckoProperties.Breaker settings, Ticker ticker) {
+        this.endpoint = endpoint;
+        this.settings = settings;
+        this.ticker = ticker;
+        this.openNanos = settings.getOpenDuration().toNanos();
+        this.window = new boolean[Math.max(1, settings.getWindowSize())];
+    }
+
+    /**
+     * Ask permission for a call, every permitted call must be followed by {@link #record} or {@link #release}.
+     * @throws HttpRequestException with status 503 while the circuit is open
+     */
+    synchronized void acquirePermission() {
+        if (!settings.isEnabled()) {
+            return;
+        }
+        if (state == State.OPEN) {
+            if (ticker.read() - openedAt < openNanos) {
+                throw new HttpRequestException("CoinGecko is unavailable, try again shortly.", HttpStatus.SERVICE_UNAVAILABLE);
+            }
+            transition(State.HALF_OPEN);
+        }
+        if (state == State.HALF_OPEN) {
+            if (trialsInFlight >= settings.getHalfOpenCalls()) {
+                throw new HttpRequestException("CoinGecko is unavailable, try again shortly.", HttpStatus.SERVICE_UNAVAILABLE);
+            }
+            trialsInFlight++;
+        }
+    }
+
+    /**
+     * Give back a permission of a call that never reached the upstream.
+     */
+    synchronized void release() {
+        if (state == State.HALF_OPEN && trialsInFlight > 0) {
+            trialsInFlight--;
+        }
+    }
+
+    /**
+     * Record the outcome of a permitted call.
+     * @param success false if the upstream failed, timed out or was overloaded
+     */
+    synchronized void record(boolean success) {
+        if (!settings.isEnabled()) {
+            return;
+        }
+        switch (state) {
+            case HALF_OPEN -> {
+                if (!success) {
+                    transition(State.OPEN);
+                } else if (++trialSuccesses >= settings.getHalfOpenCalls()) {
+                    transition(State.CLOSED);
+                }
+            }
+            case CLOSED -> {
+                consecutiveFailures = success ? 0 : consecutiveFailures + 1;
+                if (windowCalls == window.length) {
+                    windowFailures -= window[windowIndex] ? 1 : 0;
+                } else {
+                    windowCalls++;
+                }
+                window[windowIndex] = !success;
+                windowFailures += success ? 0 : 1;
+                windowIndex = (windowIndex + 1) % window.length;
+
+                boolean failureRateExceeded = windowCalls >= settings.getMinimumCalls()
+                        && windowFailures >= settings.getFailureRateThreshold() * windowCalls;
+                if (consecutiveFailures >= settings.getFailureThreshold() || failureRateExceeded) {
+                    transition(State.OPEN);
+                }
+            }
+            case OPEN -> {
+                // Late outcome of a call permitted before the circuit opened
+            }
+        }
+    }
+
+    synchronized State state() {
+        return state;
+    }
+
+    private void transition(State next) {
+        if (next == State.OPEN) {
+            openedAt = ticker.read();
+            log.warn("Circuit of CoinGecko {} opened for {}", endpoint, settings.getOpenDuration());
+        } else {
+            log.info("Circuit of CoinGecko {} {}", endpoint, next == State.CLOSED ? "closed" : "half open");
+        }
+        state = next;
+        trialsInFlight = 0;
+        trialSuccesses = 0;
+        if (next == State.CLOSED) {
+            consecutiveFailures = 0;
+            windowIndex = 0;
+            windowCalls = 0;
+            windowFailures = 0;
+        }
+    }
+}
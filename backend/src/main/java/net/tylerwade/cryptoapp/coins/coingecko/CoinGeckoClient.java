@@ -0,0 +1,237 @@
+package net.tylerwade.cryptoapp.coins.coingecko;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import net.tylerwade.cryptoapp.common.exception.HttpRequestException;
+import net.tylerwade.cryptoapp.config.CoinGeckoProperties;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.net.http.HttpTimeoutException;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * HTTP client for the CoinGecko API. Uses one pooled keep-alive {@link HttpClient} negotiating HTTP/2
+ * where the server supports it, requests gzip compressed responses and bounds every call by
+ * connect, read and total deadlines. Every call takes a token from the {@link UpstreamBudget} at the
+ * priority of its endpoint family and passes a {@link CircuitBreaker} per endpoint family that fails fast
+ * during upstream outages. Work that is less important than its endpoint family suggests, such as the cache
+ * warm-up, can lower the priority of the calls it makes with {@link #withPriority(UpstreamPriority, Runnable)}.
+ * Latency is recorded per endpoint family and published as the
+ * {@code coingecko.requests} timer tagged with endpoint, response status and outcome.
+ */
+@Component
+public class CoinGeckoClient implements MeterBinder {
+
+    private static final ThreadLocal<PriorityScope> PRIORITY_OVERRIDE = new ThreadLocal<>();
+
+    private final CoinGeckoProperties coinGeckoProperties;
+    private final ObjectMapper objectMapper;
+    private final UpstreamBudget upstreamBudget;
+    private final HttpClient httpClient;
+    private final String[] defaultHeaders;
+    private final Map<CoinGeckoEndpoint, EndpointLatency> latencies = new EnumMap<>(CoinGeckoEndpoint.class);
+    private final Map<CoinGeckoEndpoint, CircuitBreaker> breakers = new EnumMap<>(CoinGeckoEndpoint.class);
+    private volatile MeterRegistry registry;
+
+    public CoinGeckoClient(CoinGeckoProperties coinGeckoProperties, ObjectMapper objectMapper, UpstreamBudget upstreamBudget) {
+        this.coinGeckoProperties = coinGeckoProperties;
+        this.objectMapper = objectMapper;
+        this.upstreamBudget = upstreamBudget;
+        this.httpClient = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_2)
+                .connectTimeout(coinGeckoProperties.getConnectTimeout())
+                .followRedirects(HttpClient.Redirect.NORMAL)
+                .build();
+
+        List<String> headers = new ArrayList<>(List.of(
+                "Accept", "application/json",
+                "Accept-Encoding", "gzip"
+        ));
+        if (coinGeckoProperties.getApiKey() != null && !coinGeckoProperties.getApiKey().isBlank()) {
+            headers.add("x-cg-demo-api-key");
+            headers.add(coinGeckoProperties.getApiKey());
+        }
+        this.defaultHeaders = headers.toArray(String[]::new);
+
+        for (CoinGeckoEndpoint endpoint : CoinGeckoEndpoint.values()) {
+            latencies.put(endpoint, new EndpointLatency(endpoint));
+            breakers.put(endpoint, new CircuitBreaker(endpoint, coinGeckoProperties.getBreaker()));
+        }
+    }
+
+    /**
+     * Perform a GET request and deserialize the JSON response.
+     * @param endpoint endpoint family the path belongs to
+     * @param path path and query relative to the configured API url
+     * @param type response type
+     * @return deserialized response
+     * @throws HttpRequestException if the circuit is open, the request budget is exhausted, or the call fails,
+     * times out or returns a non 2xx status
+     */
+    public <T> T get(CoinGeckoEndpoint endpoint, String path, Class<T> type) {
+        // Built before taking a permit and a token, neither is given back if the url is invalid
+        HttpRequest request = HttpRequest.newBuilder(URI.create(coinGeckoProperties.getApiUrl() + path))
+                .headers(defaultHeaders)
+                .timeout(coinGeckoProperties.getReadTimeout())
+                .GET()
+                .build();
+        CircuitBreaker breaker = breakers.get(endpoint);
+        breaker.acquirePermission();
+        try {
+            PriorityScope scope = PRIORITY_OVERRIDE.get();
+            upstreamBudget.acquire(scope != null ? scope.priority : endpoint.getPriority());
+            if (scope != null) {
+                scope.calls++;
+            }
+        } catch (RuntimeException e) {
+            breaker.release();
+            throw e;
+        }
+
+        long start = System.nanoTime();
+        boolean success = false;
+        boolean upstreamHealthy = false;
+        String status = "NONE"; // no response, e.g. timed out
+        try {
+            HttpResponse<byte[]> response = send(request);
+            status = String.valueOf(response.statusCode());
+            // Anything but a server error or rate limit means CoinGecko itself is up
+            upstreamHealthy = response.statusCode() < 500 && response.statusCode() != HttpStatus.TOO_MANY_REQUESTS.value();
+            checkStatus(response);
+            T body = objectMapper.readValue(decode(response), type);
+            success = true;
+            return body;
+        } catch (IOException e) {
+            throw new HttpRequestException("CoinGecko request failed.", e, HttpStatus.BAD_GATEWAY);
+        } finally {
+            long nanos = System.nanoTime() - start;
+            latencies.get(endpoint).record(nanos, success);
+            breaker.record(upstreamHealthy);
+            recordTimer(endpoint, status, success, nanos);
+        }
+    }
+
+    /**
+     * Run a task whose CoinGecko calls on the current thread take budget tokens at the given priority
+     * instead of their endpoint family's.
+     * @param priority priority of the task's calls
+     * @param task task to run
+     * @return number of calls the task sent to CoinGecko, calls answered from caches or rejected by the
+     * budget are not counted
+     */
+    public static int withPriority(UpstreamPriority priority, Runnable task) {
+        PriorityScope previous = PRIORITY_OVERRIDE.get();
+        PriorityScope scope = new PriorityScope(priority);
+        PRIORITY_OVERRIDE.set(scope);
+        try {
+            task.run();
+            return scope.calls;
+        } finally {
+            if (previous == null) {
+                PRIORITY_OVERRIDE.remove();
+            } else {
+                PRIORITY_OVERRIDE.set(previous);
+            }
+        }
+    }
+
+    /**
+     * Priority override of the current thread and the calls made under it.
+     */
+    private static final class PriorityScope {
+
+        private final UpstreamPriority priority;
+        private int calls;
+
+        private PriorityScope(UpstreamPriority priority) {
+            this.priority = priority;
+        }
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        this.registry = registry;
+    }
+
+    private void recordTimer(CoinGeckoEndpoint endpoint, String status, boolean success, long nanos) {
+        MeterRegistry meterRegistry = registry;
+        if (meterRegistry == null) {
+            return;
+        }
+        Timer.builder("coingecko.requests")
+                .description("CoinGecko calls")
+                .tag("endpoint", endpoint.getPath())
+                .tag("status", status)
+                .tag("outcome", success ? "SUCCESS" : "FAILURE")
+                .register(meterRegistry)
+                .record(nanos, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * Call statistics per endpoint family.
+     * @return list of endpoint statistics
+     */
+    public List<EndpointStats> stats() {
+        return latencies.values().stream().map(EndpointLatency::stats).toList();
+    }
+
+    private HttpResponse<byte[]> send(HttpRequest request) {
+        CompletableFuture<HttpResponse<byte[]>> call = httpClient.sendAsync(request, HttpResponse.BodyHandlers.ofByteArray());
+        try {
+            return call.get(coinGeckoProperties.getTotalTimeout().toMillis(), TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            call.cancel(true);
+            throw new HttpRequestException("CoinGecko request timed out.", e, HttpStatus.GATEWAY_TIMEOUT);
+        } catch (InterruptedException e) {
+            call.cancel(true);
+            Thread.currentThread().interrupt();
+            throw new HttpRequestException("CoinGecko request interrupted.", e, HttpStatus.SERVICE_UNAVAILABLE);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof HttpTimeoutException) {
+                throw new HttpRequestException("CoinGecko request timed out.", e.getCause(), HttpStatus.GATEWAY_TIMEOUT);
+            }
+            throw new HttpRequestException("CoinGecko request failed.", e.getCause(), HttpStatus.BAD_GATEWAY);
+        }
+    }
+
+    private void checkStatus(HttpResponse<byte[]> response) {
+        int status = response.statusCode();
+        if (status >= 200 && status < 300) {
+            return;
+        }
+        if (status == HttpStatus.NOT_FOUND.value()) {
+            throw HttpRequestException.notFound("Not found.");
+        }
+        if (status == HttpStatus.TOO_MANY_REQUESTS.value()) {
+            upstreamBudget.exhausted();
+            throw new HttpRequestException("CoinGecko rate limit reached.", HttpStatus.TOO_MANY_REQUESTS);
+        }
+        throw new HttpRequestException("CoinGecko responded with status " + status + ".", HttpStatus.BAD_GATEWAY);
+    }
+
+    private static InputStream decode(HttpResponse<byte[]> response) throws IOException {
+        InputStream body = new ByteArrayInputStream(response.body());
+        boolean gzip = response.headers().firstValue("Content-Encoding")
+                .map(encoding -> encoding.equalsIgnoreCase("gzip"))
+                .orElse(false);
+        return gzip ? new GZIPInputStream(body) : body;
+    }
+}
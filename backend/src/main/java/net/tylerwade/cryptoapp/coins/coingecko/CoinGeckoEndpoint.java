@@ -0,0 +1,30 @@
+package net.tylerwade.cryptoapp.coins.coingecko;
+
+/**
+ * CoinGecko API endpoint families, used to group upstream statistics and to pick
+ * the priority a call gets from the request budget.
+ */
+public enum CoinGeckoEndpoint {
+    MARKETS("/coins/markets", UpstreamPriority.MARKET),
+    COIN("/coins/{id}", UpstreamPriority.INTERACTIVE),
+    SEARCH("/search", UpstreamPriority.SEARCH),
+    MARKET_CHART("/coins/{id}/market_chart", UpstreamPriority.INTERACTIVE),
+    COIN_LIST("/coins/list", UpstreamPriority.BACKFILL),
+    EXCHANGE_RATES("/exchange_rates", UpstreamPriority.MARKET);
+
+    private final String path;
+    private final UpstreamPriority priority;
+
+    CoinGeckoEndpoint(String path, UpstreamPriority priority) {
+        this.path = path;
+        this.priority = priority;
+    }
+
+    public String getPath() {
+        return path;
+    }
+
+    public UpstreamPriority getPriority() {
+        return priority;
+    }
+}
@@ -0,0 +1,42 @@
+package net.tylerwade.cryptoapp.coins.coingecko;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Call count, failure count and latency of one upstream endpoint.
+ */
+class EndpointLatency {
+
+    private final CoinGeckoEndpoint endpoint;
+    private final LongAdder calls = new LongAdder();
+    private final LongAdder failures = new LongAdder();
+    private final LongAdder totalNanos = new LongAdder();
+    private final LongAccumulator maxNanos = new LongAccumulator(Math::max, 0);
+
+    EndpointLatency(CoinGeckoEndpoint endpoint) {
+        this.endpoint = endpoint;
+    }
+
+    void record(long nanos, boolean success) {
+        calls.increment();
+        if (!success) {
+            failures.increment();
+        }
+        totalNanos.add(nanos);
+        maxNanos.accumulate(nanos);
+    }
+
+    EndpointStats stats() {
+        long count = calls.sum();
+        double nanosPerMilli = TimeUnit.MILLISECONDS.toNanos(1);
+        return new EndpointStats(
+                endpoint,
+                count,
+                failures.sum(),
+                count == 0 ? 0 : totalNanos.sum() / nanosPerMilli / count,
+                maxNanos.get() / nanosPerMilli
+        );
+    }
+}
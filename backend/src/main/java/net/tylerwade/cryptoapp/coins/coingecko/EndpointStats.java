@@ -0,0 +1,10 @@
+package net.tylerwade.cryptoapp.coins.coingecko;
+
+public record EndpointStats(
+        CoinGeckoEndpoint endpoint,
+        long calls,
+        long failures,
+        double averageMillis,
+        double maxMillis
+) {
+}
@@ -0,0 +1,169 @@
+package net.tylerwade.cryptoapp.coins.coingecko;
+
+import com.github.benmanes.caffeine.cache.Ticker;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import lombok.extern.slf4j.Slf4j;
+import net.tylerwade.cryptoapp.common.exception.HttpRequestException;
+import net.tylerwade.cryptoapp.config.CoinGeckoProperties;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.LongConsumer;
+
+/**
+ * Token bucket budget shared by all CoinGecko calls so the per minute quota is never exceeded.
+ * A call takes one token for its {@link UpstreamPriority}; lower priorities keep a reserve of the
+ * bucket free for higher ones, queue for at most their max wait and are otherwise rejected fast
+ * so the caches can fall back to stale values.
+ */
+@Slf4j
+@Component
+public class UpstreamBudget implements MeterBinder {
+
+    private final CoinGeckoProperties.Budget budget;
+    private final Ticker ticker;
+    private final LongConsumer parker;
+    private final double capacity;
+    private final double tokensPerNano;
+    private double tokens;
+    private long refilledAt;
+
+    private final Map<UpstreamPriority, AtomicInteger> waiting = new EnumMap<>(UpstreamPriority.class);
+    private final Map<UpstreamPriority, LongAdder> rejections = new EnumMap<>(UpstreamPriority.class);
+
+    @Autowired
+    public UpstreamBudget(CoinGeckoProperties coinGeckoProperties) {
+        this(coinGeckoProperties, Ticker.systemTicker(), LockSupport::parkNanos);
+    }
+
+    /**
+     * Budget reading the time from the given ticker and waiting with the given parker, used by tests
+     * to move time instead of waiting.
+     * @param coinGeckoProperties budget settings
+     * @param ticker source of the time in nanoseconds
+     * @param parker waits for the given nanoseconds
+     */
+    UpstreamBudget(CoinGeckoProperties coinGeckoProperties, Ticker ticker, LongConsumer parker) {
+        this.budget = coinGeckoProperties.getBudget();
+        this.ticker = ticker;
+        this.parker = parker;
+        this.capacity = Math.max(1, budget.getRequestsPerMinute());
+        this.tokensPerNano = capacity / TimeUnit.MINUTES.toNanos(1);
+        this.tokens = capacity;
+        this.refilledAt = ticker.read();
+
+        for (UpstreamPriority priority : UpstreamPriority.values()) {
+            waiting.put(priority, new AtomicInteger());
+            rejections.put(priority, new LongAdder());
+        }
+    }
+
+    /**
+     * Take a token for one upstream call, waiting up to the max wait of the priority.
+     * @param priority priority of the call
+     * @throws UpstreamBudgetExhaustedException if no token is available in time
+     */
+    public void acquire(UpstreamPriority priority) {
+        if (!budget.isEnabled()) {
+            return;
+        }
+        long deadline = ticker.read() + budget.maxWait(priority).toNanos();
+        AtomicInteger queue = waiting.get(priority);
+        queue.incrementAndGet();
+        try {
+            while (true) {
+                long waitNanos = tryAcquire(priority);
+                if (waitNanos == 0) {
+                    return;
+                }
+                if (ticker.read() + waitNanos > deadline) {
+                    rejections.get(priority).increment();
+                    log.debug("Rejected {} CoinGecko call, request budget exhausted", priority);
+                    throw new UpstreamBudgetExhaustedException(priority);
+                }
+                parker.accept(waitNanos);
+                if (Thread.currentThread().isInterrupted()) {
+                    throw new HttpRequestException("CoinGecko request interrupted.", HttpStatus.SERVICE_UNAVAILABLE);
+                }
+            }
+        } finally {
+            queue.decrementAndGet();
+        }
+    }
+
+    /**
+     * Empty the bucket after CoinGecko answered with a rate limit, it knows the real quota better than we do.
+     */
+    public synchronized void exhausted() {
+        refill(ticker.read());
+        tokens = 0;
+    }
+
+    /**
+     * Tokens currently available, including the reserved ones.
+     * @return available tokens
+     */
+    public synchronized double available() {
+        refill(ticker.read());
+        return tokens;
+    }
+
+    /**
+     * Calls a priority can make right now without waiting or dipping into its reserve.
+     * @param priority priority of the calls
+     * @return tokens above the reserve of the priority, {@link Integer#MAX_VALUE} if the budget is disabled
+     */
+    public int headroom(UpstreamPriority priority) {
+        if (!budget.isEnabled()) {
+            return Integer.MAX_VALUE;
+        }
+        return (int) Math.max(0, Math.floor(available() - budget.reserve(priority) * capacity));
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        Gauge.builder("coingecko.budget.tokens", this, UpstreamBudget::available)
+                .description("Available CoinGecko request tokens")
+                .register(registry);
+        for (UpstreamPriority priority : UpstreamPriority.values()) {
+            String tag = priority.name().toLowerCase();
+            Gauge.builder("coingecko.budget.queue", waiting.get(priority), AtomicInteger::get)
+                    .description("Calls waiting for a CoinGecko request token")
+                    .tag("priority", tag)
+                    .register(registry);
+            FunctionCounter.builder("coingecko.budget.rejections", rejections.get(priority), LongAdder::sum)
+                    .description("Calls rejected because the CoinGecko request budget was exhausted")
+                    .tag("priority", tag)
+                    .register(registry);
+        }
+    }
+
+    /**
+     * Take a token if one is available above the reserve of the priority.
+     * @return 0 if a token was taken, otherwise the nanos until one should be
+     */
+    private synchronized long tryAcquire(UpstreamPriority priority) {
+        refill(ticker.read());
+        double floor = budget.reserve(priority) * capacity;
+        if (tokens - 1 >= floor) {
+            tokens -= 1;
+            return 0;
+        }
+        return Math.max(1, (long) Math.ceil((floor + 1 - tokens) / tokensPerNano));
+    }
+
+    private void refill(long now) {
+        tokens = Math.min(capacity, tokens + (now - refilledAt) * tokensPerNano);
+        refilledAt = now;
+    }
+}
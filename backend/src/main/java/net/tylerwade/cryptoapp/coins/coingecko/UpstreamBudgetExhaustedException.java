@@ -0,0 +1,16 @@
+package net.tylerwade.cryptoapp.coins.coingecko;
+
+import net.tylerwade.cryptoapp.common.exception.HttpRequestException;
+import org.springframework.http.HttpStatus;
+
+/**
+ * Thrown when the local {@link UpstreamBudget} has no token for a call in time. Answered with 429 like a
+ * CoinGecko rate limit, but CoinGecko itself was never asked.
+ */
+public class UpstreamBudgetExhaustedException extends HttpRequestException {
+
+    public UpstreamBudgetExhaustedException(UpstreamPriority priority) {
+        super("CoinGecko request budget exhausted for " + priority.name().toLowerCase() + " calls, try again shortly.",
+                HttpStatus.TOO_MANY_REQUESTS);
+    }
+}
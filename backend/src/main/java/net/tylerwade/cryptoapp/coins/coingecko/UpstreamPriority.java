@@ -0,0 +1,32 @@
+package net.tylerwade.cryptoapp.coins.coingecko;
+
+import java.time.Duration;
+
+/**
+ * Priority classes sharing the CoinGecko request budget, from most to least important.
+ * Each class may only take a token while more than its reserve fraction of the bucket is left,
+ * which keeps the remaining tokens for higher classes, and waits at most its max wait for one.
+ */
+public enum UpstreamPriority {
+    INTERACTIVE(0.0, Duration.ofSeconds(5)),   // coin detail and charts a user is viewing
+    MARKET(0.1, Duration.ofSeconds(3)),        // market list pages
+    SEARCH(0.25, Duration.ZERO),               // search, rejected right away and served stale
+    BACKFILL(0.5, Duration.ofSeconds(2)),      // background loads no user waits for, e.g. the coin list
+    WARM_UP(0.5, Duration.ofSeconds(2));       // cache warm-up, keeps half the bucket for the first users
+
+    private final double reserve;
+    private final Duration maxWait;
+
+    UpstreamPriority(double reserve, Duration maxWait) {
+        this.reserve = reserve;
+        this.maxWait = maxWait;
+    }
+
+    public double getReserve() {
+        return reserve;
+    }
+
+    public Duration getMaxWait() {
+        return maxWait;
+    }
+}
@@ -1,17 +1,53 @@
 package net.tylerwade.cryptoapp.coins.coinpage;
 
-import lombok.*;
+import java.util.Arrays;
+import java.util.List;
 
-@Getter
-@Setter
-@NoArgsConstructor
-@AllArgsConstructor
-@Data
-public class GetCoinPageParams {
-    private String vsCurrency;
-    private int page;
-    private int perPage;
-    private String ids;
+/**
+ * Immutable cache key of a market page request. Ids are kept in canonical form (trimmed, lower case,
+ * deduplicated, sorted and comma joined) so equivalent requests share one key.
+ */
+public record GetCoinPageParams(
+        String vsCurrency,
+        int page,
+        int perPage,
+        String ids
+) {
 
+    /**
+     * Create params with the currency and ids normalized.
+     * @param vsCurrency fiat currency code
+     * @param page page number
+     * @param perPage page size
+     * @param ids comma separated coin ids in any order, or null
+     * @return canonical params
+     */
+    public static GetCoinPageParams of(String vsCurrency, int page, int perPage, String ids) {
+        return new GetCoinPageParams(vsCurrency.toLowerCase(), page, perPage, canonicalIds(ids));
+    }
 
-}
\ No newline at end of file
+    /**
+     * Normalize a comma separated id list.
+     * @param ids comma separated coin ids or null
+     * @return sorted, deduplicated ids joined by commas, empty string if there are none
+     */
+    public static String canonicalIds(String ids) {
+        if (ids == null || ids.isBlank()) {
+            return "";
+        }
+        return String.join(",", Arrays.stream(ids.split(","))
+                .map(id -> id.trim().toLowerCase())
+                .filter(id -> !id.isEmpty())
+                .distinct()
+                .sorted()
+                .toList());
+    }
+
+    public boolean hasIds() {
+        return ids != null && !ids.isEmpty();
+    }
+
+    public List<String> idList() {
+        return hasIds() ? List.of(ids.split(",")) : List.of();
+    }
+}
@@ -0,0 +1,10 @@
+package net.tylerwade.cryptoapp.coins.coinpage;
+
+/**
+ * Cache key of a single coin's market data in one currency.
+ */
+public record MarketCoinKey(
+        String vsCurrency,
+        String id
+) {
+}
@@ -0,0 +1,32 @@
+package net.tylerwade.cryptoapp.coins.fx;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import net.tylerwade.cryptoapp.coins.CoinService;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+/**
+ * Refreshes the exchange rate table with one upstream call at a fixed cadence.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class ExchangeRatePoller {
+
+    private final CoinService coinService;
+    private final ExchangeRateStore exchangeRateStore;
+
+    @Scheduled(fixedDelayString = "${cryptoapp.fx.interval:10m}")
+    public void poll() {
+        if (!exchangeRateStore.isEnabled()) {
+            return;
+        }
+        try {
+            exchangeRateStore.put(coinService.fetchExchangeRates());
+        } catch (RuntimeException e) {
+            // Keep converting with the previous rates until they are too old
+            log.warn("Failed to refresh exchange rates: {}", e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,28 @@
+package net.tylerwade.cryptoapp.coins.fx;
+
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.util.Map;
+
+/**
+ * Response of CoinGecko's {@code /exchange_rates}, every rate given in units per bitcoin.
+ */
+@Getter
+@Setter
+@NoArgsConstructor
+public class ExchangeRateResponse {
+
+    private Map<String, Rate> rates;
+
+    @Getter
+    @Setter
+    @NoArgsConstructor
+    public static class Rate {
+        private String name;
+        private String unit;
+        private double value;
+        private String type; // crypto, fiat or commodity
+    }
+}
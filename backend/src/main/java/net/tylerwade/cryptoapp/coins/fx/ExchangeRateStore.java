@@ -0,0 +1,62 @@
+package net.tylerwade.cryptoapp.coins.fx;
+
+import net.tylerwade.cryptoapp.config.CryptoAppProperties;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+
+/**
+ * Holds the latest exchange rate table and answers which factor converts amounts in the base currency,
+ * the only currency market data is fetched in, into a requested one.
+ */
+@Component
+public class ExchangeRateStore {
+
+    private final CryptoAppProperties.Fx settings;
+    private volatile ExchangeRates rates;
+
+    public ExchangeRateStore(CryptoAppProperties cryptoAppProperties) {
+        this.settings = cryptoAppProperties.getFx();
+    }
+
+    public boolean isEnabled() {
+        return settings.isEnabled();
+    }
+
+    public String getBaseCurrency() {
+        return settings.getBaseCurrency().toLowerCase();
+    }
+
+    /**
+     * Latest rate table regardless of its age.
+     * @return rates or null if none were fetched yet
+     */
+    public ExchangeRates latest() {
+        return rates;
+    }
+
+    /**
+     * Replace the rate table.
+     * @param rates new rates
+     */
+    public void put(ExchangeRates rates) {
+        this.rates = rates;
+    }
+
+    /**
+     * Factor converting base currency amounts into the given currency.
+     * @param vsCurrency requested currency code
+     * @return conversion factor, or null if the currency is served natively: conversion is disabled, it is
+     * the base currency, it is unknown or the rates are older than the configured max age
+     */
+    public Double conversionRate(String vsCurrency) {
+        String currency = vsCurrency.toLowerCase();
+        ExchangeRates current = rates;
+        if (!settings.isEnabled() || currency.equals(getBaseCurrency()) || current == null
+                || current.getFetchedAt().isBefore(LocalDateTime.now().minus(settings.getMaxAge()))) {
+            return null;
+        }
+        double rate = current.rate(getBaseCurrency(), currency);
+        return Double.isNaN(rate) ? null : rate;
+    }
+}
@@ -0,0 +1,69 @@
+package net.tylerwade.cryptoapp.coins.fx;
+
+import lombok.Getter;
+
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Immutable exchange rate table. Rates are held against a common reference unit (bitcoin, as CoinGecko
+ * returns them), so any pair of currencies in the table can be converted.
+ */
+public final class ExchangeRates {
+
+    @Getter
+    private final LocalDateTime fetchedAt;
+    private final Map<String, Double> unitsPerReference;
+
+    private ExchangeRates(Map<String, Double> unitsPerReference, LocalDateTime fetchedAt) {
+        this.unitsPerReference = unitsPerReference;
+        this.fetchedAt = fetchedAt;
+    }
+
+    /**
+     * Build the table from CoinGecko's response. Currencies without a positive rate are left out.
+     * @param response exchange rate response
+     * @param fetchedAt time the rates were fetched
+     * @return rate table
+     */
+    public static ExchangeRates of(ExchangeRateResponse response, LocalDateTime fetchedAt) {
+        Map<String, Double> units = new HashMap<>();
+        if (response.getRates() != null) {
+            response.getRates().forEach((currency, rate) -> {
+                if (rate != null && rate.getValue() > 0 && Double.isFinite(rate.getValue())) {
+                    units.put(currency.toLowerCase(), rate.getValue());
+                }
+            });
+        }
+        return new ExchangeRates(Map.copyOf(units), fetchedAt);
+    }
+
+    /**
+     * Whether amounts in the currency can be converted.
+     * @param currency currency code
+     * @return true if the table holds a rate for it
+     */
+    public boolean supports(String currency) {
+        return unitsPerReference.containsKey(currency.toLowerCase());
+    }
+
+    /**
+     * Factor converting an amount in one currency into another.
+     * @param from currency of the amount
+     * @param to target currency
+     * @return conversion factor, NaN if either currency is unknown
+     */
+    public double rate(String from, String to) {
+        Double fromUnits = unitsPerReference.get(from.toLowerCase());
+        Double toUnits = unitsPerReference.get(to.toLowerCase());
+        if (fromUnits == null || toUnits == null) {
+            return Double.NaN;
+        }
+        return toUnits / fromUnits;
+    }
+
+    public int size() {
+        return unitsPerReference.size();
+    }
+}
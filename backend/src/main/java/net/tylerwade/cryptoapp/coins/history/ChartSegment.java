@@ -0,0 +1,268 @@
+package net.tylerwade.cryptoapp.coins.history;
+
+import net.tylerwade.cryptoapp.coins.marketchart.MarketChart;
+import net.tylerwade.cryptoapp.coins.marketchart.MarketSeries;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.util.zip.CRC32;
+
+/**
+ * Memory-mapped segment file holding the chart history of one coin in one currency.
+ * <p>
+ * The file is a preallocated array of fixed-width records ({@code timestamp, price, market_cap, total_volume},
+ * 8 bytes each, NaN where missing) in ascending time order, followed by two footer slots. A footer holds the
+ * number of committed records and the sync state and is protected by a CRC. Commits write the records first,
+ * flush them, and then write the footer into the slot not holding the current one with a higher sequence,
+ * so after a crash the newest valid footer still marks a consistent set of records. Records are only
+ * rewritten in place from the first timestamp of a sync onwards, which at most replaces the last points by
+ * their newer values. A commit that outgrows the file or rewrites it from the start builds a new file and
+ * atomically moves it into place.
+ * <p>
+ * Range reads binary search the timestamp and copy the matching records out of the mapping into columns.
+ * The records are interleaved, so a view of one series would not be a {@link MarketSeries}, and a view
+ * would not survive the next commit remapping or rewriting the file. The copy is short lived anyway, since
+ * the chart is encoded into the compact chart cache right after. All methods are synchronized per segment.
+ */
+final class ChartSegment {
+
+    static final int RECORD_BYTES = 32;
+    private static final int FOOTER_BYTES = 48;
+    private static final int FOOTER_CRC_OFFSET = 40;
+    private static final int FOOTER_SLOTS = 2;
+    private static final int MAGIC = 0x43534547; // "CSEG"
+    private static final int VERSION = 1;
+    private static final int INITIAL_CAPACITY = 512; // records, about 1.4 years of daily points
+
+    private final Path path;
+    private MappedByteBuffer buffer;
+    private int capacity;
+    private long sequence;
+    private int count;
+    private long coveredFrom;
+    private long syncedAt;
+
+    private ChartSegment(Path path) throws IOException {
+        this.path = path;
+        map();
+        readFooter();
+    }
+
+    /**
+     * Open the segment file at the given path, creating an empty one if it does not exist.
+     * @param path segment file
+     * @return open segment
+     * @throws IOException if the file cannot be created or mapped
+     */
+    static ChartSegment open(Path path) throws IOException {
+        if (!Files.exists(path) || Files.size(path) < FOOTER_BYTES * FOOTER_SLOTS) {
+            Files.createDirectories(path.getParent());
+            allocate(path, INITIAL_CAPACITY).close();
+        }
+        return new ChartSegment(path);
+    }
+
+    synchronized boolean isEmpty() {
+        return count == 0;
+    }
+
+    synchronized int size() {
+        return count;
+    }
+
+    synchronized Instant coveredFrom() {
+        return Instant.ofEpochMilli(coveredFrom);
+    }
+
+    synchronized Instant syncedAt() {
+        return Instant.ofEpochMilli(syncedAt);
+    }
+
+    /**
+     * Timestamp of the newest committed record.
+     * @return timestamp in epoch millis
+     * @throws IllegalStateException if the segment is empty
+     */
+    synchronized long lastTimestamp() {
+        if (count == 0) {
+            throw new IllegalStateException("Segment is empty: " + path);
+        }
+        return buffer.getLong((count - 1) * RECORD_BYTES);
+    }
+
+    /**
+     * Copy the committed records at or after a time into a market chart whose series share one timestamp column.
+     * @param from earliest record time
+     * @param cachedAt cache time reported by the chart
+     * @return chart in ascending time order
+     */
+    synchronized MarketChart read(Instant from, LocalDateTime cachedAt) {
+        int start = lowerBound(from.toEpochMilli());
+        int size = count - start;
+        ByteBuffer records = buffer.slice(start * RECORD_BYTES, size * RECORD_BYTES);
+        long[] timestamps = new long[size];
+        double[] prices = new double[size];
+        double[] marketCaps = new double[size];
+        double[] totalVolumes = new double[size];
+        for (int i = 0; i < size; i++) {
+            int offset = i * RECORD_BYTES;
+            timestamps[i] = records.getLong(offset);
+            prices[i] = records.getDouble(offset + 8);
+            marketCaps[i] = records.getDouble(offset + 16);
+            totalVolumes[i] = records.getDouble(offset + 24);
+        }
+        return new MarketChart(
+                new MarketSeries(timestamps, prices),
+                new MarketSeries(timestamps, marketCaps),
+                new MarketSeries(timestamps, totalVolumes),
+                cachedAt
+        );
+    }
+
+    /**
+     * Commit the points of a chart, replacing the records from its first timestamp onwards, and record the sync.
+     * @param chart points in ascending time order
+     * @param coveredFrom earliest time the history covers
+     * @param syncedAt time the history was synced
+     * @throws IOException if a grown or rewritten file cannot be written
+     */
+    synchronized void commit(MarketChart chart, Instant coveredFrom, Instant syncedAt) throws IOException {
+        MarketSeries prices = chart.getPrices();
+        int points = prices == null ? 0 : prices.size();
+        int start = points == 0 ? count : lowerBound(prices.timestamp(0));
+        int newCount = start + points;
+        if (newCount > capacity || (start == 0 && count > 0)) {
+            rewrite(start, chart, newCount, coveredFrom.toEpochMilli(), syncedAt.toEpochMilli());
+            return;
+        }
+        writeRecords(buffer, start, chart);
+        buffer.force(start * RECORD_BYTES, points * RECORD_BYTES);
+        writeFooter(buffer, capacity, sequence + 1, newCount, coveredFrom.toEpochMilli(), syncedAt.toEpochMilli());
+        setCommitted(sequence + 1, newCount, coveredFrom.toEpochMilli(), syncedAt.toEpochMilli());
+    }
+
+    /**
+     * Write the kept records and the chart into a new file, committed before it replaces the current one.
+     */
+    private void rewrite(int keep, MarketChart chart, int newCount, long newCoveredFrom, long newSyncedAt) throws IOException {
+        int newCapacity = Math.max(INITIAL_CAPACITY, Math.max(capacity, Integer.highestOneBit(Math.max(newCount, 1)) << 1));
+        Path temp = path.resolveSibling(path.getFileName() + ".tmp");
+        try (FileChannel channel = allocate(temp, newCapacity)) {
+            MappedByteBuffer target = channel.map(FileChannel.MapMode.READ_WRITE, 0, fileSize(newCapacity));
+            target.put(0, buffer, 0, keep * RECORD_BYTES);
+            writeRecords(target, keep, chart);
+            target.force();
+            writeFooter(target, newCapacity, sequence + 1, newCount, newCoveredFrom, newSyncedAt);
+        }
+        Files.move(temp, path, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        map();
+        setCommitted(sequence + 1, newCount, newCoveredFrom, newSyncedAt);
+    }
+
+    private void setCommitted(long sequence, int count, long coveredFrom, long syncedAt) {
+        this.sequence = sequence;
+        this.count = count;
+        this.coveredFrom = coveredFrom;
+        this.syncedAt = syncedAt;
+    }
+
+    /**
+     * Index of the first committed record at or after a timestamp.
+     */
+    private int lowerBound(long timestamp) {
+        int low = 0;
+        int high = count;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (buffer.getLong(mid * RECORD_BYTES) < timestamp) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    private static void writeRecords(ByteBuffer target, int start, MarketChart chart) {
+        MarketSeries prices = chart.getPrices();
+        int points = prices == null ? 0 : prices.size();
+        for (int i = 0; i < points; i++) {
+            long timestamp = prices.timestamp(i);
+            int offset = (start + i) * RECORD_BYTES;
+            target.putLong(offset, timestamp);
+            target.putDouble(offset + 8, prices.value(i));
+            target.putDouble(offset + 16, PriceHistoryDao.valueAt(chart.getMarket_caps(), i, timestamp));
+            target.putDouble(offset + 24, PriceHistoryDao.valueAt(chart.getTotal_volumes(), i, timestamp));
+        }
+    }
+
+    private static void writeFooter(MappedByteBuffer target, int capacity, long sequence, int count,
+                                     long coveredFrom, long syncedAt) {
+        int offset = footerOffset(capacity, (int) (sequence % FOOTER_SLOTS));
+        target.putInt(offset, MAGIC);
+        target.putInt(offset + 4, VERSION);
+        target.putLong(offset + 8, sequence);
+        target.putLong(offset + 16, count);
+        target.putLong(offset + 24, coveredFrom);
+        target.putLong(offset + 32, syncedAt);
+        target.putLong(offset + FOOTER_CRC_OFFSET, crc(target, offset));
+        target.force(offset, FOOTER_BYTES);
+    }
+
+    /**
+     * Load the newest valid footer, an empty segment if there is none.
+     */
+    private void readFooter() {
+        setCommitted(0, 0, 0, 0);
+        for (int slot = 0; slot < FOOTER_SLOTS; slot++) {
+            int offset = footerOffset(capacity, slot);
+            if (buffer.getInt(offset) != MAGIC || buffer.getInt(offset + 4) != VERSION
+                    || buffer.getLong(offset + FOOTER_CRC_OFFSET) != crc(buffer, offset)) {
+                continue;
+            }
+            long footerSequence = buffer.getLong(offset + 8);
+            long footerCount = buffer.getLong(offset + 16);
+            if (footerSequence > sequence && footerCount >= 0 && footerCount <= capacity) {
+                setCommitted(footerSequence, (int) footerCount, buffer.getLong(offset + 24), buffer.getLong(offset + 32));
+            }
+        }
+    }
+
+    private void map() throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            long size = channel.size();
+            this.capacity = (int) ((size - (long) FOOTER_BYTES * FOOTER_SLOTS) / RECORD_BYTES);
+            // The mapping stays valid after the channel is closed
+            this.buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, size);
+        }
+    }
+
+    private static FileChannel allocate(Path path, int capacity) throws IOException {
+        FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING,
+                StandardOpenOption.READ, StandardOpenOption.WRITE);
+        channel.write(ByteBuffer.allocate(1), fileSize(capacity) - 1);
+        return channel;
+    }
+
+    private static long crc(ByteBuffer source, int footerOffset) {
+        CRC32 crc = new CRC32();
+        crc.update(source.slice(footerOffset, FOOTER_CRC_OFFSET));
+        return crc.getValue();
+    }
+
+    private static long fileSize(int capacity) {
+        return (long) capacity * RECORD_BYTES + (long) FOOTER_BYTES * FOOTER_SLOTS;
+    }
+
+    private static int footerOffset(int capacity, int slot) {
+        return capacity * RECORD_BYTES + slot * FOOTER_BYTES;
+    }
+}
@@ -0,0 +1,113 @@
+package net.tylerwade.cryptoapp.coins.history;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import lombok.extern.slf4j.Slf4j;
+import net.tylerwade.cryptoapp.coins.marketchart.MarketChartKey;
+import net.tylerwade.cryptoapp.config.CryptoAppProperties;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.net.URLEncoder;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * Directory of memory-mapped {@link ChartSegment} files, one per coin and currency, laid out as
+ * {@code <directory>/<vs_currency>/<coin id>.seg}. Segment files are only created for charts whose history
+ * was synced successfully, and only for the currencies the market snapshot and currency conversion serve,
+ * so ids and currencies sent by clients cannot create files of their own. At most max-segments segments stay
+ * mapped, the least recently used ones are dropped and unmapped once unreferenced. File handles are closed
+ * right after mapping so thousands of coins do not hold open files.
+ */
+@Slf4j
+@Component
+public class ChartSegmentStore {
+
+    private final CryptoAppProperties.PriceHistory properties;
+    private final Set<String> currencies;
+    private final Cache<MarketChartKey, ChartSegment> segments;
+
+    public ChartSegmentStore(CryptoAppProperties cryptoAppProperties) {
+        this.properties = cryptoAppProperties.getPriceHistory();
+        Set<String> currencies = new HashSet<>();
+        cryptoAppProperties.getMarketSnapshot().getCurrencies().forEach(currency -> currencies.add(currency.toLowerCase()));
+        currencies.add(cryptoAppProperties.getFx().getBaseCurrency().toLowerCase());
+        this.currencies = Set.copyOf(currencies);
+        this.segments = Caffeine.newBuilder()
+                .maximumSize(properties.getMaxSegments())
+                .build();
+    }
+
+    /**
+     * Segment of a coin in one currency if its file exists, without creating it.
+     * @param key coin and currency
+     * @return segment or null if segments are disabled, there is no segment file or it cannot be opened
+     */
+    ChartSegment find(MarketChartKey key) {
+        Path path = path(key);
+        if (path == null) {
+            return null;
+        }
+        ChartSegment segment = segments.getIfPresent(key);
+        if (segment != null || !Files.exists(path)) {
+            return segment;
+        }
+        return segments.get(key, k -> open(path));
+    }
+
+    /**
+     * Segment of a coin in one currency, created if it does not exist. Only called once the coin's history
+     * was synced.
+     * @param key coin and currency
+     * @return segment or null if segments are disabled, the key cannot have a segment or the file cannot be opened
+     */
+    ChartSegment create(MarketChartKey key) {
+        Path path = path(key);
+        return path == null ? null : segments.get(key, k -> open(path));
+    }
+
+    /**
+     * Number of segments currently mapped.
+     * @return mapped segment count
+     */
+    public long size() {
+        segments.cleanUp();
+        return segments.estimatedSize();
+    }
+
+    /**
+     * File of a segment.
+     * @param key coin and currency
+     * @return path inside the segment directory or null if segments are disabled or the key cannot have a segment
+     */
+    private Path path(MarketChartKey key) {
+        if (!properties.isSegmentsEnabled() || !currencies.contains(key.vs_currency().toLowerCase())) {
+            return null;
+        }
+        String fileName = encode(key.id());
+        // URLEncoder keeps dots, a leading one would allow "." and ".." or hidden files
+        if (fileName.isEmpty() || fileName.startsWith(".")) {
+            return null;
+        }
+        return Path.of(properties.getSegmentDirectory())
+                .resolve(key.vs_currency().toLowerCase())
+                .resolve(fileName + ".seg");
+    }
+
+    private ChartSegment open(Path path) {
+        try {
+            return ChartSegment.open(path);
+        } catch (IOException e) {
+            log.warn("Could not open chart segment {}: {}", path, e.getMessage());
+            return null;
+        }
+    }
+
+    private static String encode(String value) {
+        return URLEncoder.encode(value, StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,14 @@
+package net.tylerwade.cryptoapp.coins.history;
+
+import net.tylerwade.cryptoapp.coins.marketchart.MarketChart;
+
+/**
+ * Chart loaded through the price history.
+ * @param chart chart of the requested days
+ * @param stale true if the sync failed and the chart holds the stored points only, up to the last sync
+ */
+public record HistoryChart(
+        MarketChart chart,
+        boolean stale
+) {
+}
@@ -0,0 +1,188 @@
+package net.tylerwade.cryptoapp.coins.history;
+
+import net.tylerwade.cryptoapp.coins.marketchart.MarketChart;
+import net.tylerwade.cryptoapp.coins.marketchart.MarketChartKey;
+import net.tylerwade.cryptoapp.coins.marketchart.MarketSeries;
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * JDBC access to the {@code price_history} tables. Points are written with batched inserts and read back
+ * by range scans on the (coin, currency, time) primary key straight into primitive columns.
+ */
+@Repository
+public class PriceHistoryDao {
+
+    private static final String INSERT_POINT = """
+            INSERT INTO price_history (coin_id, vs_currency, ts, price, market_cap, total_volume)
+            VALUES (?, ?, ?, ?, ?, ?)
+            """;
+    private static final String DELETE_FROM = """
+            DELETE FROM price_history WHERE coin_id = ? AND vs_currency = ? AND ts >= ?
+            """;
+    private static final String UPSERT_SYNC = """
+            INSERT INTO price_history_sync (coin_id, vs_currency, covered_from, synced_at)
+            VALUES (?, ?, ?, ?)
+            ON CONFLICT (coin_id, vs_currency) DO UPDATE
+            SET covered_from = EXCLUDED.covered_from, synced_at = EXCLUDED.synced_at
+            """;
+    private static final String SELECT_SYNC = """
+            SELECT covered_from, synced_at FROM price_history_sync WHERE coin_id = ? AND vs_currency = ?
+            """;
+    private static final String SELECT_LATEST = """
+            SELECT max(ts) FROM price_history WHERE coin_id = ? AND vs_currency = ?
+            """;
+    private static final String SELECT_SINCE = """
+            SELECT ts, price, market_cap, total_volume FROM price_history
+            WHERE coin_id = ? AND vs_currency = ? AND ts >= ?
+            ORDER BY ts
+            """;
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public PriceHistoryDao(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    /**
+     * Sync state of a coin's history.
+     * @param key coin and currency
+     * @return sync state or null if nothing was stored yet
+     */
+    public PriceHistorySync findSync(MarketChartKey key) {
+        List<PriceHistorySync> syncs = jdbcTemplate.query(SELECT_SYNC,
+                (rs, row) -> new PriceHistorySync(rs.getTimestamp(1).toInstant(), rs.getTimestamp(2).toInstant()),
+                key.id(), key.vs_currency());
+        return syncs.isEmpty() ? null : syncs.getFirst();
+    }
+
+    /**
+     * Time of the newest stored point.
+     * @param key coin and currency
+     * @return newest point time or null if none is stored
+     */
+    public Instant findLatestTimestamp(MarketChartKey key) {
+        Timestamp latest = jdbcTemplate.queryForObject(SELECT_LATEST, Timestamp.class, key.id(), key.vs_currency());
+        return latest == null ? null : latest.toInstant();
+    }
+
+    /**
+     * Read the stored points at or after a time as a market chart whose series share one timestamp column.
+     * @param key coin and currency
+     * @param from earliest point time
+     * @param syncedAt sync time, reported as the chart's cache time
+     * @return chart in ascending time order
+     */
+    public MarketChart findSince(MarketChartKey key, Instant from, Instant syncedAt) {
+        PointColumns columns = new PointColumns();
+        jdbcTemplate.query(SELECT_SINCE, columns::add, key.id(), key.vs_currency(), Timestamp.from(from));
+        return columns.toMarketChart(LocalDateTime.ofInstant(syncedAt, ZoneId.systemDefault()));
+    }
+
+    /**
+     * Replace the stored points from the first point of the chart onwards with the chart's points and
+     * record the sync. Points before the chart are kept, so a fetch of the newest days appends to the history.
+     * @param key coin and currency
+     * @param chart fetched chart, points in ascending time order
+     * @param coveredFrom earliest time the history now covers
+     * @param syncedAt time of the fetch
+     */
+    @Transactional
+    public void replaceFrom(MarketChartKey key, MarketChart chart, Instant coveredFrom, Instant syncedAt) {
+        MarketSeries prices = chart.getPrices();
+        if (prices != null && prices.size() > 0) {
+            jdbcTemplate.update(DELETE_FROM, key.id(), key.vs_currency(), new Timestamp(prices.timestamp(0)));
+            jdbcTemplate.batchUpdate(INSERT_POINT, new BatchPreparedStatementSetter() {
+                @Override
+                public void setValues(PreparedStatement ps, int i) throws SQLException {
+                    long timestamp = prices.timestamp(i);
+                    ps.setString(1, key.id());
+                    ps.setString(2, key.vs_currency());
+                    ps.setTimestamp(3, new Timestamp(timestamp));
+                    setValue(ps, 4, prices.value(i));
+                    setValue(ps, 5, valueAt(chart.getMarket_caps(), i, timestamp));
+                    setValue(ps, 6, valueAt(chart.getTotal_volumes(), i, timestamp));
+                }
+
+                @Override
+                public int getBatchSize() {
+                    return prices.size();
+                }
+            });
+        }
+        jdbcTemplate.update(UPSERT_SYNC, key.id(), key.vs_currency(), Timestamp.from(coveredFrom), Timestamp.from(syncedAt));
+    }
+
+    /**
+     * Value of a series at the price point with the same index, CoinGecko returns all series of a chart
+     * at the same timestamps.
+     */
+    static double valueAt(MarketSeries series, int index, long timestamp) {
+        if (series == null || index >= series.size() || series.timestamp(index) != timestamp) {
+            return Double.NaN;
+        }
+        return series.value(index);
+    }
+
+    private static void setValue(PreparedStatement ps, int index, double value) throws SQLException {
+        if (Double.isNaN(value)) {
+            ps.setNull(index, Types.DOUBLE);
+        } else {
+            ps.setDouble(index, value);
+        }
+    }
+
+    private static double getValue(ResultSet rs, int index) throws SQLException {
+        double value = rs.getDouble(index);
+        return rs.wasNull() ? Double.NaN : value;
+    }
+
+    /**
+     * Growable primitive columns filled row by row from a result set.
+     */
+    private static final class PointColumns {
+        private long[] timestamps = new long[64];
+        private double[] prices = new double[64];
+        private double[] marketCaps = new double[64];
+        private double[] totalVolumes = new double[64];
+        private int size;
+
+        void add(ResultSet rs) throws SQLException {
+            if (size == timestamps.length) {
+                int capacity = size * 2;
+                timestamps = Arrays.copyOf(timestamps, capacity);
+                prices = Arrays.copyOf(prices, capacity);
+                marketCaps = Arrays.copyOf(marketCaps, capacity);
+                totalVolumes = Arrays.copyOf(totalVolumes, capacity);
+            }
+            timestamps[size] = rs.getTimestamp(1).getTime();
+            prices[size] = getValue(rs, 2);
+            marketCaps[size] = getValue(rs, 3);
+            totalVolumes[size] = getValue(rs, 4);
+            size++;
+        }
+
+        MarketChart toMarketChart(LocalDateTime cachedAt) {
+            long[] sharedTimestamps = Arrays.copyOf(timestamps, size);
+            return new MarketChart(
+                    new MarketSeries(sharedTimestamps, Arrays.copyOf(prices, size)),
+                    new MarketSeries(sharedTimestamps, Arrays.copyOf(marketCaps, size)),
+                    new MarketSeries(sharedTimestamps, Arrays.copyOf(totalVolumes, size)),
+                    cachedAt
+            );
+        }
+    }
+}
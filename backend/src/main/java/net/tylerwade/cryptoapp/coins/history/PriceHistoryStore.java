@@ -0,0 +1,182 @@
+package net.tylerwade.cryptoapp.coins.history;
+
+import lombok.extern.slf4j.Slf4j;
+import net.tylerwade.cryptoapp.coins.marketchart.MarketChart;
+import net.tylerwade.cryptoapp.coins.marketchart.MarketChartKey;
+import net.tylerwade.cryptoapp.config.CryptoAppProperties;
+import org.springframework.dao.DataAccessException;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.function.IntFunction;
+
+/**
+ * Persistent market chart history in Postgres, read before going to CoinGecko so restarts do not refetch
+ * every chart and history accumulates beyond the last fetch. A coin's history is synced at most once per
+ * sync interval by fetching only the days since its newest stored point, and is backfilled with one full
+ * fetch when a request reaches further back than it covers.
+ * <p>
+ * The history is mirrored into memory-mapped {@link ChartSegment} files, so charts in sync are read
+ * from local files instead of querying Postgres. If Postgres is unavailable, charts are fetched from
+ * CoinGecko directly, reusing a fetch that was already made before the database failed.
+ */
+@Slf4j
+@Component
+public class PriceHistoryStore {
+
+    private static final Duration DAY = Duration.ofDays(1);
+    private static final Duration SEGMENT_OVERLAP = Duration.ofDays(2);
+
+    private final PriceHistoryDao priceHistoryDao;
+    private final ChartSegmentStore chartSegmentStore;
+    private final CryptoAppProperties.PriceHistory properties;
+
+    public PriceHistoryStore(PriceHistoryDao priceHistoryDao,
+                             ChartSegmentStore chartSegmentStore,
+                             CryptoAppProperties cryptoAppProperties) {
+        this.priceHistoryDao = priceHistoryDao;
+        this.chartSegmentStore = chartSegmentStore;
+        this.properties = cryptoAppProperties.getPriceHistory();
+    }
+
+    /**
+     * Load the chart of the last days from the local segment when it is in sync, otherwise from the stored
+     * history after fetching and storing the missing points, mirroring them into the segment.
+     * If the fetch fails but the history covers the days, the stored points are returned marked as stale.
+     * @param key coin and currency
+     * @param days number of days
+     * @param fetcher fetches the chart of the given number of days from CoinGecko
+     * @return chart of the last days
+     */
+    public HistoryChart load(MarketChartKey key, int days, IntFunction<MarketChart> fetcher) {
+        if (!properties.isEnabled()) {
+            return new HistoryChart(fetcher.apply(days), false);
+        }
+        Instant now = Instant.now();
+        Instant from = now.minus(DAY.multipliedBy(days));
+        ChartSegment segment = chartSegmentStore.find(key);
+        if (segment != null && isFresh(new PriceHistorySync(segment.coveredFrom(), segment.syncedAt()), from, now)) {
+            return new HistoryChart(segment.read(from, toLocalDateTime(segment.syncedAt())), false);
+        }
+
+        Fetch fetch = new Fetch(fetcher);
+        try {
+            return loadStored(key, segment, days, from, now, fetch);
+        } catch (DataAccessException e) {
+            log.warn("Price history of {} unavailable, fetching from CoinGecko: {}", key, e.getMessage());
+            return new HistoryChart(fetch.apply(days), false);
+        }
+    }
+
+    private HistoryChart loadStored(MarketChartKey key, ChartSegment segment, int days, Instant from, Instant now,
+                                    Fetch fetch) {
+        PriceHistorySync sync = priceHistoryDao.findSync(key);
+        boolean stale = false;
+        if (!isFresh(sync, from, now)) {
+            PriceHistorySync synced = sync(key, sync, days, from, now, fetch);
+            stale = synced == sync;
+            sync = synced;
+        }
+        if (segment == null) {
+            // The coin has a stored history now, so it is safe to give it a segment file
+            segment = chartSegmentStore.create(key);
+        }
+        if (segment != null && mirror(key, segment, sync)) {
+            return new HistoryChart(segment.read(from, toLocalDateTime(sync.syncedAt())), stale);
+        }
+        return new HistoryChart(priceHistoryDao.findSince(key, from, sync.syncedAt()), stale);
+    }
+
+    private boolean isFresh(PriceHistorySync sync, Instant from, Instant now) {
+        return sync != null && !sync.coveredFrom().isAfter(from)
+                && sync.syncedAt().isAfter(now.minus(properties.getSyncInterval()));
+    }
+
+    /**
+     * Fetch the missing points into the stored history.
+     * @return sync state after the fetch, or the previous one if the fetch failed but the history covers the days
+     */
+    private PriceHistorySync sync(MarketChartKey key, PriceHistorySync sync, int days, Instant from, Instant now,
+                                  Fetch fetcher) {
+        boolean covered = sync != null && !sync.coveredFrom().isAfter(from);
+        try {
+            if (covered) {
+                append(key, sync, now, fetcher);
+                return new PriceHistorySync(sync.coveredFrom(), now);
+            }
+            Instant coveredFrom = sync == null || from.isBefore(sync.coveredFrom()) ? from : sync.coveredFrom();
+            priceHistoryDao.replaceFrom(key, fetcher.apply(days), coveredFrom, now);
+            return new PriceHistorySync(coveredFrom, now);
+        } catch (DataAccessException e) {
+            throw e;
+        } catch (RuntimeException e) {
+            if (!covered) {
+                throw e;
+            }
+            log.warn("Sync of price history {} failed, serving stored points: {}", key, e.getMessage());
+            return sync;
+        }
+    }
+
+    /**
+     * Bring the segment up to the stored history. Points from shortly before the segment's newest record
+     * are rewritten, since the stored history replaces the open day's point on every sync.
+     * @return true if the segment now mirrors the stored history
+     */
+    private boolean mirror(MarketChartKey key, ChartSegment segment, PriceHistorySync sync) {
+        if (segment.syncedAt().equals(sync.syncedAt()) && !segment.coveredFrom().isAfter(sync.coveredFrom())) {
+            return true;
+        }
+        Instant since = segment.isEmpty() || segment.coveredFrom().isAfter(sync.coveredFrom())
+                ? sync.coveredFrom()
+                : Instant.ofEpochMilli(segment.lastTimestamp()).minus(SEGMENT_OVERLAP);
+        try {
+            segment.commit(priceHistoryDao.findSince(key, since, sync.syncedAt()), sync.coveredFrom(), sync.syncedAt());
+            return true;
+        } catch (IOException e) {
+            log.warn("Could not write chart segment {}: {}", key, e.getMessage());
+            return false;
+        }
+    }
+
+    /**
+     * Fetch the days since the newest stored point, overlapping it by a day so the previous
+     * intraday point is replaced by the day's closing point.
+     */
+    private void append(MarketChartKey key, PriceHistorySync sync, Instant now, Fetch fetcher) {
+        Instant latest = priceHistoryDao.findLatestTimestamp(key);
+        int days = latest == null ? 1 : (int) Math.max(1, Duration.between(latest, now).toDays() + 1);
+        priceHistoryDao.replaceFrom(key, fetcher.apply(days), sync.coveredFrom(), now);
+    }
+
+    /**
+     * Fetcher remembering its last chart, so falling back to CoinGecko after a database failure does not
+     * fetch the same days twice.
+     */
+    private static final class Fetch {
+
+        private final IntFunction<MarketChart> fetcher;
+        private int fetchedDays;
+        private MarketChart fetched;
+
+        private Fetch(IntFunction<MarketChart> fetcher) {
+            this.fetcher = fetcher;
+        }
+
+        MarketChart apply(int days) {
+            if (fetched == null || fetchedDays != days) {
+                fetched = fetcher.apply(days);
+                fetchedDays = days;
+            }
+            return fetched;
+        }
+    }
+
+    private static LocalDateTime toLocalDateTime(Instant instant) {
+        return LocalDateTime.ofInstant(instant, ZoneId.systemDefault());
+    }
+}
@@ -0,0 +1,14 @@
+package net.tylerwade.cryptoapp.coins.history;
+
+import java.time.Instant;
+
+/**
+ * Sync state of the stored history of a coin in one currency.
+ * @param coveredFrom earliest time the stored history was fetched for
+ * @param syncedAt time the newest points were last fetched
+ */
+record PriceHistorySync(
+        Instant coveredFrom,
+        Instant syncedAt
+) {
+}
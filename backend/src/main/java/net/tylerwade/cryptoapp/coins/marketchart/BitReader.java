@@ -0,0 +1,32 @@
+package net.tylerwade.cryptoapp.coins.marketchart;
+
+/**
+ * Reads values written by {@link BitWriter} in the same order.
+ */
+final class BitReader {
+
+    private final long[] words;
+    private int position; // bits read
+
+    BitReader(long[] words) {
+        this.words = words;
+    }
+
+    long read(int bits) {
+        int index = position >>> 6;
+        int available = 64 - (position & 63);
+        long value;
+        if (bits <= available) {
+            value = (words[index] >>> (available - bits)) & BitWriter.mask(bits);
+        } else {
+            int rest = bits - available;
+            value = ((words[index] & BitWriter.mask(available)) << rest) | (words[index + 1] >>> (64 - rest));
+        }
+        position += bits;
+        return value;
+    }
+
+    boolean readBit() {
+        return read(1) == 1;
+    }
+}
@@ -0,0 +1,49 @@
+package net.tylerwade.cryptoapp.coins.marketchart;
+
+import java.util.Arrays;
+
+/**
+ * Appends values of 1 to 64 bits, most significant bit first, to a growing array of words.
+ */
+final class BitWriter {
+
+    private long[] words;
+    private int size; // bits written
+
+    BitWriter(int expectedBits) {
+        this.words = new long[Math.max(1, (expectedBits + 63) >>> 6)];
+    }
+
+    void write(long value, int bits) {
+        if (((size + bits + 63) >>> 6) > words.length) {
+            words = Arrays.copyOf(words, Math.max(words.length * 2, (size + bits + 63) >>> 6));
+        }
+        long masked = value & mask(bits);
+        int index = size >>> 6;
+        int free = 64 - (size & 63);
+        if (bits <= free) {
+            words[index] |= masked << (free - bits);
+        } else {
+            int rest = bits - free;
+            words[index] |= masked >>> rest;
+            words[index + 1] |= masked << (64 - rest);
+        }
+        size += bits;
+    }
+
+    void writeBit(boolean bit) {
+        write(bit ? 1 : 0, 1);
+    }
+
+    /**
+     * Written words trimmed to the bits used.
+     * @return words
+     */
+    long[] toWords() {
+        return Arrays.copyOf(words, (size + 63) >>> 6);
+    }
+
+    static long mask(int bits) {
+        return bits == 64 ? -1L : (1L << bits) - 1;
+    }
+}
@@ -0,0 +1,36 @@
+package net.tylerwade.cryptoapp.coins.marketchart;
+
+import net.tylerwade.cryptoapp.coins.cache.FallbackValue;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+
+/**
+ * Cached market chart together with the number of days it was fetched for.
+ * @param days days covered by the chart
+ * @param chart compact chart
+ * @param stale true if the chart is stored history served because its sync failed
+ */
+public record CachedMarketChart(
+        int days,
+        CompactMarketChart chart,
+        boolean stale
+) implements FallbackValue {
+
+    /**
+     * Whether a request can be served by slicing this chart.
+     * @param days requested number of days
+     * @return true if the chart covers at least the requested days
+     */
+    public boolean covers(int days) {
+        return this.days >= days;
+    }
+
+    @Override
+    public Duration staleAge() {
+        if (!stale) {
+            return null;
+        }
+        return chart.getCachedAt() == null ? Duration.ZERO : Duration.between(chart.getCachedAt(), LocalDateTime.now());
+    }
+}
@@ -0,0 +1,155 @@
+package net.tylerwade.cryptoapp.coins.marketchart;
+
+import com.github.benmanes.caffeine.cache.Interner;
+import lombok.Getter;
+
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compact form of a {@link MarketChart} kept in the cache. Timestamps are delta-of-delta encoded and
+ * interned, so the series of one chart and equal columns of other charts (e.g. the same coin in another
+ * currency, or coins sampled at the same days) share one column. Values are stored in the configured
+ * {@link ValueEncoding}.
+ */
+public final class CompactMarketChart {
+
+    private final Series prices;
+    private final Series marketCaps;
+    private final Series totalVolumes;
+    @Getter
+    private final LocalDateTime cachedAt;
+
+    private CompactMarketChart(Series prices, Series marketCaps, Series totalVolumes, LocalDateTime cachedAt) {
+        this.prices = prices;
+        this.marketCaps = marketCaps;
+        this.totalVolumes = totalVolumes;
+        this.cachedAt = cachedAt;
+    }
+
+    /**
+     * Encode a market chart.
+     * @param chart chart to encode
+     * @param encoding encoding of the value columns
+     * @param timestamps interner shared by all cached charts
+     * @return compact chart
+     */
+    static CompactMarketChart of(MarketChart chart, ValueEncoding encoding, Interner<TimestampColumn> timestamps) {
+        return new CompactMarketChart(
+                Series.encode(chart.getPrices(), encoding, timestamps),
+                Series.encode(chart.getMarket_caps(), encoding, timestamps),
+                Series.encode(chart.getTotal_volumes(), encoding, timestamps),
+                chart.getCachedAt()
+        );
+    }
+
+    /**
+     * Decode back into a market chart. Series sharing a timestamp column share the decoded timestamps.
+     * @return market chart
+     */
+    public MarketChart toMarketChart() {
+        Map<TimestampColumn, long[]> decoded = new IdentityHashMap<>(4);
+        return new MarketChart(
+                prices.decode(decoded),
+                marketCaps.decode(decoded),
+                totalVolumes.decode(decoded),
+                cachedAt
+        );
+    }
+
+    /**
+     * Number of stored points over all series.
+     * @return points
+     */
+    public int points() {
+        return prices.size() + marketCaps.size() + totalVolumes.size();
+    }
+
+    /**
+     * Number of price points.
+     * @return points of the price series
+     */
+    public int priceCount() {
+        return prices.size();
+    }
+
+    /**
+     * Number of price points {@link MarketChart#lastDays(int)} would keep. Only the price timestamps are
+     * decoded, the value columns are left untouched.
+     * @param days number of days back from the last price point
+     * @return points of the price series within the last days
+     */
+    public int priceCountInLastDays(int days) {
+        long[] timestamps = prices.timestamps().decode();
+        if (timestamps.length == 0) {
+            return 0;
+        }
+        long from = timestamps[timestamps.length - 1] - TimeUnit.DAYS.toMillis(days);
+        int index = Arrays.binarySearch(timestamps, from);
+        if (index < 0) {
+            index = -index - 1;
+        } else {
+            while (index > 0 && timestamps[index - 1] == from) {
+                index--;
+            }
+        }
+        return timestamps.length - index;
+    }
+
+    /**
+     * Estimated size of this chart including its timestamp columns, used as its cache weight.
+     * @return estimated size in bytes
+     */
+    public long sizeInBytes() {
+        return valueBytes() + timestampBytes(Collections.newSetFromMap(new IdentityHashMap<>(4)));
+    }
+
+    /**
+     * Bytes of the chart object and its value columns.
+     * @return estimated size in bytes
+     */
+    long valueBytes() {
+        return 64 + prices.values().sizeInBytes() + marketCaps.values().sizeInBytes() + totalVolumes.values().sizeInBytes();
+    }
+
+    /**
+     * Bytes of the timestamp columns not counted yet, adding them to the counted ones.
+     * @param counted timestamp columns already counted, by identity
+     * @return bytes of the newly counted columns
+     */
+    long timestampBytes(Set<TimestampColumn> counted) {
+        long bytes = 0;
+        for (Series series : List.of(prices, marketCaps, totalVolumes)) {
+            if (counted.add(series.timestamps())) {
+                bytes += series.timestamps().sizeInBytes();
+            }
+        }
+        return bytes;
+    }
+
+    private record Series(TimestampColumn timestamps, ValueColumn values) {
+
+        static Series encode(MarketSeries series, ValueEncoding encoding, Interner<TimestampColumn> interner) {
+            MarketSeries source = series == null ? MarketSeries.EMPTY : series;
+            return new Series(
+                    interner.intern(TimestampColumn.encode(source.timestamps())),
+                    ValueColumn.encode(source.values(), encoding)
+            );
+        }
+
+        MarketSeries decode(Map<TimestampColumn, long[]> decoded) {
+            long[] timestampArray = decoded.computeIfAbsent(timestamps, TimestampColumn::decode);
+            return new MarketSeries(timestampArray, values.decode());
+        }
+
+        int size() {
+            return timestamps.size();
+        }
+    }
+}
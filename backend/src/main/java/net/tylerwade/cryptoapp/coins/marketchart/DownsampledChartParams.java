@@ -0,0 +1,17 @@
+package net.tylerwade.cryptoapp.coins.marketchart;
+
+/**
+ * Cache key of a downsampled market chart.
+ * @param params chart the points are taken from
+ * @param points maximum number of points per series
+ */
+public record DownsampledChartParams(
+        GetMarketChartParams params,
+        int points
+) {
+
+    public static DownsampledChartParams of(GetMarketChartParams params, int points) {
+        return new DownsampledChartParams(
+                new GetMarketChartParams(params.id(), params.days(), params.vs_currency().toLowerCase()), points);
+    }
+}
@@ -0,0 +1,97 @@
+package net.tylerwade.cryptoapp.coins.marketchart;
+
+/**
+ * Largest-Triangle-Three-Buckets downsampling. Keeps the first and last point and from every bucket in
+ * between the point forming the largest triangle with the previously kept point and the average of the
+ * next bucket, which preserves peaks and the visual shape of the series. Missing (NaN) values are never
+ * picked while a bucket has a value.
+ */
+public final class Lttb {
+
+    private Lttb() {
+    }
+
+    /**
+     * Downsample every series of a chart independently.
+     * @param chart chart to downsample
+     * @param points maximum number of points per series, at least 3
+     * @return downsampled chart, series with at most the given points are kept as they are
+     */
+    public static MarketChart downsample(MarketChart chart, int points) {
+        MarketSeries prices = downsample(chart.getPrices(), points);
+        return new MarketChart(
+                prices,
+                downsample(chart.getMarket_caps(), points).shareTimestamps(prices),
+                downsample(chart.getTotal_volumes(), points).shareTimestamps(prices),
+                chart.getCachedAt()
+        );
+    }
+
+    /**
+     * Downsample a series.
+     * @param series series to downsample
+     * @param points maximum number of points, at least 3
+     * @return downsampled series, or the series itself if it has at most the given points
+     */
+    public static MarketSeries downsample(MarketSeries series, int points) {
+        int size = series == null ? 0 : series.size();
+        if (points < 3 || size <= points) {
+            return series == null ? MarketSeries.EMPTY : series;
+        }
+        long[] sampledTimestamps = new long[points];
+        double[] sampledValues = new double[points];
+
+        // Buckets between the fixed first and last point
+        double bucketSize = (double) (size - 2) / (points - 2);
+        int previous = 0;
+        long first = series.timestamp(0);
+        sampledTimestamps[0] = first;
+        sampledValues[0] = series.value(0);
+
+        for (int bucket = 0; bucket < points - 2; bucket++) {
+            int nextStart = (int) ((bucket + 1) * bucketSize) + 1;
+            int nextEnd = Math.min((int) ((bucket + 2) * bucketSize) + 1, size);
+            double averageX = 0;
+            double averageY = 0;
+            int count = 0;
+            for (int i = nextStart; i < nextEnd; i++) {
+                if (!Double.isNaN(series.value(i))) {
+                    averageX += series.timestamp(i) - first;
+                    averageY += series.value(i);
+                    count++;
+                }
+            }
+            if (count > 0) {
+                averageX /= count;
+                averageY /= count;
+            } else {
+                averageX = series.timestamp(nextStart) - first;
+                averageY = series.value(previous);
+            }
+
+            int start = (int) (bucket * bucketSize) + 1;
+            int end = (int) ((bucket + 1) * bucketSize) + 1;
+            double previousX = series.timestamp(previous) - first;
+            double previousY = series.value(previous);
+            double maxArea = -1;
+            int selected = start;
+            for (int i = start; i < end; i++) {
+                double area = Math.abs((previousX - averageX) * (series.value(i) - previousY)
+                        - (previousX - (series.timestamp(i) - first)) * (averageY - previousY));
+                // NaN areas never compare greater, so missing values are skipped
+                if (area > maxArea) {
+                    maxArea = area;
+                    selected = i;
+                }
+            }
+
+            sampledTimestamps[bucket + 1] = series.timestamp(selected);
+            sampledValues[bucket + 1] = series.value(selected);
+            previous = selected;
+        }
+
+        sampledTimestamps[points - 1] = series.timestamp(size - 1);
+        sampledValues[points - 1] = series.value(size - 1);
+        return new MarketSeries(sampledTimestamps, sampledValues);
+    }
+}
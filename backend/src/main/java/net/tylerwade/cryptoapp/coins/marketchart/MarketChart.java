@@ -1,20 +1,60 @@
 package net.tylerwade.cryptoapp.coins.marketchart;
 
+import com.fasterxml.jackson.databind.annotation.JsonDeserialize;
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 
 import java.time.LocalDateTime;
+import java.util.concurrent.TimeUnit;
 
+/**
+ * Market chart of a coin. The series are stored column wise and read and written by streaming
+ * (de)serializers in CoinGecko's {@code [[timestamp, value], ...]} shape, so no per point arrays are built.
+ */
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
 @Builder
+@JsonSerialize(using = MarketChartSerializer.class)
+@JsonDeserialize(using = MarketChartDeserializer.class)
 public class MarketChart {
 
-    private double[][] prices;
-    private double[][] market_caps;
-    private double[][] total_volumes;
+    private MarketSeries prices;
+    private MarketSeries market_caps;
+    private MarketSeries total_volumes;
     private LocalDateTime cachedAt;
-}
\ No newline at end of file
+
+    /**
+     * View of the last days of this chart, counted back from its latest price. The series share the
+     * columns of this chart, nothing is copied.
+     * @param days number of days
+     * @return chart holding only the points of the last days
+     */
+    public MarketChart lastDays(int days) {
+        if (prices == null || prices.size() == 0) {
+            return this;
+        }
+        long from = prices.timestamp(prices.size() - 1) - TimeUnit.DAYS.toMillis(days);
+        return new MarketChart(since(prices, from), since(market_caps, from), since(total_volumes, from), cachedAt);
+    }
+
+    /**
+     * Chart with every value multiplied by an exchange rate. All points are converted at the same rate.
+     * @param rate factor converting this chart's currency into the target currency
+     * @return converted chart
+     */
+    public MarketChart convert(double rate) {
+        return new MarketChart(scale(prices, rate), scale(market_caps, rate), scale(total_volumes, rate), cachedAt);
+    }
+
+    private static MarketSeries scale(MarketSeries series, double rate) {
+        return series == null ? null : series.scale(rate);
+    }
+
+    private static MarketSeries since(MarketSeries series, long fromTimestamp) {
+        return series == null ? null : series.since(fromTimestamp);
+    }
+}
@@ -0,0 +1,19 @@
+package net.tylerwade.cryptoapp.coins.marketchart;
+
+import java.time.LocalDateTime;
+
+/**
+ * Flat view of a market chart where every series is written as a {@code timestamps} and a {@code values}
+ * array instead of an array of points.
+ */
+public record MarketChartColumns(
+        MarketSeries prices,
+        MarketSeries market_caps,
+        MarketSeries total_volumes,
+        LocalDateTime cachedAt
+) {
+
+    public static MarketChartColumns of(MarketChart chart) {
+        return new MarketChartColumns(chart.getPrices(), chart.getMarket_caps(), chart.getTotal_volumes(), chart.getCachedAt());
+    }
+}
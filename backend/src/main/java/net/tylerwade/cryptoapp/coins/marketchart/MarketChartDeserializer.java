@@ -0,0 +1,91 @@
+package net.tylerwade.cryptoapp.coins.marketchart;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.DeserializationContext;
+import com.fasterxml.jackson.databind.JsonDeserializer;
+
+import java.io.IOException;
+import java.time.LocalDateTime;
+import java.util.Arrays;
+
+/**
+ * Streams a market chart payload straight into primitive columns. Each series is read point by point
+ * from its {@code [[timestamp, value], ...]} array into growing {@code long[]} / {@code double[]} buffers.
+ * Missing values are read as NaN and unknown fields are skipped.
+ */
+public class MarketChartDeserializer extends JsonDeserializer<MarketChart> {
+
+    private static final int INITIAL_CAPACITY = 256;
+
+    @Override
+    public MarketChart deserialize(JsonParser p, DeserializationContext ctxt) throws IOException {
+        if (!p.isExpectedStartObjectToken()) {
+            return (MarketChart) ctxt.handleUnexpectedToken(MarketChart.class, p);
+        }
+        MarketSeries prices = MarketSeries.EMPTY;
+        MarketSeries marketCaps = MarketSeries.EMPTY;
+        MarketSeries totalVolumes = MarketSeries.EMPTY;
+        LocalDateTime cachedAt = null;
+
+        for (String field = p.nextFieldName(); field != null; field = p.nextFieldName()) {
+            p.nextToken();
+            switch (field) {
+                case "prices" -> prices = readSeries(p, ctxt);
+                case "market_caps" -> marketCaps = readSeries(p, ctxt);
+                case "total_volumes" -> totalVolumes = readSeries(p, ctxt);
+                case "cachedAt" -> cachedAt = ctxt.readValue(p, LocalDateTime.class);
+                default -> p.skipChildren();
+            }
+        }
+
+        return new MarketChart(
+                prices,
+                marketCaps.shareTimestamps(prices),
+                totalVolumes.shareTimestamps(prices),
+                cachedAt
+        );
+    }
+
+    private static MarketSeries readSeries(JsonParser p, DeserializationContext ctxt) throws IOException {
+        if (p.currentToken() == JsonToken.VALUE_NULL) {
+            return MarketSeries.EMPTY;
+        }
+        if (p.currentToken() != JsonToken.START_ARRAY) {
+            return (MarketSeries) ctxt.handleUnexpectedToken(MarketSeries.class, p);
+        }
+
+        long[] timestamps = new long[INITIAL_CAPACITY];
+        double[] values = new double[INITIAL_CAPACITY];
+        int size = 0;
+        for (JsonToken token = p.nextToken(); token != JsonToken.END_ARRAY; token = p.nextToken()) {
+            if (token == null) {
+                throw ctxt.wrongTokenException(p, MarketSeries.class, JsonToken.END_ARRAY, "Unexpected end of market chart series");
+            }
+            if (token != JsonToken.START_ARRAY) {
+                p.skipChildren();
+                continue;
+            }
+            if (p.nextToken() == JsonToken.END_ARRAY) {
+                continue; // empty point
+            }
+            long timestamp = p.getValueAsLong();
+            JsonToken valueToken = p.nextToken();
+            double value = valueToken.isNumeric() ? p.getDoubleValue() : Double.NaN;
+            // Move past any further elements of the point
+            while (p.currentToken() != JsonToken.END_ARRAY) {
+                p.skipChildren();
+                p.nextToken();
+            }
+
+            if (size == timestamps.length) {
+                timestamps = Arrays.copyOf(timestamps, size * 2);
+                values = Arrays.copyOf(values, size * 2);
+            }
+            timestamps[size] = timestamp;
+            values[size] = value;
+            size++;
+        }
+        return new MarketSeries(Arrays.copyOf(timestamps, size), Arrays.copyOf(values, size));
+    }
+}
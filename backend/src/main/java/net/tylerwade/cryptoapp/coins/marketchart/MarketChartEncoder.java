@@ -0,0 +1,42 @@
+package net.tylerwade.cryptoapp.coins.marketchart;
+
+import com.github.benmanes.caffeine.cache.Interner;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.Set;
+
+/**
+ * Encodes market charts into their compact cached form. Equal timestamp columns of all charts encoded
+ * by one encoder are interned, weakly so columns go away with the last chart using them.
+ */
+public class MarketChartEncoder {
+
+    private final ValueEncoding encoding;
+    private final Interner<TimestampColumn> timestamps = Interner.newWeakInterner();
+
+    public MarketChartEncoder(ValueEncoding encoding) {
+        this.encoding = encoding;
+    }
+
+    public CompactMarketChart encode(MarketChart chart) {
+        return CompactMarketChart.of(chart, encoding, timestamps);
+    }
+
+    /**
+     * Memory statistics over the given charts, counting each shared timestamp column once.
+     * @param charts cached charts
+     * @return statistics
+     */
+    public MarketChartStats stats(Collection<CompactMarketChart> charts) {
+        Set<TimestampColumn> counted = Collections.newSetFromMap(new IdentityHashMap<>());
+        long points = 0;
+        long bytes = 0;
+        for (CompactMarketChart chart : charts) {
+            points += chart.points();
+            bytes += chart.valueBytes() + chart.timestampBytes(counted);
+        }
+        return new MarketChartStats(encoding, charts.size(), points, bytes, points == 0 ? 0 : (double) bytes / points);
+    }
+}
@@ -0,0 +1,15 @@
+package net.tylerwade.cryptoapp.coins.marketchart;
+
+/**
+ * Cache key of the canonical market chart of a coin in one currency. Requests for any number of days
+ * are served from the longest chart cached under this key.
+ */
+public record MarketChartKey(
+        String id,
+        String vs_currency
+) {
+
+    public static MarketChartKey of(GetMarketChartParams params) {
+        return new MarketChartKey(params.id(), params.vs_currency().toLowerCase());
+    }
+}
@@ -0,0 +1,32 @@
+package net.tylerwade.cryptoapp.coins.marketchart;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import lombok.RequiredArgsConstructor;
+import net.tylerwade.cryptoapp.coins.CoinService;
+import org.springframework.stereotype.Component;
+
+/**
+ * Publishes the memory use of the cached market charts, most importantly the bytes per point.
+ */
+@Component
+@RequiredArgsConstructor
+public class MarketChartMetrics implements MeterBinder {
+
+    private final CoinService coinService;
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        Gauge.builder("coins.market_chart.points", coinService, service -> service.marketChartStats().points())
+                .description("Points held by the cached market charts")
+                .register(registry);
+        Gauge.builder("coins.market_chart.memory", coinService, service -> service.marketChartStats().bytes())
+                .description("Estimated memory of the cached market charts")
+                .baseUnit("bytes")
+                .register(registry);
+        Gauge.builder("coins.market_chart.bytes_per_point", coinService, service -> service.marketChartStats().bytesPerPoint())
+                .description("Estimated bytes per cached market chart point")
+                .register(registry);
+    }
+}
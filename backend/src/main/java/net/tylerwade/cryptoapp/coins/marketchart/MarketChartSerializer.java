@@ -0,0 +1,43 @@
+package net.tylerwade.cryptoapp.coins.marketchart;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.JsonSerializer;
+import com.fasterxml.jackson.databind.SerializerProvider;
+
+import java.io.IOException;
+
+/**
+ * Writes a market chart in CoinGecko's {@code [[timestamp, value], ...]} shape directly from its
+ * primitive columns. Missing values are written as null.
+ */
+public class MarketChartSerializer extends JsonSerializer<MarketChart> {
+
+    @Override
+    public void serialize(MarketChart chart, JsonGenerator gen, SerializerProvider provider) throws IOException {
+        gen.writeStartObject();
+        writeSeries(gen, "prices", chart.getPrices());
+        writeSeries(gen, "market_caps", chart.getMarket_caps());
+        writeSeries(gen, "total_volumes", chart.getTotal_volumes());
+        provider.defaultSerializeField("cachedAt", chart.getCachedAt(), gen);
+        gen.writeEndObject();
+    }
+
+    private static void writeSeries(JsonGenerator gen, String name, MarketSeries series) throws IOException {
+        gen.writeFieldName(name);
+        gen.writeStartArray();
+        if (series != null) {
+            for (int i = 0; i < series.size(); i++) {
+                gen.writeStartArray();
+                gen.writeNumber(series.timestamp(i));
+                double value = series.value(i);
+                if (Double.isNaN(value)) {
+                    gen.writeNull();
+                } else {
+                    gen.writeNumber(value);
+                }
+                gen.writeEndArray();
+            }
+        }
+        gen.writeEndArray();
+    }
+}
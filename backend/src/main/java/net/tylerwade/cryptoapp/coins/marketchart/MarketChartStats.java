@@ -0,0 +1,18 @@
+package net.tylerwade.cryptoapp.coins.marketchart;
+
+/**
+ * Memory use of the cached market charts.
+ * @param encoding value encoding in use
+ * @param charts number of cached charts
+ * @param points timestamp/value points over all series
+ * @param bytes estimated bytes including shared timestamp columns once
+ * @param bytesPerPoint bytes divided by points
+ */
+public record MarketChartStats(
+        ValueEncoding encoding,
+        int charts,
+        long points,
+        long bytes,
+        double bytesPerPoint
+) {
+}
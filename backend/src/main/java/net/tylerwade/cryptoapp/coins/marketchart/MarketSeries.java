@@ -0,0 +1,119 @@
+package net.tylerwade.cryptoapp.coins.marketchart;
+
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
+
+import java.util.Arrays;
+
+/**
+ * One market chart series held as two flat primitive columns: timestamps in epoch millis and their values.
+ * A series may be a view over a range of larger columns (see {@link #since(long)}), in which case the
+ * columns are shared rather than copied. Instances are immutable, the arrays returned by the accessors
+ * must not be modified.
+ */
+@JsonSerialize(using = MarketSeriesSerializer.class)
+public final class MarketSeries {
+
+    public static final MarketSeries EMPTY = new MarketSeries(new long[0], new double[0]);
+
+    private final long[] timestamps;
+    private final double[] values;
+    private final int offset;
+    private final int size;
+
+    public MarketSeries(long[] timestamps, double[] values) {
+        this(timestamps, values, 0, timestamps.length);
+        if (timestamps.length != values.length) {
+            throw new IllegalArgumentException("Timestamps and values must have the same length.");
+        }
+    }
+
+    private MarketSeries(long[] timestamps, double[] values, int offset, int size) {
+        this.timestamps = timestamps;
+        this.values = values;
+        this.offset = offset;
+        this.size = size;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public long timestamp(int index) {
+        return timestamps[offset + index];
+    }
+
+    public double value(int index) {
+        return values[offset + index];
+    }
+
+    /**
+     * Timestamp column. Returned as is unless this series is a view over part of it.
+     * @return timestamps in epoch millis
+     */
+    public long[] timestamps() {
+        return isView() ? Arrays.copyOfRange(timestamps, offset, offset + size) : timestamps;
+    }
+
+    /**
+     * Value column. Returned as is unless this series is a view over part of it.
+     * @return values, NaN where missing
+     */
+    public double[] values() {
+        return isView() ? Arrays.copyOfRange(values, offset, offset + size) : values;
+    }
+
+    /**
+     * View of the points at or after a timestamp, sharing the columns of this series.
+     * Timestamps are expected in ascending order, as CoinGecko returns them.
+     * @param fromTimestamp first timestamp to include, in epoch millis
+     * @return view of the trailing points, or this series if it starts at or after the timestamp
+     */
+    public MarketSeries since(long fromTimestamp) {
+        int from = Arrays.binarySearch(timestamps, offset, offset + size, fromTimestamp);
+        if (from < 0) {
+            from = -from - 1;
+        } else {
+            // Step back over equal timestamps so the first of them is included
+            while (from > offset && timestamps[from - 1] == fromTimestamp) {
+                from--;
+            }
+        }
+        if (from == offset) {
+            return this;
+        }
+        return new MarketSeries(timestamps, values, from, offset + size - from);
+    }
+
+    /**
+     * Series with every value multiplied by a factor, e.g. an exchange rate.
+     * @param factor multiplier
+     * @return new series holding the scaled values
+     */
+    public MarketSeries scale(double factor) {
+        double[] scaled = new double[size];
+        for (int i = 0; i < size; i++) {
+            scaled[i] = values[offset + i] * factor;
+        }
+        return new MarketSeries(timestamps(), scaled);
+    }
+
+    private boolean isView() {
+        return offset != 0 || size != timestamps.length;
+    }
+
+    /**
+     * Reuse the timestamp column of another series when both hold the same timestamps,
+     * which is the common case for the series of one CoinGecko chart.
+     * @param other series whose timestamps may be shared
+     * @return this series backed by the other series' timestamps, or this series unchanged
+     */
+    MarketSeries shareTimestamps(MarketSeries other) {
+        if (isView() || other.isView()) {
+            return this;
+        }
+        if (other.timestamps != timestamps && Arrays.equals(other.timestamps, timestamps)) {
+            return new MarketSeries(other.timestamps, values);
+        }
+        return this;
+    }
+}
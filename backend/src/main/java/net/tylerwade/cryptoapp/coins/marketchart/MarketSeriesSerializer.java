@@ -0,0 +1,37 @@
+package net.tylerwade.cryptoapp.coins.marketchart;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.JsonSerializer;
+import com.fasterxml.jackson.databind.SerializerProvider;
+
+import java.io.IOException;
+
+/**
+ * Writes a market series as a {@code timestamps} and a {@code values} array directly from its primitive
+ * columns. Missing values are written as null, as in {@link MarketChartSerializer}.
+ */
+public class MarketSeriesSerializer extends JsonSerializer<MarketSeries> {
+
+    @Override
+    public void serialize(MarketSeries series, JsonGenerator gen, SerializerProvider provider) throws IOException {
+        gen.writeStartObject();
+        gen.writeFieldName("timestamps");
+        gen.writeStartArray();
+        for (int i = 0; i < series.size(); i++) {
+            gen.writeNumber(series.timestamp(i));
+        }
+        gen.writeEndArray();
+        gen.writeFieldName("values");
+        gen.writeStartArray();
+        for (int i = 0; i < series.size(); i++) {
+            double value = series.value(i);
+            if (Double.isNaN(value)) {
+                gen.writeNull();
+            } else {
+                gen.writeNumber(value);
+            }
+        }
+        gen.writeEndArray();
+        gen.writeEndObject();
+    }
+}
@@ -0,0 +1,120 @@
+package net.tylerwade.cryptoapp.coins.marketchart;
+
+import java.util.Arrays;
+
+/**
+ * Timestamp column compressed with delta-of-delta encoding. The first timestamp and the first delta
+ * are stored in full, every following delta as its difference to the previous delta in a variable
+ * width bucket, so evenly spaced points (e.g. CoinGecko's daily points) take a single bit each.
+ * Columns are equal by content so identical columns can be interned and shared between charts.
+ */
+final class TimestampColumn {
+
+    private final long[] words;
+    private final int size;
+    private final int hash;
+
+    private TimestampColumn(long[] words, int size) {
+        this.words = words;
+        this.size = size;
+        this.hash = 31 * Arrays.hashCode(words) + size;
+    }
+
+    static TimestampColumn encode(long[] timestamps) {
+        BitWriter writer = new BitWriter(timestamps.length * 2 + 128);
+        long previous = 0;
+        long previousDelta = 0;
+        for (int i = 0; i < timestamps.length; i++) {
+            long timestamp = timestamps[i];
+            if (i == 0) {
+                writer.write(timestamp, 64);
+            } else if (i == 1) {
+                previousDelta = timestamp - previous;
+                writer.write(previousDelta, 64);
+            } else {
+                long delta = timestamp - previous;
+                writeDeltaOfDelta(writer, delta - previousDelta);
+                previousDelta = delta;
+            }
+            previous = timestamp;
+        }
+        return new TimestampColumn(writer.toWords(), timestamps.length);
+    }
+
+    private static void writeDeltaOfDelta(BitWriter writer, long deltaOfDelta) {
+        if (deltaOfDelta == 0) {
+            writer.write(0b0, 1);
+        } else if (deltaOfDelta >= -64 && deltaOfDelta <= 63) {
+            writer.write(0b10, 2);
+            writer.write(deltaOfDelta, 7);
+        } else if (deltaOfDelta >= -256 && deltaOfDelta <= 255) {
+            writer.write(0b110, 3);
+            writer.write(deltaOfDelta, 9);
+        } else if (deltaOfDelta >= -2048 && deltaOfDelta <= 2047) {
+            writer.write(0b1110, 4);
+            writer.write(deltaOfDelta, 12);
+        } else {
+            writer.write(0b1111, 4);
+            writer.write(deltaOfDelta, 64);
+        }
+    }
+
+    long[] decode() {
+        long[] timestamps = new long[size];
+        BitReader reader = new BitReader(words);
+        long delta = 0;
+        for (int i = 0; i < size; i++) {
+            if (i == 0) {
+                timestamps[i] = reader.read(64);
+                continue;
+            }
+            if (i == 1) {
+                delta = reader.read(64);
+            } else {
+                delta += readDeltaOfDelta(reader);
+            }
+            timestamps[i] = timestamps[i - 1] + delta;
+        }
+        return timestamps;
+    }
+
+    private static long readDeltaOfDelta(BitReader reader) {
+        if (!reader.readBit()) {
+            return 0;
+        }
+        if (!reader.readBit()) {
+            return signExtend(reader.read(7), 7);
+        }
+        if (!reader.readBit()) {
+            return signExtend(reader.read(9), 9);
+        }
+        if (!reader.readBit()) {
+            return signExtend(reader.read(12), 12);
+        }
+        return reader.read(64);
+    }
+
+    private static long signExtend(long value, int bits) {
+        int shift = 64 - bits;
+        return (value << shift) >> shift;
+    }
+
+    int size() {
+        return size;
+    }
+
+    long sizeInBytes() {
+        return 16 + 16 + (long) words.length * Long.BYTES; // object and array headers plus the words
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        return this == o || o instanceof TimestampColumn other
+                && size == other.size && hash == other.hash && Arrays.equals(words, other.words);
+    }
+
+    @Override
+    public int hashCode() {
+        return hash;
+    }
+}
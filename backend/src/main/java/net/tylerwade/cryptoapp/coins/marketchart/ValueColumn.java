@@ -0,0 +1,127 @@
+package net.tylerwade.cryptoapp.coins.marketchart;
+
+/**
+ * Value column of a compact market series in one of the {@link ValueEncoding}s.
+ */
+sealed interface ValueColumn {
+
+    static ValueColumn encode(double[] values, ValueEncoding encoding) {
+        return switch (encoding) {
+            case DOUBLE -> new Doubles(values);
+            case FLOAT -> Floats.encode(values);
+            case XOR -> Xor.encode(values);
+        };
+    }
+
+    double[] decode();
+
+    long sizeInBytes();
+
+    record Doubles(double[] values) implements ValueColumn {
+        @Override
+        public double[] decode() {
+            return values.clone();
+        }
+
+        @Override
+        public long sizeInBytes() {
+            return 16 + 16 + (long) values.length * Double.BYTES;
+        }
+    }
+
+    record Floats(float[] values) implements ValueColumn {
+        static Floats encode(double[] values) {
+            float[] floats = new float[values.length];
+            for (int i = 0; i < values.length; i++) {
+                floats[i] = (float) values[i];
+            }
+            return new Floats(floats);
+        }
+
+        @Override
+        public double[] decode() {
+            double[] doubles = new double[values.length];
+            for (int i = 0; i < values.length; i++) {
+                doubles[i] = values[i];
+            }
+            return doubles;
+        }
+
+        @Override
+        public long sizeInBytes() {
+            return 16 + 16 + (long) values.length * Float.BYTES;
+        }
+    }
+
+    /**
+     * Each value is XORed with the previous one. An unchanged value takes one bit, otherwise only the
+     * meaningful bits between the leading and trailing zeros of the XOR are stored, reusing the previous
+     * window when they fit in it.
+     */
+    record Xor(long[] words, int size) implements ValueColumn {
+        static Xor encode(double[] values) {
+            BitWriter writer = new BitWriter(values.length * 32 + 64);
+            long previous = 0;
+            int previousLeading = Integer.MAX_VALUE;
+            int previousTrailing = 0;
+            for (int i = 0; i < values.length; i++) {
+                long bits = Double.doubleToRawLongBits(values[i]);
+                if (i == 0) {
+                    writer.write(bits, 64);
+                    previous = bits;
+                    continue;
+                }
+                long xor = bits ^ previous;
+                previous = bits;
+                if (xor == 0) {
+                    writer.writeBit(false);
+                    continue;
+                }
+                writer.writeBit(true);
+                int leading = Math.min(Long.numberOfLeadingZeros(xor), 31);
+                int trailing = Long.numberOfTrailingZeros(xor);
+                if (leading >= previousLeading && trailing >= previousTrailing) {
+                    writer.writeBit(false);
+                    writer.write(xor >>> previousTrailing, 64 - previousLeading - previousTrailing);
+                } else {
+                    int meaningful = 64 - leading - trailing;
+                    writer.writeBit(true);
+                    writer.write(leading, 5);
+                    writer.write(meaningful - 1, 6);
+                    writer.write(xor >>> trailing, meaningful);
+                    previousLeading = leading;
+                    previousTrailing = trailing;
+                }
+            }
+            return new Xor(writer.toWords(), values.length);
+        }
+
+        @Override
+        public double[] decode() {
+            double[] values = new double[size];
+            BitReader reader = new BitReader(words);
+            long previous = 0;
+            int leading = 0;
+            int trailing = 0;
+            for (int i = 0; i < size; i++) {
+                if (i == 0) {
+                    previous = reader.read(64);
+                } else if (reader.readBit()) {
+                    if (reader.readBit()) {
+                        leading = (int) reader.read(5);
+                        int meaningful = (int) reader.read(6) + 1;
+                        trailing = 64 - leading - meaningful;
+                    }
+                    previous ^= reader.read(64 - leading - trailing) << trailing;
+                }
+                values[i] = Double.longBitsToDouble(previous);
+            }
+            return values;
+        }
+
+        @Override
+        public long sizeInBytes() {
+            return 16 + 16 + (long) words.length * Long.BYTES;
+        }
+    }
+}
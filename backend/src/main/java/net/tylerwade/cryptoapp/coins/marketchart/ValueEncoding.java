@@ -0,0 +1,13 @@
+package net.tylerwade.cryptoapp.coins.marketchart;
+
+/**
+ * How the value columns of cached market charts are stored.
+ */
+public enum ValueEncoding {
+    /** Plain doubles, 8 bytes per value. */
+    DOUBLE,
+    /** Floats, 4 bytes per value with about 7 significant digits. */
+    FLOAT,
+    /** Lossless XOR compression of consecutive doubles (Gorilla), small for slowly changing values. */
+    XOR
+}
@@ -0,0 +1,17 @@
+package net.tylerwade.cryptoapp.coins.query;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Entry of CoinGecko's full coin list.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class CoinListEntry {
+    private String id;
+    private String symbol;
+    private String name;
+}
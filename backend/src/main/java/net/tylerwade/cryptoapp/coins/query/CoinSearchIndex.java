@@ -0,0 +1,211 @@
+package net.tylerwade.cryptoapp.coins.query;
+
+import lombok.Getter;
+import net.tylerwade.cryptoapp.coins.coinpage.Coin;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static net.tylerwade.cryptoapp.coins.query.SearchTerms.normalize;
+
+/**
+ * Immutable in-memory search index over the full coin list. Coins are stored column wise in
+ * market cap rank order, so a lower entry index means a higher ranked coin. Prefix matches come from
+ * a sorted array of terms (id, symbol, name and each word of the name) searched by binary search,
+ * substring matches from trigram posting lists that are intersected and then verified.
+ * Results are ranked exact match first, then prefix match, then substring match, and by market
+ * cap rank within each group.
+ */
+public final class CoinSearchIndex {
+
+    private static final int EXACT = 0;
+    private static final int PREFIX = 1;
+    private static final int SUBSTRING = 2;
+    private static final int GRAM = 3;
+    private static final char SEPARATOR = '\u0000';
+
+    @Getter
+    private final LocalDateTime builtAt;
+    private final String[] ids;
+    private final String[] symbols;
+    private final String[] names;
+    private final int[] ranks;
+    private final String[] images;
+    private final String[] thumbs;
+    private final String[] haystacks; // lower case id, name and symbol of an entry
+    private final String[] terms;     // sorted
+    private final int[] termEntries;  // entry of each term
+    private final Map<Long, int[]> trigrams;
+
+    private CoinSearchIndex(List<SearchCoin> coins, LocalDateTime builtAt) {
+        this.builtAt = builtAt;
+        int size = coins.size();
+        this.ids = new String[size];
+        this.symbols = new String[size];
+        this.names = new String[size];
+        this.ranks = new int[size];
+        this.images = new String[size];
+        this.thumbs = new String[size];
+        this.haystacks = new String[size];
+
+        Map<Long, IntList> postings = new HashMap<>();
+        for (int entry = 0; entry < size; entry++) {
+            SearchCoin coin = coins.get(entry);
+            ids[entry] = coin.getId();
+            symbols[entry] = coin.getApi_symbol();
+            names[entry] = coin.getName();
+            ranks[entry] = coin.getMarket_cap_rank();
+            images[entry] = coin.getLarge();
+            thumbs[entry] = coin.getThumb();
+
+            String haystack = normalize(coin.getId()) + SEPARATOR + normalize(coin.getName()) + SEPARATOR + normalize(coin.getApi_symbol());
+            haystacks[entry] = haystack;
+            for (int i = 0; i + GRAM <= haystack.length(); i++) {
+                IntList posting = postings.computeIfAbsent(gram(haystack, i), key -> new IntList());
+                // A gram can repeat within one haystack, entries are added in order so checking the last is enough
+                if (posting.last() != entry) {
+                    posting.add(entry);
+                }
+            }
+        }
+
+        SearchTerms.Term[] sortedTerms = SearchTerms.sortedTerms(coins);
+        this.terms = new String[sortedTerms.length];
+        this.termEntries = new int[sortedTerms.length];
+        for (int i = 0; i < sortedTerms.length; i++) {
+            terms[i] = sortedTerms[i].text();
+            termEntries[i] = sortedTerms[i].entry();
+        }
+
+        this.trigrams = HashMap.newHashMap(postings.size());
+        postings.forEach((gram, posting) -> trigrams.put(gram, posting.toArray()));
+    }
+
+    /**
+     * Build an index from the full coin list, taking rank and image from the market coins where known.
+     * @param coinList full coin list
+     * @param marketCoins ranked market coins, may be empty
+     * @param builtAt time the coin list was fetched
+     * @return new index
+     */
+    public static CoinSearchIndex of(Collection<CoinListEntry> coinList, Collection<Coin> marketCoins, LocalDateTime builtAt) {
+        return of(SearchTerms.rankedCoins(coinList, marketCoins), builtAt);
+    }
+
+    /**
+     * Build an index from coins already in rank order.
+     * @param rankedCoins coins, best ranked first
+     * @param builtAt time the coin list was fetched
+     * @return new index
+     */
+    static CoinSearchIndex of(List<SearchCoin> rankedCoins, LocalDateTime builtAt) {
+        return new CoinSearchIndex(rankedCoins, builtAt);
+    }
+
+    public int size() {
+        return ids.length;
+    }
+
+    /**
+     * Search coins by id, symbol or name.
+     * @param query search input
+     * @param limit maximum number of coins
+     * @return matching coins, best match first
+     */
+    public SearchResult search(String query, int limit) {
+        String q = normalize(query);
+        if (q.isEmpty() || limit <= 0) {
+            return new SearchResult(new SearchCoin[0], builtAt);
+        }
+
+        // One bucket per match kind, each filled in entry order and therefore in rank order
+        BitSet[] matches = {new BitSet(), new BitSet(), new BitSet()};
+        BitSet matched = new BitSet();
+
+        for (int i = lowerBound(q); i < terms.length && terms[i].startsWith(q); i++) {
+            int entry = termEntries[i];
+            if (!matched.get(entry)) {
+                matched.set(entry);
+                matches[isExact(entry, q) ? EXACT : PREFIX].set(entry);
+            }
+        }
+
+        if (q.length() >= GRAM) {
+            for (int entry : candidates(q)) {
+                if (!matched.get(entry) && haystacks[entry].contains(q)) {
+                    matched.set(entry);
+                    matches[SUBSTRING].set(entry);
+                }
+            }
+        }
+
+        List<SearchCoin> result = new ArrayList<>(Math.min(limit, matched.cardinality()));
+        for (BitSet bucket : matches) {
+            for (int entry = bucket.nextSetBit(0); entry >= 0 && result.size() < limit; entry = bucket.nextSetBit(entry + 1)) {
+                result.add(coin(entry));
+            }
+        }
+        return new SearchResult(result.toArray(SearchCoin[]::new), builtAt);
+    }
+
+    private SearchCoin coin(int entry) {
+        return new SearchCoin(ids[entry], names[entry], symbols[entry], ranks[entry], thumbs[entry], images[entry]);
+    }
+
+    private boolean isExact(int entry, String q) {
+        return q.equals(normalize(ids[entry])) || q.equals(normalize(symbols[entry])) || q.equals(normalize(names[entry]));
+    }
+
+    /**
+     * Entries containing every trigram of the query, a superset of the entries containing the query.
+     */
+    private int[] candidates(String q) {
+        int[][] lists = new int[q.length() - GRAM + 1][];
+        for (int i = 0; i < lists.length; i++) {
+            int[] posting = trigrams.get(gram(q, i));
+            if (posting == null) {
+                return new int[0];
+            }
+            lists[i] = posting;
+        }
+        Arrays.sort(lists, Comparator.comparingInt(list -> list.length));
+
+        int[] result = new int[lists[0].length];
+        int count = 0;
+        outer:
+        for (int entry : lists[0]) {
+            for (int i = 1; i < lists.length; i++) {
+                if (Arrays.binarySearch(lists[i], entry) < 0) {
+                    continue outer;
+                }
+            }
+            result[count++] = entry;
+        }
+        return Arrays.copyOf(result, count);
+    }
+
+    private int lowerBound(String q) {
+        int low = 0;
+        int high = terms.length;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (terms[mid].compareTo(q) < 0) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    private static long gram(String text, int from) {
+        return ((long) text.charAt(from) << 32) | ((long) text.charAt(from + 1) << 16) | text.charAt(from + 2);
+    }
+}
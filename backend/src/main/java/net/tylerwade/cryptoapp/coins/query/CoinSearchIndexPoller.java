@@ -0,0 +1,77 @@
+package net.tylerwade.cryptoapp.coins.query;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import net.tylerwade.cryptoapp.coins.CoinService;
+import net.tylerwade.cryptoapp.coins.snapshot.MarketSnapshot;
+import net.tylerwade.cryptoapp.coins.snapshot.MarketSnapshotStore;
+import net.tylerwade.cryptoapp.config.CryptoAppProperties;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Keeps the {@link CoinSearchIndex} and {@link CoinSuggestIndex} current. The full coin list is fetched
+ * with one upstream call every list refresh interval, and the indexes are rebuilt whenever the list or
+ * the market snapshot supplying ranks and images changed.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class CoinSearchIndexPoller {
+
+    private final CoinService coinService;
+    private final CoinSearchIndexStore coinSearchIndexStore;
+    private final MarketSnapshotStore marketSnapshotStore;
+    private final CryptoAppProperties cryptoAppProperties;
+
+    private List<CoinListEntry> coinList;
+    private LocalDateTime coinListFetchedAt;
+    private MarketSnapshot indexedSnapshot;
+
+    @Scheduled(fixedDelayString = "${cryptoapp.search-index.interval:2m}")
+    public synchronized void poll() {
+        CryptoAppProperties.SearchIndex settings = cryptoAppProperties.getSearchIndex();
+        if (!settings.isEnabled()) {
+            return;
+        }
+
+        boolean listChanged = false;
+        if (coinList == null || coinListFetchedAt.isBefore(LocalDateTime.now().minus(settings.getListRefresh()))) {
+            try {
+                coinList = Arrays.asList(coinService.fetchCoinList());
+                coinListFetchedAt = LocalDateTime.now();
+                listChanged = true;
+            } catch (RuntimeException e) {
+                // Keep the previous index, searches fall back to CoinGecko while there is none
+                log.warn("Failed to refresh coin list for the search index: {}", e.getMessage());
+            }
+        }
+        if (coinList == null) {
+            return;
+        }
+
+        MarketSnapshot snapshot = latestSnapshot();
+        if (listChanged || snapshot != indexedSnapshot) {
+            List<SearchCoin> rankedCoins = SearchTerms.rankedCoins(coinList, snapshot == null ? List.of() : snapshot.coins());
+            CoinSuggestIndex suggestIndex = CoinSuggestIndex.of(rankedCoins, settings.getSuggestTopK(), settings.getSuggestMaxDepth(), coinListFetchedAt);
+            coinSearchIndexStore.put(CoinSearchIndex.of(rankedCoins, coinListFetchedAt), suggestIndex);
+            indexedSnapshot = snapshot;
+            log.debug("Rebuilt coin search indexes with {} coins, suggest trie has {} nodes using {} bytes",
+                    rankedCoins.size(), suggestIndex.nodeCount(), suggestIndex.memoryBytes());
+        }
+    }
+
+    private MarketSnapshot latestSnapshot() {
+        for (String vsCurrency : cryptoAppProperties.getMarketSnapshot().getCurrencies()) {
+            MarketSnapshot snapshot = marketSnapshotStore.latest(vsCurrency);
+            if (snapshot != null) {
+                return snapshot;
+            }
+        }
+        return null;
+    }
+}
@@ -0,0 +1,57 @@
+package net.tylerwade.cryptoapp.coins.query;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.stereotype.Component;
+
+/**
+ * Holds the current coin search and suggest indexes. Both are replaced as a whole when they are rebuilt.
+ * Their sizes and the memory of the suggest trie are published as metrics.
+ */
+@Component
+public class CoinSearchIndexStore implements MeterBinder {
+
+    private volatile CoinSearchIndex index;
+    private volatile CoinSuggestIndex suggestIndex;
+
+    /**
+     * Current search index.
+     * @return index or null if none was built yet
+     */
+    public CoinSearchIndex get() {
+        return index;
+    }
+
+    /**
+     * Current suggest index.
+     * @return index or null if none was built yet
+     */
+    public CoinSuggestIndex getSuggestIndex() {
+        return suggestIndex;
+    }
+
+    /**
+     * Replace the current indexes.
+     * @param index new search index
+     * @param suggestIndex new suggest index
+     */
+    public void put(CoinSearchIndex index, CoinSuggestIndex suggestIndex) {
+        this.index = index;
+        this.suggestIndex = suggestIndex;
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        Gauge.builder("coins.search.index.coins", this, store -> store.index == null ? 0 : store.index.size())
+                .description("Coins in the search index")
+                .register(registry);
+        Gauge.builder("coins.suggest.index.nodes", this, store -> store.suggestIndex == null ? 0 : store.suggestIndex.nodeCount())
+                .description("Nodes of the suggest trie")
+                .register(registry);
+        Gauge.builder("coins.suggest.index.memory", this, store -> store.suggestIndex == null ? 0 : store.suggestIndex.memoryBytes())
+                .description("Estimated memory of the suggest trie")
+                .baseUnit("bytes")
+                .register(registry);
+    }
+}
@@ -0,0 +1,249 @@
+package net.tylerwade.cryptoapp.coins.query;
+
+import lombok.Getter;
+
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.List;
+
+import static net.tylerwade.cryptoapp.coins.query.SearchTerms.normalize;
+
+/**
+ * Immutable prefix trie for typeahead suggestions that stores the top k coins of every node,
+ * so a lookup walks the prefix and returns the precomputed list without visiting the matches.
+ * <p>
+ * Coins are numbered in market cap rank order, so the top k of a node are simply its k smallest
+ * coin numbers. Memory stays bounded because a node is only expanded into children while more than
+ * k coins share its prefix and the trie is cut off at a maximum depth. Longer prefixes ending
+ * below such a leaf are answered by filtering its at most k coins. The trie is stored flat in
+ * primitive arrays: per node the range of its edges and of its top k list.
+ */
+public final class CoinSuggestIndex {
+
+    private static final int ROOT = 0;
+
+    @Getter
+    private final LocalDateTime builtAt;
+    @Getter
+    private final int topK;
+    private final SearchCoin[] coins;
+    private final int[] edgeStart;
+    private final int[] edgeCount;
+    private final char[] edgeLabels;
+    private final int[] edgeTargets;
+    private final int[] topStart;
+    private final int[] topCount;
+    private final int[] top;
+
+    private CoinSuggestIndex(List<SearchCoin> rankedCoins, int topK, int maxDepth, LocalDateTime builtAt) {
+        this.builtAt = builtAt;
+        this.topK = topK;
+        this.coins = rankedCoins.toArray(SearchCoin[]::new);
+
+        Builder builder = new Builder(SearchTerms.sortedTerms(rankedCoins), topK, maxDepth);
+        builder.build(0, builder.terms.length, 0);
+        this.edgeStart = builder.edgeStart.toArray();
+        this.edgeCount = builder.edgeCount.toArray();
+        this.edgeTargets = builder.edgeTargets.toArray();
+        this.edgeLabels = new char[edgeTargets.length];
+        for (int i = 0; i < edgeLabels.length; i++) {
+            edgeLabels[i] = (char) builder.edgeLabels.get(i);
+        }
+        this.topStart = builder.topStart.toArray();
+        this.topCount = builder.topCount.toArray();
+        this.top = builder.top.toArray();
+    }
+
+    /**
+     * Build a suggest index from coins in rank order.
+     * @param rankedCoins coins, best ranked first
+     * @param topK number of coins kept per prefix
+     * @param maxDepth longest prefix with its own node
+     * @param builtAt time the coin list was fetched
+     * @return new index
+     */
+    static CoinSuggestIndex of(List<SearchCoin> rankedCoins, int topK, int maxDepth, LocalDateTime builtAt) {
+        return new CoinSuggestIndex(rankedCoins, Math.max(1, topK), Math.max(1, maxDepth), builtAt);
+    }
+
+    /**
+     * Best ranked coins with an id, symbol, name or name word starting with the prefix.
+     * @param prefix typed prefix
+     * @param limit maximum number of coins, at most the top k of the index
+     * @return matching coins in market cap rank order
+     */
+    public SearchResult suggest(String prefix, int limit) {
+        String p = normalize(prefix);
+        if (p.isEmpty() || limit <= 0) {
+            return new SearchResult(new SearchCoin[0], builtAt);
+        }
+
+        int node = ROOT;
+        for (int depth = 0; depth < p.length(); depth++) {
+            if (edgeCount[node] == 0) {
+                return filter(node, p, limit);
+            }
+            int edge = findEdge(node, p.charAt(depth));
+            if (edge < 0) {
+                return new SearchResult(new SearchCoin[0], builtAt);
+            }
+            node = edgeTargets[edge];
+        }
+
+        int count = Math.min(limit, topCount[node]);
+        SearchCoin[] result = new SearchCoin[count];
+        for (int i = 0; i < count; i++) {
+            result[i] = coins[top[topStart[node] + i]];
+        }
+        return new SearchResult(result, builtAt);
+    }
+
+    public int nodeCount() {
+        return topStart.length;
+    }
+
+    /**
+     * Memory held by the trie arrays, not counting the coins themselves which are shared with the search index.
+     * @return estimated size in bytes
+     */
+    public long memoryBytes() {
+        long ints = (long) edgeStart.length + edgeCount.length + edgeTargets.length
+                + topStart.length + topCount.length + top.length;
+        long arrayHeaders = 7L * 16;
+        return ints * Integer.BYTES + (long) edgeLabels.length * Character.BYTES
+                + (long) coins.length * 4 + arrayHeaders;
+    }
+
+    private SearchResult filter(int node, String prefix, int limit) {
+        SearchCoin[] result = new SearchCoin[Math.min(limit, topCount[node])];
+        int count = 0;
+        for (int i = topStart[node]; i < topStart[node] + topCount[node] && count < result.length; i++) {
+            SearchCoin coin = coins[top[i]];
+            if (SearchTerms.matchesPrefix(coin, prefix)) {
+                result[count++] = coin;
+            }
+        }
+        return new SearchResult(Arrays.copyOf(result, count), builtAt);
+    }
+
+    private int findEdge(int node, char label) {
+        int low = edgeStart[node];
+        int high = low + edgeCount[node] - 1;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            char midLabel = edgeLabels[mid];
+            if (midLabel < label) {
+                low = mid + 1;
+            } else if (midLabel > label) {
+                high = mid - 1;
+            } else {
+                return mid;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Builds the flat trie from the sorted terms. The terms sharing a prefix form a contiguous range,
+     * so every node is built from the range of its prefix split by the next character.
+     */
+    private static final class Builder {
+        private final SearchTerms.Term[] terms;
+        private final int topK;
+        private final int maxDepth;
+
+        private final IntList edgeStart = new IntList();
+        private final IntList edgeCount = new IntList();
+        private final IntList edgeLabels = new IntList();
+        private final IntList edgeTargets = new IntList();
+        private final IntList topStart = new IntList();
+        private final IntList topCount = new IntList();
+        private final IntList top = new IntList();
+
+        private Builder(SearchTerms.Term[] terms, int topK, int maxDepth) {
+            this.terms = terms;
+            this.topK = topK;
+            this.maxDepth = maxDepth;
+        }
+
+        /**
+         * Build the node of the terms in [from, to) that share their first depth characters.
+         * @return node number
+         */
+        private int build(int from, int to, int depth) {
+            int node = topStart.size();
+            // One more than k coins are collected to tell whether the node holds all of its matches
+            int[] best = new int[topK + 1];
+            int distinct = 0;
+            for (int i = from; i < to; i++) {
+                distinct = insert(best, distinct, terms[i].entry());
+            }
+            topStart.add(top.size());
+            topCount.add(Math.min(distinct, topK));
+            for (int i = 0; i < Math.min(distinct, topK); i++) {
+                top.add(best[i]);
+            }
+            edgeStart.add(edgeTargets.size());
+            edgeCount.add(0);
+
+            boolean leaf = depth > 0 && (distinct <= topK || depth >= maxDepth);
+            if (leaf) {
+                return node;
+            }
+
+            // Terms ending at this depth sort first, the rest is grouped by their next character
+            int start = from;
+            while (start < to && terms[start].text().length() == depth) {
+                start++;
+            }
+            int groups = 0;
+            for (int i = start; i < to; i++) {
+                if (i == start || terms[i].text().charAt(depth) != terms[i - 1].text().charAt(depth)) {
+                    groups++;
+                }
+            }
+            int firstEdge = edgeTargets.size();
+            for (int i = 0; i < groups; i++) {
+                edgeLabels.add(0);
+                edgeTargets.add(0);
+            }
+            edgeCount.set(node, groups);
+
+            int edge = firstEdge;
+            int groupFrom = start;
+            while (groupFrom < to) {
+                char label = terms[groupFrom].text().charAt(depth);
+                int groupTo = groupFrom + 1;
+                while (groupTo < to && terms[groupTo].text().charAt(depth) == label) {
+                    groupTo++;
+                }
+                edgeLabels.set(edge, label);
+                edgeTargets.set(edge, build(groupFrom, groupTo, depth + 1));
+                edge++;
+                groupFrom = groupTo;
+            }
+            return node;
+        }
+
+        /**
+         * Insert a coin number into the ascending array of the smallest distinct ones.
+         * @return new number of coins in the array
+         */
+        private static int insert(int[] best, int size, int entry) {
+            if (size == best.length && entry >= best[size - 1]) {
+                return size;
+            }
+            int position = 0;
+            while (position < size && best[position] < entry) {
+                position++;
+            }
+            if (position < size && best[position] == entry) {
+                return size;
+            }
+            int newSize = Math.min(size + 1, best.length);
+            System.arraycopy(best, position, best, position + 1, newSize - position - 1);
+            best[position] = entry;
+            return newSize;
+        }
+    }
+}
@@ -0,0 +1,104 @@
+package net.tylerwade.cryptoapp.coins.query;
+
+import net.tylerwade.cryptoapp.coins.coinpage.Coin;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Normalization and term extraction shared by the search and suggest indexes.
+ */
+final class SearchTerms {
+
+    private SearchTerms() {
+    }
+
+    static String normalize(String text) {
+        return text == null ? "" : text.trim().toLowerCase(Locale.ROOT);
+    }
+
+    /**
+     * Searchable terms of a coin: its id, symbol, name and each word of the name, all normalized.
+     * @param coin coin
+     * @return terms, a term may occur more than once
+     */
+    static List<String> terms(SearchCoin coin) {
+        String name = normalize(coin.getName());
+        List<String> terms = new ArrayList<>(List.of(normalize(coin.getId()), normalize(coin.getApi_symbol()), name));
+        for (String word : name.split("[\\s\\-_.()]+")) {
+            if (!word.isEmpty() && !word.equals(name)) {
+                terms.add(word);
+            }
+        }
+        return terms;
+    }
+
+    /**
+     * Check whether any term of a coin starts with the prefix.
+     * @param coin coin
+     * @param prefix normalized prefix
+     * @return true if the coin matches the prefix
+     */
+    static boolean matchesPrefix(SearchCoin coin, String prefix) {
+        return terms(coin).stream().anyMatch(term -> term.startsWith(prefix));
+    }
+
+    /**
+     * Terms of all coins sorted by text, each with the index of its coin.
+     * @param coins coins in rank order
+     * @return sorted terms
+     */
+    static Term[] sortedTerms(List<SearchCoin> coins) {
+        List<Term> terms = new ArrayList<>(coins.size() * 4);
+        for (int entry = 0; entry < coins.size(); entry++) {
+            for (String term : terms(coins.get(entry))) {
+                terms.add(new Term(term, entry));
+            }
+        }
+        terms.sort(Comparator.comparing(Term::text).thenComparingInt(Term::entry));
+        return terms.toArray(Term[]::new);
+    }
+
+    /**
+     * Merge the full coin list with rank and image of the market coins, in market cap rank order.
+     * @param coinList full coin list
+     * @param marketCoins ranked market coins, may be empty
+     * @return ranked coins first by rank, unranked ones by name
+     */
+    static List<SearchCoin> rankedCoins(Collection<CoinListEntry> coinList, Collection<Coin> marketCoins) {
+        Map<String, Coin> marketById = HashMap.newHashMap(marketCoins.size());
+        for (Coin coin : marketCoins) {
+            marketById.putIfAbsent(coin.getId(), coin);
+        }
+
+        List<SearchCoin> coins = new ArrayList<>(coinList.size());
+        for (CoinListEntry entry : coinList) {
+            if (entry.getId() == null || entry.getName() == null || entry.getSymbol() == null) {
+                continue;
+            }
+            Coin market = marketById.get(entry.getId());
+            String image = market == null ? null : market.getImage();
+            // CoinGecko serves each image size under its own path segment
+            String thumb = image == null ? null : image.replace("/large/", "/thumb/");
+            coins.add(SearchCoin.builder()
+                    .id(entry.getId())
+                    .name(entry.getName())
+                    .api_symbol(entry.getSymbol())
+                    .market_cap_rank(market == null ? 0 : market.getMarket_cap_rank())
+                    .large(image)
+                    .thumb(thumb)
+                    .build());
+        }
+        coins.sort(Comparator.comparingInt((SearchCoin coin) -> coin.getMarket_cap_rank() > 0 ? coin.getMarket_cap_rank() : Integer.MAX_VALUE)
+                .thenComparing(SearchCoin::getName));
+        return coins;
+    }
+
+    record Term(String text, int entry) {
+    }
+}
@@ -0,0 +1,122 @@
+package net.tylerwade.cryptoapp.coins.screener;
+
+import lombok.RequiredArgsConstructor;
+import net.tylerwade.cryptoapp.coins.coinpage.Coin;
+import net.tylerwade.cryptoapp.coins.snapshot.MarketColumn;
+import net.tylerwade.cryptoapp.coins.snapshot.MarketSnapshot;
+import net.tylerwade.cryptoapp.coins.snapshot.MarketSnapshotStore;
+import net.tylerwade.cryptoapp.common.exception.HttpRequestException;
+import net.tylerwade.cryptoapp.config.CryptoAppProperties;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Screens the market snapshot with range filters over the numeric coin fields and a sort key.
+ * Walks the snapshot's precomputed sort order and stops as soon as the requested page is filled,
+ * so no sorting happens per request.
+ */
+@Service
+@RequiredArgsConstructor
+public class CoinScreener {
+
+    public static final int MAX_PER_PAGE = 250;
+
+    private final MarketSnapshotStore marketSnapshotStore;
+    private final CryptoAppProperties cryptoAppProperties;
+
+    /**
+     * Run a screen against the latest market snapshot.
+     * @param criteria filters, sort and paging
+     * @return matching coins of the requested page in sort order
+     * @throws HttpRequestException if no snapshot is available for the currency
+     */
+    public Coin[] screen(ScreenCriteria criteria) {
+        MarketSnapshot snapshot = marketSnapshotStore.get(criteria.vsCurrency(), cryptoAppProperties.getMarketSnapshot().getMaxAge());
+        if (snapshot == null) {
+            throw new HttpRequestException("Market data for " + criteria.vsCurrency() + " is not available.", HttpStatus.SERVICE_UNAVAILABLE);
+        }
+
+        List<RangeFilter> filters = criteria.filters();
+        double[][] filterColumns = new double[filters.size()][];
+        for (int i = 0; i < filters.size(); i++) {
+            filterColumns[i] = snapshot.column(filters.get(i).column());
+        }
+
+        int[] order = snapshot.sortOrder(criteria.sort(), criteria.descending());
+        int skip = (Math.max(criteria.page(), 1) - 1) * criteria.perPage();
+        List<Coin> result = new ArrayList<>(criteria.perPage());
+        for (int i = 0; i < order.length && result.size() < criteria.perPage(); i++) {
+            int row = order[i];
+            if (matches(row, filters, filterColumns)) {
+                if (skip > 0) {
+                    skip--;
+                } else {
+                    result.add(snapshot.coin(row));
+                }
+            }
+        }
+        return result.toArray(Coin[]::new);
+    }
+
+    /**
+     * Build screen criteria from request parameters. Filters are given as {@code <field>_min} and
+     * {@code <field>_max} for any numeric coin field, e.g. {@code market_cap_max=1000000000}.
+     * @param vsCurrency fiat currency code
+     * @param params all request parameters
+     * @param sort field to sort by
+     * @param order asc or desc
+     * @param page page number
+     * @param perPage page size
+     * @return parsed criteria
+     * @throws HttpRequestException if a field, bound or order is invalid
+     */
+    public ScreenCriteria parseCriteria(String vsCurrency, Map<String, String> params, String sort, String order, int page, int perPage) {
+        MarketColumn sortColumn = MarketColumn.fromField(sort)
+                .orElseThrow(() -> HttpRequestException.badRequest("Unknown sort field: " + sort));
+        if (!order.equalsIgnoreCase("asc") && !order.equalsIgnoreCase("desc")) {
+            throw HttpRequestException.badRequest("Order must be either 'asc' or 'desc'.");
+        }
+        if (perPage < 1 || perPage > MAX_PER_PAGE) {
+            throw HttpRequestException.badRequest("per_page must be between 1 and " + MAX_PER_PAGE + ".");
+        }
+
+        List<RangeFilter> filters = new ArrayList<>();
+        for (MarketColumn column : MarketColumn.values()) {
+            String min = params.get(column.getField() + "_min");
+            String max = params.get(column.getField() + "_max");
+            if (min != null || max != null) {
+                filters.add(new RangeFilter(
+                        column,
+                        parseBound(column.getField() + "_min", min, Double.NEGATIVE_INFINITY),
+                        parseBound(column.getField() + "_max", max, Double.POSITIVE_INFINITY)
+                ));
+            }
+        }
+
+        return new ScreenCriteria(vsCurrency, filters, sortColumn, order.equalsIgnoreCase("desc"), page, perPage);
+    }
+
+    private static boolean matches(int row, List<RangeFilter> filters, double[][] filterColumns) {
+        for (int i = 0; i < filterColumns.length; i++) {
+            if (!filters.get(i).matches(filterColumns[i][row])) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static double parseBound(String name, String value, double defaultValue) {
+        if (value == null || value.isBlank()) {
+            return defaultValue;
+        }
+        try {
+            return Double.parseDouble(value);
+        } catch (NumberFormatException e) {
+            throw HttpRequestException.badRequest(name + " must be a number.");
+        }
+    }
+}
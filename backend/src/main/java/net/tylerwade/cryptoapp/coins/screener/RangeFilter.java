@@ -0,0 +1,17 @@
+package net.tylerwade.cryptoapp.coins.screener;
+
+import net.tylerwade.cryptoapp.coins.snapshot.MarketColumn;
+
+/**
+ * Inclusive range a market field has to fall in. Open ends are infinite.
+ */
+public record RangeFilter(
+        MarketColumn column,
+        double min,
+        double max
+) {
+
+    public boolean matches(double value) {
+        return value >= min && value <= max;
+    }
+}
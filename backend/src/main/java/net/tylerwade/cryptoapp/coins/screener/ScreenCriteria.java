@@ -0,0 +1,15 @@
+package net.tylerwade.cryptoapp.coins.screener;
+
+import net.tylerwade.cryptoapp.coins.snapshot.MarketColumn;
+
+import java.util.List;
+
+public record ScreenCriteria(
+        String vsCurrency,
+        List<RangeFilter> filters,
+        MarketColumn sort,
+        boolean descending,
+        int page,
+        int perPage
+) {
+}
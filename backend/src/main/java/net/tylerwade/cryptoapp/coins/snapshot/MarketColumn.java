@@ -0,0 +1,76 @@
+package net.tylerwade.cryptoapp.coins.snapshot;
+
+import net.tylerwade.cryptoapp.coins.coinpage.Coin;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.Optional;
+import java.util.function.Function;
+import java.util.function.ToDoubleFunction;
+import java.util.stream.Collectors;
+
+/**
+ * Numeric {@link Coin} fields held as primitive columns in a {@link MarketSnapshot}.
+ */
+public enum MarketColumn {
+    CURRENT_PRICE("current_price", Coin::getCurrent_price, true),
+    MARKET_CAP("market_cap", Coin::getMarket_cap, true),
+    MARKET_CAP_RANK("market_cap_rank", Coin::getMarket_cap_rank, false),
+    FULLY_DILUTED_VALUATION("fully_diluted_valuation", Coin::getFully_diluted_valuation, true),
+    TOTAL_VOLUME("total_volume", Coin::getTotal_volume, true),
+    HIGH_24H("high_24h", Coin::getHigh_24h, true),
+    LOW_24H("low_24h", Coin::getLow_24h, true),
+    PRICE_CHANGE_24H("price_change_24h", Coin::getPrice_change_24h, true),
+    PRICE_CHANGE_PERCENTAGE_24H("price_change_percentage_24h", Coin::getPrice_change_percentage_24h, false),
+    MARKET_CAP_CHANGE_24H("market_cap_change_24h", Coin::getMarket_cap_change_24h, true),
+    MARKET_CAP_CHANGE_PERCENTAGE_24H("market_cap_change_percentage_24h", Coin::getMarket_cap_change_percentage_24h, false),
+    CIRCULATING_SUPPLY("circulating_supply", Coin::getCirculating_supply, false),
+    TOTAL_SUPPLY("total_supply", Coin::getTotal_supply, false),
+    ATH("ath", Coin::getAth, true),
+    ATH_CHANGE_PERCENTAGE("ath_change_percentage", Coin::getAth_change_percentage, false),
+    ATL("atl", Coin::getAtl, true),
+    ATL_CHANGE_PERCENTAGE("atl_change_percentage", Coin::getAtl_change_percentage, false);
+
+    private static final Map<String, MarketColumn> BY_FIELD = Arrays.stream(values())
+            .collect(Collectors.toUnmodifiableMap(MarketColumn::getField, Function.identity()));
+
+    private final String field;
+    private final ToDoubleFunction<Coin> extractor;
+    private final boolean priceDenominated;
+
+    MarketColumn(String field, ToDoubleFunction<Coin> extractor, boolean priceDenominated) {
+        this.field = field;
+        this.extractor = extractor;
+        this.priceDenominated = priceDenominated;
+    }
+
+    /**
+     * Look up a column by its JSON field name.
+     * @param field json field name (e.g. "market_cap")
+     * @return matching column if any
+     */
+    public static Optional<MarketColumn> fromField(String field) {
+        return Optional.ofNullable(BY_FIELD.get(field));
+    }
+
+    /**
+     * Name of the field in the CoinGecko / API JSON.
+     * @return json field name
+     */
+    public String getField() {
+        return field;
+    }
+
+    /**
+     * Whether the field is an amount in the quote currency and changes with it, unlike ranks,
+     * percentages and supplies.
+     * @return true for currency amounts
+     */
+    public boolean isPriceDenominated() {
+        return priceDenominated;
+    }
+
+    double extract(Coin coin) {
+        return extractor.applyAsDouble(coin);
+    }
+}
@@ -0,0 +1,256 @@
+package net.tylerwade.cryptoapp.coins.snapshot;
+
+import lombok.Getter;
+import net.tylerwade.cryptoapp.coins.coinpage.Coin;
+
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Immutable snapshot of the market list for one currency, in CoinGecko's market cap order.
+ * Besides the coins themselves the numeric market fields are held column wise in primitive arrays
+ * together with precomputed ascending and descending sort orders per column, and an id to row index allows
+ * filtered lookups without scanning.
+ * <p>
+ * A snapshot can be converted into another currency (see {@link #convert(String, double)}). The converted
+ * snapshot shares the coins, sort orders and id index with its source, only the price denominated
+ * columns are multiplied into new arrays, and coins are converted as they are read.
+ */
+public final class MarketSnapshot {
+
+    @Getter
+    private final String vsCurrency;
+    @Getter
+    private final LocalDateTime cachedAt;
+    private final Coin[] coins;
+    private final double[][] columns;
+    private final int[][] sortOrders;
+    private final int[][] descendingSortOrders;
+    private final Map<String, Integer> rowById;
+    private final boolean complete;
+    private final double rate; // factor from the coins' currency into vsCurrency
+
+    private MarketSnapshot(String vsCurrency, Coin[] coins, boolean complete, LocalDateTime cachedAt) {
+        this.vsCurrency = vsCurrency;
+        this.coins = coins;
+        this.complete = complete;
+        this.cachedAt = cachedAt;
+        this.rate = 1;
+
+        MarketColumn[] marketColumns = MarketColumn.values();
+        this.columns = new double[marketColumns.length][coins.length];
+        this.rowById = HashMap.newHashMap(coins.length);
+        for (int row = 0; row < coins.length; row++) {
+            for (MarketColumn column : marketColumns) {
+                columns[column.ordinal()][row] = column.extract(coins[row]);
+            }
+            rowById.putIfAbsent(coins[row].getId(), row);
+        }
+
+        this.sortOrders = new int[marketColumns.length][];
+        this.descendingSortOrders = new int[marketColumns.length][];
+        for (MarketColumn column : marketColumns) {
+            sortOrders[column.ordinal()] = sortOrder(columns[column.ordinal()], false);
+            descendingSortOrders[column.ordinal()] = sortOrder(columns[column.ordinal()], true);
+        }
+    }
+
+    private MarketSnapshot(MarketSnapshot source, String vsCurrency, double rate) {
+        this.vsCurrency = vsCurrency;
+        this.coins = source.coins;
+        this.complete = source.complete;
+        this.cachedAt = source.cachedAt;
+        this.rowById = source.rowById;
+        // A positive factor keeps every column's order
+        this.sortOrders = source.sortOrders;
+        this.descendingSortOrders = source.descendingSortOrders;
+        this.rate = source.rate * rate;
+
+        MarketColumn[] marketColumns = MarketColumn.values();
+        this.columns = new double[marketColumns.length][];
+        for (MarketColumn column : marketColumns) {
+            double[] values = source.columns[column.ordinal()];
+            columns[column.ordinal()] = column.isPriceDenominated() ? multiply(values, rate) : values;
+        }
+    }
+
+    private static double[] multiply(double[] values, double factor) {
+        double[] result = new double[values.length];
+        for (int i = 0; i < values.length; i++) {
+            result[i] = values[i] * factor;
+        }
+        return result;
+    }
+
+    private static int[] sortOrder(double[] values, boolean descending) {
+        Integer[] rows = new Integer[values.length];
+        for (int i = 0; i < rows.length; i++) {
+            rows[i] = i;
+        }
+        // Stable sort, so ties keep market cap order in both directions. Missing values (NaN) always come last.
+        Arrays.sort(rows, (a, b) -> descending && !Double.isNaN(values[a]) && !Double.isNaN(values[b])
+                ? Double.compare(values[b], values[a])
+                : Double.compare(values[a], values[b]));
+        int[] order = new int[rows.length];
+        for (int i = 0; i < order.length; i++) {
+            order[i] = rows[i];
+        }
+        return order;
+    }
+
+    /**
+     * Build a snapshot from the coins fetched page by page.
+     * @param vsCurrency currency the coins are priced in
+     * @param coins coins in market cap order
+     * @param complete true if the coins are the whole market list rather than its first pages
+     * @param cachedAt time the coins were fetched
+     * @return new snapshot
+     */
+    public static MarketSnapshot of(String vsCurrency, List<Coin> coins, boolean complete, LocalDateTime cachedAt) {
+        return new MarketSnapshot(vsCurrency, coins.toArray(Coin[]::new), complete, cachedAt);
+    }
+
+    /**
+     * Convert the snapshot into another currency.
+     * @param vsCurrency target currency code
+     * @param rate positive factor converting amounts in this snapshot's currency into the target currency
+     * @return converted snapshot sharing this snapshot's coins and indexes
+     */
+    public MarketSnapshot convert(String vsCurrency, double rate) {
+        if (!(rate > 0) || Double.isInfinite(rate)) {
+            throw new IllegalArgumentException("Conversion rate must be positive: " + rate);
+        }
+        return new MarketSnapshot(this, vsCurrency, rate);
+    }
+
+    public int size() {
+        return coins.length;
+    }
+
+    /**
+     * Coin at the given row.
+     * @param row row index
+     * @return coin
+     */
+    public Coin coin(int row) {
+        return convert(coins[row]);
+    }
+
+    /**
+     * All coins in market cap order.
+     * @return unmodifiable view of the coins
+     */
+    public List<Coin> coins() {
+        if (rate == 1) {
+            return Collections.unmodifiableList(Arrays.asList(coins));
+        }
+        return Arrays.stream(coins).map(this::convert).toList();
+    }
+
+    /**
+     * Values of a numeric field for every row. The returned array must not be modified.
+     * @param column market field
+     * @return column values indexed by row
+     */
+    public double[] column(MarketColumn column) {
+        return columns[column.ordinal()];
+    }
+
+    /**
+     * Rows ordered by the value of a column, ties in market cap order. The returned array must not be modified.
+     * @param column market field
+     * @param descending true for the highest values first
+     * @return row indexes in column order
+     */
+    public int[] sortOrder(MarketColumn column, boolean descending) {
+        return (descending ? descendingSortOrders : sortOrders)[column.ordinal()];
+    }
+
+    /**
+     * Row of a coin.
+     * @param id coin id
+     * @return row index or -1 if the coin is not part of the snapshot
+     */
+    public int rowOf(String id) {
+        Integer row = rowById.get(id);
+        return row == null ? -1 : row;
+    }
+
+    /**
+     * Slice a page out of the snapshot using CoinGecko's paging (pages start at 1, 0 is treated as 1).
+     * @param page page number
+     * @param perPage page size
+     * @return coins of the page or null if the page lies beyond what the snapshot holds
+     */
+    public Coin[] page(int page, int perPage) {
+        int from = (Math.max(page, 1) - 1) * perPage;
+        int to = from + perPage;
+        if (to > coins.length && !complete) {
+            return null;
+        }
+        if (from >= coins.length) {
+            return new Coin[0];
+        }
+        Coin[] result = Arrays.copyOfRange(coins, from, Math.min(to, coins.length));
+        for (int i = 0; i < result.length; i++) {
+            result[i] = convert(result[i]);
+        }
+        return result;
+    }
+
+    /**
+     * Page through the coins with the given ids, in market cap order.
+     * @param ids coin ids
+     * @param page page number
+     * @param perPage page size
+     * @return coins of the page or null if any id is not part of the snapshot
+     */
+    public Coin[] byIds(Collection<String> ids, int page, int perPage) {
+        int[] rows = new int[ids.size()];
+        int count = 0;
+        for (String id : ids) {
+            int row = rowOf(id);
+            if (row < 0) {
+                return null;
+            }
+            rows[count++] = row;
+        }
+        Arrays.sort(rows, 0, count);
+
+        int from = Math.min((Math.max(page, 1) - 1) * perPage, count);
+        int to = Math.min(from + perPage, count);
+        Coin[] result = new Coin[to - from];
+        for (int i = from; i < to; i++) {
+            result[i - from] = coin(rows[i]);
+        }
+        return result;
+    }
+
+    /**
+     * Copy of a coin with its price denominated fields in this snapshot's currency.
+     * @param coin coin as fetched
+     * @return the coin itself if no conversion applies, otherwise a converted copy
+     */
+    private Coin convert(Coin coin) {
+        if (rate == 1) {
+            return coin;
+        }
+        return coin.toBuilder()
+                .current_price(coin.getCurrent_price() * rate)
+                .market_cap(coin.getMarket_cap() * rate)
+                .fully_diluted_valuation(coin.getFully_diluted_valuation() * rate)
+                .total_volume(coin.getTotal_volume() * rate)
+                .high_24h(coin.getHigh_24h() * rate)
+                .low_24h(coin.getLow_24h() * rate)
+                .price_change_24h(coin.getPrice_change_24h() * rate)
+                .market_cap_change_24h(coin.getMarket_cap_change_24h() * rate)
+                .ath(coin.getAth() * rate)
+                .atl(coin.getAtl() * rate)
+                .build();
+    }
+}
@@ -0,0 +1,95 @@
+package net.tylerwade.cryptoapp.coins.snapshot;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import net.tylerwade.cryptoapp.coins.CoinService;
+import net.tylerwade.cryptoapp.coins.coinpage.Coin;
+import net.tylerwade.cryptoapp.coins.fx.ExchangeRateStore;
+import net.tylerwade.cryptoapp.coins.stream.PriceStream;
+import net.tylerwade.cryptoapp.config.CryptoAppProperties;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Pages through the CoinGecko market list at a fixed cadence and publishes the result as a
+ * {@link MarketSnapshot} per configured currency, so coin pages are served without upstream calls
+ * no matter how many parameter combinations are requested. With currency conversion enabled only the base
+ * currency is polled and the other currencies are converted from it by the {@link MarketSnapshotStore}.
+ * Price changes are pushed to the {@link PriceStream}.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class MarketSnapshotPoller {
+
+    private final CoinService coinService;
+    private final MarketSnapshotStore marketSnapshotStore;
+    private final PriceStream priceStream;
+    private final ExchangeRateStore exchangeRateStore;
+    private final CryptoAppProperties cryptoAppProperties;
+
+    @Scheduled(fixedDelayString = "${cryptoapp.market-snapshot.interval:2m}")
+    public void poll() {
+        CryptoAppProperties.MarketSnapshot settings = cryptoAppProperties.getMarketSnapshot();
+        if (!settings.isEnabled()) {
+            return;
+        }
+        if (exchangeRateStore.isEnabled()) {
+            pollConverted(settings);
+            return;
+        }
+        for (String vsCurrency : settings.getCurrencies()) {
+            try {
+                MarketSnapshot previous = marketSnapshotStore.latest(vsCurrency);
+                MarketSnapshot snapshot = fetchSnapshot(vsCurrency, settings.getPages(), settings.getPerPage());
+                marketSnapshotStore.put(snapshot);
+                priceStream.publish(previous, snapshot);
+            } catch (RuntimeException e) {
+                // Keep serving the previous snapshot until it is too old
+                log.warn("Failed to refresh {} market snapshot: {}", vsCurrency, e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Poll the base currency only and publish the price changes of every configured currency.
+     */
+    private void pollConverted(CryptoAppProperties.MarketSnapshot settings) {
+        String baseCurrency = exchangeRateStore.getBaseCurrency();
+        Map<String, MarketSnapshot> previous = new HashMap<>();
+        for (String vsCurrency : settings.getCurrencies()) {
+            previous.put(vsCurrency, marketSnapshotStore.latest(vsCurrency));
+        }
+        try {
+            marketSnapshotStore.put(fetchSnapshot(baseCurrency, settings.getPages(), settings.getPerPage()));
+        } catch (RuntimeException e) {
+            log.warn("Failed to refresh {} market snapshot: {}", baseCurrency, e.getMessage());
+            return;
+        }
+        previous.forEach((vsCurrency, snapshot) -> {
+            MarketSnapshot current = marketSnapshotStore.latest(vsCurrency);
+            if (current != null) {
+                priceStream.publish(snapshot, current);
+            }
+        });
+    }
+
+    private MarketSnapshot fetchSnapshot(String vsCurrency, int pages, int perPage) {
+        List<Coin> coins = new ArrayList<>(pages * perPage);
+        boolean complete = false;
+        for (int page = 1; page <= pages && !complete; page++) {
+            Coin[] pageCoins = coinService.fetchMarketPage(vsCurrency, page, perPage);
+            coins.addAll(Arrays.asList(pageCoins));
+            // A short page means the end of the market list was reached
+            complete = pageCoins.length < perPage;
+        }
+        return MarketSnapshot.of(vsCurrency, coins, complete, LocalDateTime.now());
+    }
+}
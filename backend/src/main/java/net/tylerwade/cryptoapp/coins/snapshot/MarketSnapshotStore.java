@@ -0,0 +1,77 @@
+package net.tylerwade.cryptoapp.coins.snapshot;
+
+import net.tylerwade.cryptoapp.coins.fx.ExchangeRateStore;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Holds the latest market snapshot per currency. Snapshots are replaced as a whole so readers
+ * always see a consistent one. Currencies without a snapshot of their own are converted from the
+ * base currency snapshot with the exchange rates, once per snapshot and rate.
+ */
+@Component
+public class MarketSnapshotStore {
+
+    private final ExchangeRateStore exchangeRateStore;
+    private final ConcurrentHashMap<String, MarketSnapshot> snapshots = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<String, ConvertedSnapshot> converted = new ConcurrentHashMap<>();
+
+    public MarketSnapshotStore(ExchangeRateStore exchangeRateStore) {
+        this.exchangeRateStore = exchangeRateStore;
+    }
+
+    /**
+     * Latest snapshot for a currency if it is not older than the given age.
+     * @param vsCurrency currency code
+     * @param maxAge maximum snapshot age
+     * @return snapshot or null if there is none or it is too old
+     */
+    public MarketSnapshot get(String vsCurrency, Duration maxAge) {
+        MarketSnapshot snapshot = latest(vsCurrency);
+        if (snapshot == null || snapshot.getCachedAt().isBefore(LocalDateTime.now().minus(maxAge))) {
+            return null;
+        }
+        return snapshot;
+    }
+
+    /**
+     * Latest snapshot for a currency regardless of its age, used when the upstream is unavailable.
+     * @param vsCurrency currency code
+     * @return snapshot or null if there is none
+     */
+    public MarketSnapshot latest(String vsCurrency) {
+        String currency = vsCurrency.toLowerCase();
+        MarketSnapshot snapshot = snapshots.get(currency);
+        return snapshot != null ? snapshot : converted(currency);
+    }
+
+    /**
+     * Replace the snapshot of its currency.
+     * @param snapshot new snapshot
+     */
+    public void put(MarketSnapshot snapshot) {
+        snapshots.put(snapshot.getVsCurrency().toLowerCase(), snapshot);
+    }
+
+    private MarketSnapshot converted(String currency) {
+        Double rate = exchangeRateStore.conversionRate(currency);
+        MarketSnapshot base = rate == null ? null : snapshots.get(exchangeRateStore.getBaseCurrency());
+        if (base == null) {
+            return null;
+        }
+        ConvertedSnapshot cached = converted.get(currency);
+        if (cached != null && cached.base() == base && cached.rate() == rate) {
+            return cached.snapshot();
+        }
+        // Racing readers may both convert, either result is equivalent
+        MarketSnapshot snapshot = base.convert(currency, rate);
+        converted.put(currency, new ConvertedSnapshot(base, rate, snapshot));
+        return snapshot;
+    }
+
+    private record ConvertedSnapshot(MarketSnapshot base, double rate, MarketSnapshot snapshot) {
+    }
+}
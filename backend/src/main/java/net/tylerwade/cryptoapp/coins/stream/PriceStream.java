@@ -0,0 +1,178 @@
+package net.tylerwade.cryptoapp.coins.stream;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import net.tylerwade.cryptoapp.coins.coinpage.Coin;
+import net.tylerwade.cryptoapp.coins.coinpage.GetCoinPageParams;
+import net.tylerwade.cryptoapp.coins.snapshot.MarketSnapshot;
+import net.tylerwade.cryptoapp.coins.snapshot.MarketSnapshotStore;
+import net.tylerwade.cryptoapp.common.exception.HttpRequestException;
+import net.tylerwade.cryptoapp.config.CryptoAppProperties;
+import org.springframework.http.HttpStatus;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.util.LinkedHashSet;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Server-Sent Events price stream fed by the market snapshot poller, so any number of open tabs costs no
+ * upstream calls beyond the one shared poll.
+ * <p>
+ * Each new snapshot is compared with the previous one and the coins whose price changed are routed through
+ * lock-free per coin subscriber sets to the subscribers of that coin. Sending happens on virtual threads,
+ * so an idle connection holds no thread at all (the servlet request is async) and a slow one blocks only
+ * its own virtual thread while its updates coalesce in its {@link PriceSubscriber} buffer.
+ */
+@Slf4j
+@Component
+public class PriceStream implements MeterBinder {
+
+    private final MarketSnapshotStore marketSnapshotStore;
+    private final CryptoAppProperties.PriceStream settings;
+    private final Set<String> streamedCurrencies;
+    private final ConcurrentHashMap<String, Set<PriceSubscriber>> subscribersByCoin = new ConcurrentHashMap<>();
+    private final Set<PriceSubscriber> subscribers = ConcurrentHashMap.newKeySet();
+    private final AtomicInteger subscriberCount = new AtomicInteger();
+    private final ExecutorService sender = Executors.newVirtualThreadPerTaskExecutor();
+
+    public PriceStream(MarketSnapshotStore marketSnapshotStore, CryptoAppProperties cryptoAppProperties) {
+        this.marketSnapshotStore = marketSnapshotStore;
+        this.settings = cryptoAppProperties.getPriceStream();
+        this.streamedCurrencies = Set.copyOf(cryptoAppProperties.getMarketSnapshot().getCurrencies().stream()
+                .map(String::toLowerCase)
+                .toList());
+    }
+
+    /**
+     * Open a stream of price updates for the given coins. The current prices are sent right away.
+     * @param ids comma separated coin ids
+     * @param vsCurrency currency code, must be one of the snapshot currencies
+     * @return emitter of the stream
+     */
+    public SseEmitter subscribe(String ids, String vsCurrency) {
+        String currency = vsCurrency.toLowerCase();
+        if (!streamedCurrencies.contains(currency)) {
+            throw HttpRequestException.badRequest("Prices are only streamed in: " + String.join(",", streamedCurrencies));
+        }
+        Set<String> coinIds = new LinkedHashSet<>(GetCoinPageParams.of(currency, 1, 1, ids).idList());
+        if (coinIds.isEmpty() || coinIds.size() > settings.getMaxIdsPerSubscriber()) {
+            throw HttpRequestException.badRequest("Between 1 and " + settings.getMaxIdsPerSubscriber() + " ids are required.");
+        }
+        if (subscriberCount.incrementAndGet() > settings.getMaxSubscribers()) {
+            subscriberCount.decrementAndGet();
+            throw new HttpRequestException("Too many open price streams.", HttpStatus.SERVICE_UNAVAILABLE);
+        }
+
+        SseEmitter emitter = new SseEmitter(settings.getTimeout().toMillis());
+        PriceSubscriber subscriber = new PriceSubscriber(emitter, currency, Set.copyOf(coinIds));
+        emitter.onCompletion(() -> unsubscribe(subscriber));
+        emitter.onTimeout(() -> unsubscribe(subscriber));
+        emitter.onError(e -> unsubscribe(subscriber));
+        subscribers.add(subscriber);
+        for (String id : coinIds) {
+            // Added under the map's bin lock so a concurrent unsubscribe cannot drop the set meanwhile
+            subscribersByCoin.compute(routingKey(currency, id), (key, coinSubscribers) -> {
+                Set<PriceSubscriber> set = coinSubscribers == null ? ConcurrentHashMap.newKeySet() : coinSubscribers;
+                set.add(subscriber);
+                return set;
+            });
+        }
+
+        MarketSnapshot snapshot = marketSnapshotStore.latest(currency);
+        if (snapshot != null) {
+            for (String id : coinIds) {
+                int row = snapshot.rowOf(id);
+                if (row >= 0) {
+                    subscriber.offer(PriceUpdate.of(snapshot.coin(row), currency), sender);
+                }
+            }
+        }
+        return emitter;
+    }
+
+    /**
+     * Fan out the coins whose price changed between two snapshots of a currency.
+     * @param previous previous snapshot or null
+     * @param current new snapshot
+     */
+    public void publish(MarketSnapshot previous, MarketSnapshot current) {
+        if (subscribersByCoin.isEmpty()) {
+            return;
+        }
+        String currency = current.getVsCurrency().toLowerCase();
+        int changed = 0;
+        for (int row = 0; row < current.size(); row++) {
+            Coin coin = current.coin(row);
+            Set<PriceSubscriber> coinSubscribers = subscribersByCoin.get(routingKey(currency, coin.getId()));
+            if (coinSubscribers == null || !priceChanged(previous, coin)) {
+                continue;
+            }
+            PriceUpdate update = PriceUpdate.of(coin, currency);
+            for (PriceSubscriber subscriber : coinSubscribers) {
+                subscriber.offer(update, sender);
+            }
+            changed++;
+        }
+        log.debug("Streamed {} changed {} prices to {} subscribers", changed, currency, subscribers.size());
+    }
+
+    /**
+     * Keep idle connections from being closed by proxies.
+     */
+    @Scheduled(fixedDelayString = "${cryptoapp.price-stream.heartbeat-interval:30s}")
+    public void heartbeat() {
+        subscribers.forEach(subscriber -> subscriber.heartbeat(sender));
+    }
+
+    @PreDestroy
+    public void close() {
+        subscribers.forEach(subscriber -> {
+            if (subscriber.close()) {
+                subscriber.emitter().complete();
+            }
+        });
+        sender.shutdownNow();
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        Gauge.builder("coins.stream.subscribers", subscribers, Set::size)
+                .description("Open price streams")
+                .register(registry);
+    }
+
+    private void unsubscribe(PriceSubscriber subscriber) {
+        subscriber.close();
+        if (!subscribers.remove(subscriber)) {
+            return;
+        }
+        for (String id : subscriber.ids()) {
+            subscribersByCoin.computeIfPresent(routingKey(subscriber.vsCurrency(), id), (key, coinSubscribers) -> {
+                coinSubscribers.remove(subscriber);
+                return coinSubscribers.isEmpty() ? null : coinSubscribers;
+            });
+        }
+        subscriberCount.decrementAndGet();
+    }
+
+    private static boolean priceChanged(MarketSnapshot previous, Coin coin) {
+        if (previous == null) {
+            return true;
+        }
+        int row = previous.rowOf(coin.getId());
+        return row < 0 || Double.compare(previous.coin(row).getCurrent_price(), coin.getCurrent_price()) != 0;
+    }
+
+    private static String routingKey(String vsCurrency, String id) {
+        return vsCurrency + ':' + id;
+    }
+}
@@ -0,0 +1,122 @@
+package net.tylerwade.cryptoapp.coins.stream;
+
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * One open price stream. Updates are buffered per coin with the latest one replacing an unsent one, so the
+ * buffer of a slow consumer is bounded by the number of coins it subscribed to and it skips straight to the
+ * newest prices. The buffer is drained by at most one task at a time.
+ */
+final class PriceSubscriber {
+
+    private final SseEmitter emitter;
+    private final String vsCurrency;
+    private final Set<String> ids;
+    private final Map<String, PriceUpdate> pending = new ConcurrentHashMap<>();
+    private final AtomicBoolean draining = new AtomicBoolean();
+    private final AtomicBoolean closed = new AtomicBoolean();
+    private volatile boolean heartbeat;
+
+    PriceSubscriber(SseEmitter emitter, String vsCurrency, Set<String> ids) {
+        this.emitter = emitter;
+        this.vsCurrency = vsCurrency;
+        this.ids = ids;
+    }
+
+    SseEmitter emitter() {
+        return emitter;
+    }
+
+    String vsCurrency() {
+        return vsCurrency;
+    }
+
+    Set<String> ids() {
+        return ids;
+    }
+
+    boolean isClosed() {
+        return closed.get();
+    }
+
+    /**
+     * Buffer an update, replacing an unsent update of the same coin, and schedule a drain.
+     * @param update price update
+     * @param executor executor the drain runs on
+     */
+    void offer(PriceUpdate update, Executor executor) {
+        if (closed.get()) {
+            return;
+        }
+        pending.put(update.id(), update);
+        schedule(executor);
+    }
+
+    /**
+     * Schedule a keep-alive comment, sent only if nothing else is sent first.
+     * @param executor executor the drain runs on
+     */
+    void heartbeat(Executor executor) {
+        heartbeat = true;
+        schedule(executor);
+    }
+
+    /**
+     * Mark the stream closed, further updates are discarded.
+     * @return true if it was open
+     */
+    boolean close() {
+        pending.clear();
+        return closed.compareAndSet(false, true);
+    }
+
+    private void schedule(Executor executor) {
+        if (closed.get() || !draining.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            executor.execute(() -> drain(executor));
+        } catch (RejectedExecutionException e) {
+            draining.set(false);
+        }
+    }
+
+    private void drain(Executor executor) {
+        try {
+            boolean sent = false;
+            while (!pending.isEmpty() && !closed.get()) {
+                Iterator<PriceUpdate> updates = pending.values().iterator();
+                while (updates.hasNext() && !closed.get()) {
+                    PriceUpdate update = updates.next();
+                    // Only remove the update that is sent, a newer one put meanwhile stays pending
+                    pending.remove(update.id(), update);
+                    emitter.send(SseEmitter.event().name("price").data(update));
+                    sent = true;
+                }
+            }
+            if (heartbeat && !sent && !closed.get()) {
+                emitter.send(SseEmitter.event().comment("keep-alive"));
+            }
+            heartbeat = false;
+        } catch (IOException | IllegalStateException e) {
+            // Client went away, the emitter's completion callback unsubscribes it
+            close();
+            emitter.completeWithError(e);
+        } finally {
+            draining.set(false);
+        }
+        // Updates that arrived after the last read would otherwise wait for the next one
+        if (!pending.isEmpty()) {
+            schedule(executor);
+        }
+    }
+}
@@ -0,0 +1,22 @@
+package net.tylerwade.cryptoapp.coins.stream;
+
+import net.tylerwade.cryptoapp.coins.coinpage.Coin;
+
+/**
+ * Price of a coin pushed to stream subscribers.
+ */
+public record PriceUpdate(
+        String id,
+        String vs_currency,
+        double current_price,
+        double price_change_percentage_24h,
+        double market_cap,
+        double total_volume,
+        String last_updated
+) {
+
+    public static PriceUpdate of(Coin coin, String vsCurrency) {
+        return new PriceUpdate(coin.getId(), vsCurrency, coin.getCurrent_price(), coin.getPrice_change_percentage_24h(),
+                coin.getMarket_cap(), coin.getTotal_volume(), coin.getLast_updated());
+    }
+}
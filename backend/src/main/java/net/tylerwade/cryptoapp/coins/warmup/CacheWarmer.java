@@ -0,0 +1,198 @@
+package net.tylerwade.cryptoapp.coins.warmup;
+
+import lombok.extern.slf4j.Slf4j;
+import net.tylerwade.cryptoapp.coins.CoinService;
+import net.tylerwade.cryptoapp.coins.coingecko.CoinGeckoClient;
+import net.tylerwade.cryptoapp.coins.coingecko.UpstreamBudget;
+import net.tylerwade.cryptoapp.coins.coingecko.UpstreamBudgetExhaustedException;
+import net.tylerwade.cryptoapp.coins.coingecko.UpstreamPriority;
+import net.tylerwade.cryptoapp.coins.coinpage.Coin;
+import net.tylerwade.cryptoapp.common.exception.HttpRequestException;
+import net.tylerwade.cryptoapp.config.CryptoAppProperties;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Preloads the caches the first requests after a deploy would hit: the first market pages per currency,
+ * coin data for the top coins and their most requested chart ranges.
+ * <p>
+ * Runs while {@link ApplicationReadyEvent} is handled. Spring Boot only switches the readiness state to
+ * accepting traffic once all ready listeners returned, so {@code /status/ready} stays down until the
+ * warm-up finished or timed out and load balancers do not route users to a cold node.
+ * <p>
+ * Upstream calls are made at {@link UpstreamPriority#WARM_UP}, the lowest priority, so the warm-up never
+ * takes the part of the {@link UpstreamBudget} reserved for the users arriving right after it. The warm-up
+ * makes at most as many upstream calls as there are tokens above that reserve when it starts, and at most the
+ * configured maximum. Only calls that reach CoinGecko are charged, requests answered from the caches (such as
+ * shorter chart ranges served from the widest one) are free. Coins are warmed in market cap order and one at a
+ * time: a coin only starts if the calls it needs are still available, so the budget runs out between coins
+ * rather than leaving many of them half warm. Work stops early when CoinGecko itself answers with its rate
+ * limit, a local budget rejection only skips the task.
+ */
+@Slf4j
+@Component
+public class CacheWarmer {
+
+    private final CoinService coinService;
+    private final UpstreamBudget upstreamBudget;
+    private final CryptoAppProperties.WarmUp settings;
+
+    public CacheWarmer(CoinService coinService, UpstreamBudget upstreamBudget, CryptoAppProperties cryptoAppProperties) {
+        this.coinService = coinService;
+        this.upstreamBudget = upstreamBudget;
+        this.settings = cryptoAppProperties.getWarmUp();
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void warmUp() {
+        if (!settings.isEnabled() || settings.getCurrencies().isEmpty()) {
+            return;
+        }
+        long start = System.nanoTime();
+        int maxCalls = Math.min(settings.getMaxUpstreamCalls(), upstreamBudget.headroom(UpstreamPriority.WARM_UP));
+        WarmUpRun run = new WarmUpRun(maxCalls);
+
+        ExecutorService executor = Executors.newFixedThreadPool(Math.max(1, settings.getParallelism()),
+                Thread.ofPlatform().name("cache-warmup-", 0).daemon().factory());
+        try {
+            for (String vsCurrency : settings.getCurrencies()) {
+                for (int page = 1; page <= settings.getPages(); page++) {
+                    int currentPage = page;
+                    run.submit(executor, List.of(new Step(1,
+                            () -> coinService.getCoins(vsCurrency, currentPage, settings.getPerPage(), null))));
+                }
+            }
+            // Top coins by market cap, read from the first currency's list
+            List<Coin> topCoins = new ArrayList<>();
+            if (run.reserve(1)) {
+                run.run(new Step(1, () -> topCoins.addAll(List.of(
+                        coinService.getCoins(settings.getCurrencies().getFirst(), 1, settings.getTopCoins(), null)))));
+            }
+
+            for (Coin coin : topCoins) {
+                run.submit(executor, coinSteps(coin.getId()));
+            }
+
+            executor.shutdown();
+            if (!executor.awaitTermination(settings.getTimeout().toMillis(), TimeUnit.MILLISECONDS)) {
+                log.warn("Cache warm-up timed out after {}, continuing with partially warm caches", settings.getTimeout());
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            executor.shutdownNow();
+        }
+        log.info("Cache warm-up finished {} tasks with {} of at most {} upstream calls in {} ms{}", run.completed.get(),
+                run.calls.get(), maxCalls, TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start),
+                run.rateLimited.get() ? ", stopped early by the upstream rate limit" : "");
+    }
+
+    /**
+     * Steps warming one coin: its data, then per currency the widest chart range, which costs one call, and the
+     * shorter ranges, which are served from the cached widest chart.
+     * @param id coin id
+     * @return steps in the order they run
+     */
+    private List<Step> coinSteps(String id) {
+        List<Step> steps = new ArrayList<>();
+        steps.add(new Step(1, () -> coinService.getCoinById(id)));
+        List<Integer> chartDays = settings.getChartDays().stream().sorted(Comparator.reverseOrder()).toList();
+        for (String vsCurrency : settings.getCurrencies()) {
+            for (int i = 0; i < chartDays.size(); i++) {
+                int days = chartDays.get(i);
+                steps.add(new Step(i == 0 ? 1 : 0, () -> coinService.getMarketChartData(id, days, vsCurrency)));
+            }
+        }
+        return steps;
+    }
+
+    /**
+     * One cache lookup of the warm-up.
+     * @param expectedCalls upstream calls reserved for it, the calls actually made are charged
+     * @param task the lookup
+     */
+    private record Step(int expectedCalls, Runnable task) {
+    }
+
+    /**
+     * Upstream calls left and counters of one warm-up.
+     */
+    private static final class WarmUpRun {
+
+        private final AtomicInteger budget;
+        private final AtomicInteger calls = new AtomicInteger();
+        private final AtomicInteger completed = new AtomicInteger();
+        private final AtomicBoolean rateLimited = new AtomicBoolean();
+
+        private WarmUpRun(int maxCalls) {
+            this.budget = new AtomicInteger(maxCalls);
+        }
+
+        /**
+         * Reserve the calls of all steps and run them in order on the executor, or skip them all if the
+         * calls are no longer available. Reserving in the submitting thread keeps the market cap order.
+         */
+        void submit(ExecutorService executor, List<Step> steps) {
+            int expected = steps.stream().mapToInt(Step::expectedCalls).sum();
+            if (!reserve(expected)) {
+                return;
+            }
+            executor.execute(() -> {
+                for (Step step : steps) {
+                    if (rateLimited.get()) {
+                        budget.addAndGet(step.expectedCalls());
+                    } else {
+                        run(step);
+                    }
+                }
+            });
+        }
+
+        boolean reserve(int expectedCalls) {
+            while (!rateLimited.get()) {
+                int left = budget.get();
+                if (left < expectedCalls) {
+                    return false;
+                }
+                if (budget.compareAndSet(left, left - expectedCalls)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        /**
+         * Run a reserved step, charging the calls it made and giving back the reserved ones it did not need.
+         */
+        void run(Step step) {
+            int made = CoinGeckoClient.withPriority(UpstreamPriority.WARM_UP, () -> {
+                try {
+                    step.task().run();
+                    completed.incrementAndGet();
+                } catch (UpstreamBudgetExhaustedException e) {
+                    log.debug("Cache warm-up task skipped: {}", e.getMessage());
+                } catch (HttpRequestException e) {
+                    if (e.getHttpStatus() == HttpStatus.TOO_MANY_REQUESTS) {
+                        rateLimited.set(true);
+                    }
+                    log.debug("Cache warm-up task failed: {}", e.getMessage());
+                } catch (RuntimeException e) {
+                    log.debug("Cache warm-up task failed: {}", e.getMessage());
+                }
+            });
+            calls.addAndGet(made);
+            budget.addAndGet(step.expectedCalls() - made);
+        }
+    }
+}
@@ -6,6 +6,12 @@ import lombok.NoArgsConstructor;
 import lombok.Setter;
 import org.springframework.boot.context.properties.ConfigurationProperties;
 
+import net.tylerwade.cryptoapp.coins.coingecko.UpstreamPriority;
+
+import java.time.Duration;
+import java.util.EnumMap;
+import java.util.Map;
+
 @ConfigurationProperties(prefix = "coingecko")
 @Getter
 @Setter
@@ -14,4 +20,52 @@ import org.springframework.boot.context.properties.ConfigurationProperties;
 public class CoinGeckoProperties {
     private String apiUrl = "https://api.coingecko.com/api/v3";
     private String apiKey;
-}
\ No newline at end of file
+    private Duration connectTimeout = Duration.ofSeconds(3);
+    private Duration readTimeout = Duration.ofSeconds(10); // until response headers arrive
+    private Duration totalTimeout = Duration.ofSeconds(15); // whole call including the body
+    private Budget budget = new Budget();
+    private Breaker breaker = new Breaker();
+
+    /**
+     * Token bucket the upstream calls are taken from. The bucket holds one minute of requests
+     * and refills continuously. Reserve and max wait override the defaults of {@link UpstreamPriority}.
+     */
+    @Getter
+    @Setter
+    @AllArgsConstructor
+    @NoArgsConstructor
+    public static class Budget {
+        private boolean enabled = true;
+        private int requestsPerMinute = 30; // demo plan quota
+        private Map<UpstreamPriority, Double> reserve = new EnumMap<>(UpstreamPriority.class);
+        private Map<UpstreamPriority, Duration> maxWait = new EnumMap<>(UpstreamPriority.class);
+
+        public double reserve(UpstreamPriority priority) {
+            return reserve.getOrDefault(priority, priority.getReserve());
+        }
+
+        public Duration maxWait(UpstreamPriority priority) {
+            return maxWait.getOrDefault(priority, priority.getMaxWait());
+        }
+    }
+
+    /**
+     * Circuit breaker applied per endpoint family. The circuit opens after failureThreshold consecutive
+     * failures, or once at least minimumCalls of the last windowSize calls were made and the failure rate
+     * among them reaches failureRateThreshold. It stays open for openDuration and then closes again
+     * after halfOpenCalls successful trial calls.
+     */
+    @Getter
+    @Setter
+    @AllArgsConstructor
+    @NoArgsConstructor
+    public static class Breaker {
+        private boolean enabled = true;
+        private int failureThreshold = 5;
+        private int windowSize = 20;
+        private int minimumCalls = 10;
+        private double failureRateThreshold = 0.5;
+        private Duration openDuration = Duration.ofSeconds(30);
+        private int halfOpenCalls = 3;
+    }
+}
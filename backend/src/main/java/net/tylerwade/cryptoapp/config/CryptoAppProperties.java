@@ -4,8 +4,12 @@ import lombok.AllArgsConstructor;
 import lombok.Getter;
 import lombok.NoArgsConstructor;
 import lombok.Setter;
+import net.tylerwade.cryptoapp.coins.marketchart.ValueEncoding;
 import org.springframework.boot.context.properties.ConfigurationProperties;
 
+import java.time.Duration;
+import java.util.List;
+
 @ConfigurationProperties(prefix = "cryptoapp")
 @Getter @Setter
 @NoArgsConstructor
@@ -16,10 +20,165 @@ public class CryptoAppProperties {
     private String mailQueueUrl;
     private String serviceEmail;
     private String frontendUrl;
+    private Caches caches = new Caches();
+    private MarketSnapshot marketSnapshot = new MarketSnapshot();
+    private SearchIndex searchIndex = new SearchIndex();
+    private PriceHistory priceHistory = new PriceHistory();
+    private WarmUp warmUp = new WarmUp();
+    private PriceStream priceStream = new PriceStream();
+    private CoinBatch coinBatch = new CoinBatch();
+    private Fx fx = new Fx();
 
     public boolean isProduction() {
         return environment.equalsIgnoreCase("production");
     }
 
+    /**
+     * Per-cache settings for the in-memory CoinGecko caches and their background refresh.
+     */
+    @Getter @Setter
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Caches {
+        private CacheSpec coinPage = new CacheSpec(Duration.ofMinutes(2), Duration.ofMinutes(10), Duration.ofMinutes(10), Duration.ofHours(1), 50_000);
+        private CacheSpec marketCoin = new CacheSpec(Duration.ofMinutes(2), Duration.ofMinutes(10), Duration.ofMinutes(10), Duration.ofHours(1), 20_000);
+        private CacheSpec coinData = new CacheSpec(Duration.ofMinutes(2), Duration.ofMinutes(10), Duration.ofMinutes(10), Duration.ofHours(1), 5_000);
+        private CacheSpec search = new CacheSpec(Duration.ofMinutes(10), Duration.ofMinutes(10), Duration.ofMinutes(30), Duration.ofHours(1), 50_000);
+        private CacheSpec marketChart = new CacheSpec(Duration.ofHours(12), Duration.ofHours(12), Duration.ofHours(12), Duration.ofHours(24), 128L * 1024 * 1024);
+        private CacheSpec downsampledChart = new CacheSpec(Duration.ofHours(12), Duration.ofHours(12), Duration.ofHours(12), Duration.ofHours(24), 32L * 1024 * 1024);
+        private ValueEncoding marketChartEncoding = ValueEncoding.XOR;
+
+        private long encodedBodyMaximumWeight = 64L * 1024 * 1024; // bytes of serialized response bodies
+        private Duration encodedBodyExpiry = Duration.ofMinutes(15);
+        private int gzipMinBytes = 1024; // smaller bodies are not worth compressing
+
+        private int refreshThreads = 4;
+        private int refreshQueueCapacity = 256;
+        private Duration refreshAheadInterval = Duration.ofSeconds(15);
+        private double refreshAheadRatio = 0.8; // fraction of the ttl after which read entries are refreshed
+    }
+
+    /**
+     * Time to live and weight bound of a single cache. Weight is measured in the unit the cache
+     * chooses (coins for pages, market coins and search results, entries for coin data, bytes for charts).
+     * The ttl is the soft TTL after which a value is refreshed in the background, it keeps being
+     * served for up to maxStale longer (the hard TTL) before a read has to wait for the upstream.
+     * After that the value is retained for staleIfError longer and only returned when the load fails.
+     */
+    @Getter @Setter
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class CacheSpec {
+        private Duration ttl;
+        private Duration developmentTtl;
+        private Duration maxStale;
+        private Duration staleIfError;
+        private long maximumWeight;
+
+        public Duration ttl(boolean production) {
+            return production || developmentTtl == null ? ttl : developmentTtl;
+        }
+    }
+
+    /**
+     * Settings of the scheduled market list snapshot that coin pages are served from.
+     */
+    @Getter @Setter
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class MarketSnapshot {
+        private boolean enabled = true;
+        private List<String> currencies = List.of("usd", "eur");
+        private int pages = 4;
+        private int perPage = 250; // CoinGecko maximum
+        private Duration interval = Duration.ofMinutes(2);
+        private Duration maxAge = Duration.ofMinutes(10); // older snapshots fall back to the page cache
+    }
+
+    /**
+     * Settings of the local coin search index serving the search endpoint.
+     */
+    @Getter @Setter
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class SearchIndex {
+        private boolean enabled = true;
+        private Duration interval = Duration.ofMinutes(2); // rebuild check, picks up new snapshot ranks
+        private Duration listRefresh = Duration.ofHours(6); // full coin list fetch
+        private int limit = 25;
+        private int suggestTopK = 10; // coins precomputed per prefix, upper bound of the suggest limit
+        private int suggestMaxDepth = 24; // longest prefix with its own trie node
+    }
+
+    /**
+     * Settings of the Postgres market chart history that charts are read from before CoinGecko.
+     */
+    @Getter @Setter
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class PriceHistory {
+        private boolean enabled = true;
+        private Duration syncInterval = Duration.ofDays(1); // newest points are fetched at most this often per coin
+        private boolean segmentsEnabled = true; // mirror the history into memory-mapped segment files
+        private String segmentDirectory = "data/segments";
+        private long maxSegments = 10_000; // mapped at once, each one counts against vm.max_map_count
+    }
+
+    /**
+     * Settings of the cache warm-up that runs before the application reports itself ready.
+     */
+    @Getter @Setter
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class WarmUp {
+        private boolean enabled = true;
+        private List<String> currencies = List.of("usd");
+        private int pages = 1;
+        private int perPage = 10; // frontend default page size
+        private int topCoins = 6; // coins whose data and charts are preloaded, two upstream calls each
+        private List<Integer> chartDays = List.of(7, 30);
+        private int maxUpstreamCalls = 15; // the request budget's headroom above the warm-up reserve at 30 requests per minute
+        private int parallelism = 4;
+        private Duration timeout = Duration.ofSeconds(60);
+    }
+
+    /**
+     * Settings of the Server-Sent Events price stream fed by the market snapshot.
+     */
+    @Getter @Setter
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class PriceStream {
+        private int maxSubscribers = 50_000;
+        private int maxIdsPerSubscriber = 250;
+        private Duration timeout = Duration.ofMinutes(30); // clients reconnect after this
+        private Duration heartbeatInterval = Duration.ofSeconds(30);
+    }
+
+    /**
+     * Settings of the batch coin data endpoint.
+     */
+    @Getter @Setter
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class CoinBatch {
+        private int maxIds = 50;
+        private int concurrency = 8; // upstream loads in flight across all batches
+        private Duration timeout = Duration.ofSeconds(10); // coins not loaded by then are reported as timed out
+    }
+
+    /**
+     * Settings of the currency conversion layer. When enabled, market data is fetched in the base currency
+     * only and every other currency is derived from it with the exchange rate table.
+     */
+    @Getter @Setter
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Fx {
+        private boolean enabled = true;
+        private String baseCurrency = "usd";
+        private Duration interval = Duration.ofMinutes(10);
+        private Duration maxAge = Duration.ofHours(1); // older rates fall back to fetching the currency itself
+    }
 
-}
\ No newline at end of file
+}
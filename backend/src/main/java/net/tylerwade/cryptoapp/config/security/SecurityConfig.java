@@ -2,6 +2,7 @@ package net.tylerwade.cryptoapp.config.security;
 
 import lombok.RequiredArgsConstructor;
 import net.tylerwade.cryptoapp.config.security.jwt.JwtAuthenticationFilter;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.http.HttpMethod;
@@ -18,14 +19,25 @@ public class SecurityConfig {
     private final CustomAccessDeniedHandler accessDeniedHandler;
     private final CustomAuthenticationEntryPoint authenticationEntryPoint;
 
+    /**
+     * Security rules for the application and, as Spring Boot applies the same filter chain there, the
+     * management port. Health is public, metrics are only served to requests on the management port,
+     * which must not be exposed outside the internal network.
+     */
     @Bean
-    public SecurityFilterChain securityFilterChain(HttpSecurity http) throws Exception {
+    public SecurityFilterChain securityFilterChain(HttpSecurity http,
+                                                   @Value("${management.server.port:-1}") int managementPort) throws Exception {
         return http
                 .csrf(AbstractHttpConfigurer::disable)
                 .authorizeHttpRequests(auth -> auth
                         .requestMatchers(HttpMethod.OPTIONS, "/**").permitAll()
                         .requestMatchers("/api/v*/auth/**").permitAll()
                         .requestMatchers("/api/v*/coins/**").permitAll()
+                        .requestMatchers("/status", "/status/**").permitAll()
+                        .requestMatchers("/actuator/health", "/actuator/health/**").permitAll()
+                        .requestMatchers(request -> managementPort > 0 && request.getLocalPort() == managementPort
+                                && request.getRequestURI().equals("/actuator/prometheus")).permitAll()
+                        .requestMatchers("/actuator/**").denyAll()
                         .anyRequest().authenticated()
                 )
                 .sessionManagement(session -> session
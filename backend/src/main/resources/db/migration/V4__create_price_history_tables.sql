@@ -0,0 +1,28 @@
+-- Daily market chart points per coin and currency, appended as they are fetched from CoinGecko.
+-- Values are null where CoinGecko has no data.
+CREATE TABLE IF NOT EXISTS price_history (
+    coin_id VARCHAR(255) NOT NULL,
+    vs_currency VARCHAR(16) NOT NULL,
+    ts TIMESTAMPTZ NOT NULL,
+    price DOUBLE PRECISION,
+    market_cap DOUBLE PRECISION,
+    total_volume DOUBLE PRECISION,
+    PRIMARY KEY (coin_id, vs_currency, ts)
+);
+
+-- Rows are appended in time order, so a BRIN index keeps time range scans across coins
+-- (retention, bulk exports) cheap at a fraction of a btree's size.
+CREATE INDEX IF NOT EXISTS price_history_ts_brin ON price_history USING BRIN (ts);
+
+COMMIT;
+
+-- How far back the history of a coin reaches and when its newest points were last fetched.
+CREATE TABLE IF NOT EXISTS price_history_sync (
+    coin_id VARCHAR(255) NOT NULL,
+    vs_currency VARCHAR(16) NOT NULL,
+    covered_from TIMESTAMPTZ NOT NULL,
+    synced_at TIMESTAMPTZ NOT NULL,
+    PRIMARY KEY (coin_id, vs_currency)
+);
+
+COMMIT;
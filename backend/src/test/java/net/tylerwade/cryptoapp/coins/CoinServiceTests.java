@@ -0,0 +1,260 @@
+package net.tylerwade.cryptoapp.coins;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sun.net.httpserver.HttpServer;
+import net.tylerwade.cryptoapp.coins.cache.CoinCacheManager;
+import net.tylerwade.cryptoapp.coins.cache.CoinCacheStats;
+import net.tylerwade.cryptoapp.coins.cache.EncodedBody;
+import net.tylerwade.cryptoapp.coins.cache.EncodedBodyCache;
+import net.tylerwade.cryptoapp.coins.coingecko.CoinGeckoClient;
+import net.tylerwade.cryptoapp.coins.coingecko.UpstreamBudget;
+import net.tylerwade.cryptoapp.coins.fx.ExchangeRateResponse;
+import net.tylerwade.cryptoapp.coins.fx.ExchangeRateStore;
+import net.tylerwade.cryptoapp.coins.fx.ExchangeRates;
+import net.tylerwade.cryptoapp.coins.history.ChartSegmentStore;
+import net.tylerwade.cryptoapp.coins.history.PriceHistoryStore;
+import net.tylerwade.cryptoapp.coins.query.CoinSearchIndexStore;
+import net.tylerwade.cryptoapp.coins.snapshot.MarketSnapshotStore;
+import net.tylerwade.cryptoapp.config.CoinGeckoProperties;
+import net.tylerwade.cryptoapp.config.CryptoAppProperties;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.StringJoiner;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class CoinServiceTests {
+
+    private static final int CONCURRENT_REQUESTS = 32;
+
+    private HttpServer upstream;
+    private final AtomicInteger upstreamHits = new AtomicInteger();
+    private final AtomicInteger chartUpstreamHits = new AtomicInteger();
+    private final AtomicInteger marketsUpstreamHits = new AtomicInteger();
+    private final List<String> marketsQueries = new CopyOnWriteArrayList<>();
+    private volatile int upstreamStatus = 200;
+    private CoinCacheManager coinCacheManager;
+
+    @BeforeEach
+    void startUpstream() throws IOException {
+        upstream = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        upstream.setExecutor(Executors.newCachedThreadPool());
+        upstream.createContext("/coins/bitcoin", exchange -> {
+            upstreamHits.incrementAndGet();
+            sleep(200); // Keep the call in flight while the other requests miss
+            byte[] body = "{\"id\":\"bitcoin\",\"symbol\":\"btc\",\"name\":\"Bitcoin\"}".getBytes(StandardCharsets.UTF_8);
+            exchange.getResponseHeaders().set("Content-Type", "application/json");
+            exchange.sendResponseHeaders(upstreamStatus, body.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(body);
+            }
+        });
+        upstream.createContext("/coins/bitcoin/market_chart", exchange -> {
+            chartUpstreamHits.incrementAndGet();
+            long day = TimeUnit.DAYS.toMillis(1);
+            long now = System.currentTimeMillis();
+            StringJoiner points = new StringJoiner(",", "[", "]");
+            for (int i = 4; i >= 0; i--) {
+                points.add("[" + (now - i * day) + "," + (100.0 + 10 * i) + "]");
+            }
+            byte[] body = ("{\"prices\":" + points + ",\"market_caps\":" + points + ",\"total_volumes\":" + points + "}")
+                    .getBytes(StandardCharsets.UTF_8);
+            exchange.getResponseHeaders().set("Content-Type", "application/json");
+            exchange.sendResponseHeaders(200, body.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(body);
+            }
+        });
+        upstream.createContext("/coins/markets", exchange -> {
+            // Only bitcoin exists upstream
+            marketsUpstreamHits.incrementAndGet();
+            marketsQueries.add(exchange.getRequestURI().getQuery());
+            String query = exchange.getRequestURI().getQuery();
+            String coins = query.contains("bitcoin") ? "[{\"id\":\"bitcoin\",\"symbol\":\"btc\",\"market_cap\":1.2E12}]" : "[]";
+            byte[] body = coins.getBytes(StandardCharsets.UTF_8);
+            exchange.getResponseHeaders().set("Content-Type", "application/json");
+            exchange.sendResponseHeaders(200, body.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(body);
+            }
+        });
+        upstream.start();
+    }
+
+    @AfterEach
+    void stopUpstream() {
+        upstream.stop(0);
+    }
+
+    @Test
+    void concurrentMissesShareSingleUpstreamCall() throws Exception {
+        CoinService coinService = createCoinService();
+
+        List<CoinData> results = fireConcurrently(() -> coinService.getCoinById("bitcoin"));
+
+        assertEquals(1, upstreamHits.get());
+        assertEquals(CONCURRENT_REQUESTS, results.size());
+        results.forEach(coinData -> assertEquals("bitcoin", coinData.getId()));
+    }
+
+    @Test
+    void concurrentMissesShareUpstreamFailure() throws Exception {
+        upstreamStatus = 500;
+        CoinService coinService = createCoinService();
+
+        List<CoinData> results = fireConcurrently(() -> coinService.getCoinById("bitcoin"));
+
+        assertEquals(1, upstreamHits.get());
+        assertEquals(0, results.size());
+        // Failures are not cached, the next miss goes upstream again
+        assertThrows(RuntimeException.class, () -> coinService.getCoinById("bitcoin"));
+        assertEquals(2, upstreamHits.get());
+    }
+
+    @Test
+    void idsUnknownUpstreamAreNotRequestedAgain() {
+        CoinService coinService = createCoinService();
+
+        assertEquals(1, coinService.getCoins("usd", 1, 10, "bitcoin,made-up-coin").length);
+        assertEquals(1, marketsUpstreamHits.get());
+
+        assertEquals(0, coinService.getCoins("usd", 1, 10, "made-up-coin").length);
+        assertEquals(1, coinService.getCoins("usd", 1, 10, "made-up-coin,bitcoin").length);
+        assertEquals(1, marketsUpstreamHits.get());
+
+        assertEquals(0, coinService.getCoins("usd", 1, 10, "made-up-coin,other-coin").length);
+        assertEquals(2, marketsUpstreamHits.get());
+        assertTrue(marketsQueries.get(1).endsWith("&ids=other-coin"), marketsQueries.get(1));
+    }
+
+    @Test
+    void convertedChartColumnsChangeVersionWithTheExchangeRate() throws InterruptedException {
+        ExchangeRateStore exchangeRateStore = new ExchangeRateStore(new CryptoAppProperties());
+        CoinService coinService = createCoinService(exchangeRateStore);
+        exchangeRateStore.put(ExchangeRates.of(rates(0.9), LocalDateTime.now()));
+        EncodedBody before = coinService.getMarketChartColumnsBody("bitcoin", 7, "eur", null);
+        assertEquals(before.getEtag(), coinService.getMarketChartColumnsBody("bitcoin", 7, "eur", null).getEtag());
+
+        Thread.sleep(5); // Distinct fetch time
+        LocalDateTime fetchedAt = LocalDateTime.now();
+        exchangeRateStore.put(ExchangeRates.of(rates(0.8), fetchedAt));
+        EncodedBody after = coinService.getMarketChartColumnsBody("bitcoin", 7, "eur", null);
+
+        assertNotEquals(before.getEtag(), after.getEtag());
+        assertEquals(fetchedAt, after.getCachedAt());
+        assertEquals(1, chartUpstreamHits.get(), "Conversion must not refetch the base chart");
+    }
+
+    @Test
+    void outdatedDownsampledChartIsCountedOnceWhenReplaced() throws InterruptedException {
+        CoinService coinService = createCoinService();
+        coinService.getMarketChartData("bitcoin", 4, "USD", 3);
+        coinService.getMarketChartData("bitcoin", 4, "usd", 3);
+        assertEquals(1, downsampledChartStats().hits());
+        assertEquals(1, downsampledChartStats().misses());
+        assertEquals(1, downsampledChartStats().size(), "Currencies differing in case share one sample");
+
+        Thread.sleep(5); // Distinct fetch time
+        coinService.getMarketChartData("bitcoin", 30, "usd"); // Replaces the source chart with a wider one
+        assertEquals(3, coinService.getMarketChartData("bitcoin", 4, "usd", 3).getPrices().size());
+
+        assertEquals(1, downsampledChartStats().hits());
+        assertEquals(2, downsampledChartStats().misses());
+    }
+
+    private CoinCacheStats downsampledChartStats() {
+        return coinCacheManager.stats().stream()
+                .filter(stats -> stats.name().equals("downsampledChart"))
+                .findFirst().orElseThrow();
+    }
+
+    private CoinService createCoinService() {
+        CryptoAppProperties cryptoAppProperties = new CryptoAppProperties();
+        return createCoinService(new ExchangeRateStore(cryptoAppProperties));
+    }
+
+    private CoinService createCoinService(ExchangeRateStore exchangeRateStore) {
+        CoinGeckoProperties coinGeckoProperties = new CoinGeckoProperties();
+        coinGeckoProperties.setApiUrl("http://localhost:" + upstream.getAddress().getPort());
+        coinGeckoProperties.setApiKey("test-key");
+        ObjectMapper objectMapper = Jackson2ObjectMapperBuilder.json().build();
+        CoinGeckoClient coinGeckoClient = new CoinGeckoClient(coinGeckoProperties, objectMapper, new UpstreamBudget(coinGeckoProperties));
+        CryptoAppProperties cryptoAppProperties = new CryptoAppProperties();
+        cryptoAppProperties.getPriceHistory().setEnabled(false);
+        return new CoinService(coinGeckoClient, cryptoAppProperties,
+                coinCacheManager = new CoinCacheManager(cryptoAppProperties), new MarketSnapshotStore(exchangeRateStore), new CoinSearchIndexStore(),
+                new PriceHistoryStore(null, new ChartSegmentStore(cryptoAppProperties), cryptoAppProperties),
+                new EncodedBodyCache(objectMapper, cryptoAppProperties), exchangeRateStore);
+    }
+
+    private static ExchangeRateResponse rates(double eurPerUsd) {
+        ExchangeRateResponse response = new ExchangeRateResponse();
+        response.setRates(Map.of("usd", rate(60_000), "eur", rate(60_000 * eurPerUsd)));
+        return response;
+    }
+
+    private static ExchangeRateResponse.Rate rate(double value) {
+        ExchangeRateResponse.Rate rate = new ExchangeRateResponse.Rate();
+        rate.setValue(value);
+        return rate;
+    }
+
+    /**
+     * Run the call from many threads released at the same time.
+     * @return successful results, failed calls are left out
+     */
+    private <T> List<T> fireConcurrently(Callable<T> call) throws InterruptedException {
+        ExecutorService executor = Executors.newFixedThreadPool(CONCURRENT_REQUESTS);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<T>> futures = new ArrayList<>();
+        for (int i = 0; i < CONCURRENT_REQUESTS; i++) {
+            futures.add(executor.submit(() -> {
+                start.await();
+                return call.call();
+            }));
+        }
+        start.countDown();
+        executor.shutdown();
+        executor.awaitTermination(10, TimeUnit.SECONDS);
+
+        List<T> results = new ArrayList<>();
+        for (Future<T> future : futures) {
+            try {
+                results.add(future.get());
+            } catch (Exception ignored) {
+                // Failed call
+            }
+        }
+        return results;
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
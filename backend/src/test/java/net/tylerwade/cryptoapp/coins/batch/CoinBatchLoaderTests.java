@@ -0,0 +1,88 @@
+package net.tylerwade.cryptoapp.coins.batch;
+
+import net.tylerwade.cryptoapp.coins.CoinData;
+import net.tylerwade.cryptoapp.coins.CoinService;
+import net.tylerwade.cryptoapp.common.exception.HttpRequestException;
+import net.tylerwade.cryptoapp.config.CryptoAppProperties;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class CoinBatchLoaderTests {
+
+    @Test
+    void returnsPartialResultsWithPerIdErrors() {
+        CoinService coinService = mock(CoinService.class);
+        CoinData bitcoin = coinData("bitcoin");
+        CoinData ethereum = coinData("ethereum");
+        when(coinService.getCachedCoinById("bitcoin")).thenReturn(bitcoin);
+        when(coinService.getCoinById("ethereum")).thenReturn(ethereum);
+        when(coinService.getCoinById("unknown")).thenThrow(HttpRequestException.notFound("Coin not found: unknown"));
+        when(coinService.getCoinById("slow")).thenAnswer(invocation -> {
+            Thread.sleep(5_000);
+            return coinData("slow");
+        });
+        CryptoAppProperties properties = new CryptoAppProperties();
+        properties.getCoinBatch().setTimeout(Duration.ofMillis(300));
+        CoinBatchLoader loader = new CoinBatchLoader(coinService, properties);
+
+        CoinBatch batch = loader.load("Ethereum, bitcoin,unknown,slow,bitcoin");
+        loader.close();
+
+        assertEquals(List.of("bitcoin", "ethereum"), List.copyOf(batch.coins().keySet()));
+        assertSame(bitcoin, batch.coins().get("bitcoin"));
+        assertSame(ethereum, batch.coins().get("ethereum"));
+        assertEquals(404, batch.errors().get("unknown").status());
+        assertEquals(504, batch.errors().get("slow").status());
+        verify(coinService, never()).getCoinById("bitcoin");
+    }
+
+    @Test
+    void timedOutLoadsAreNotInterrupted() throws InterruptedException {
+        CoinService coinService = mock(CoinService.class);
+        CountDownLatch finished = new CountDownLatch(1);
+        when(coinService.getCoinById("slow")).thenAnswer(invocation -> {
+            // Other requests may be waiting on the same load, it has to complete into the cache
+            Thread.sleep(300);
+            finished.countDown();
+            return coinData("slow");
+        });
+        CryptoAppProperties properties = new CryptoAppProperties();
+        properties.getCoinBatch().setTimeout(Duration.ofMillis(50));
+        CoinBatchLoader loader = new CoinBatchLoader(coinService, properties);
+
+        CoinBatch batch = loader.load("slow");
+
+        assertEquals(504, batch.errors().get("slow").status());
+        assertTrue(finished.await(5, TimeUnit.SECONDS));
+        loader.close();
+    }
+
+    @Test
+    void rejectsTooManyIds() {
+        CryptoAppProperties properties = new CryptoAppProperties();
+        properties.getCoinBatch().setMaxIds(2);
+        CoinBatchLoader loader = new CoinBatchLoader(mock(CoinService.class), properties);
+
+        assertThrows(HttpRequestException.class, () -> loader.load("a,b,c"));
+        assertThrows(HttpRequestException.class, () -> loader.load(" , "));
+    }
+
+    private static CoinData coinData(String id) {
+        CoinData coinData = new CoinData();
+        coinData.setId(id);
+        return coinData;
+    }
+}
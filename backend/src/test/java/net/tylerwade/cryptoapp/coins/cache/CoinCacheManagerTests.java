@@ -0,0 +1,29 @@
+package net.tylerwade.cryptoapp.coins.cache;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import net.tylerwade.cryptoapp.config.CryptoAppProperties;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class CoinCacheManagerTests {
+
+    @Test
+    void cachesCreatedBeforeAndAfterBindingPublishMeters() {
+        CryptoAppProperties properties = new CryptoAppProperties();
+        CoinCacheManager manager = new CoinCacheManager(properties);
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        CoinCache<String, String> early = manager.create("early", properties.getCaches().getCoinData(), value -> 1, key -> key);
+        manager.bindTo(registry);
+        CoinCache<String, String> late = manager.create("late", properties.getCaches().getCoinData(), value -> 1, key -> key);
+
+        early.get("bitcoin");
+        early.get("bitcoin");
+        late.get("ethereum");
+
+        assertEquals(1, registry.get("coins.cache.gets").tags("cache", "early", "result", "hit").functionCounter().count());
+        assertEquals(1, registry.get("coins.cache.gets").tags("cache", "early", "result", "miss").functionCounter().count());
+        assertEquals(1, registry.get("coins.cache.size").tag("cache", "late").gauge().value());
+        manager.shutdown();
+    }
+}
@@ -0,0 +1,162 @@
+package net.tylerwade.cryptoapp.coins.cache;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class CoinCacheTests {
+
+    private static final Duration SOFT_TTL = Duration.ofMinutes(1);
+    private static final Duration HARD_TTL = Duration.ofMinutes(5);
+    private static final Duration STALE_IF_ERROR = Duration.ofHours(1);
+
+    private final AtomicLong nanos = new AtomicLong();
+    private final AtomicInteger bulkLoads = new AtomicInteger();
+    private final AtomicInteger singleLoads = new AtomicInteger();
+    private final AtomicBoolean failing = new AtomicBoolean();
+    private final List<String> ids = IntStream.range(0, 15).mapToObj(i -> "coin-" + i).toList();
+
+    @Test
+    void softExpiredValuesAreServedWhileRefreshed() {
+        CoinCache<String, String> cache = createCache(null);
+        assertEquals("bitcoin-1", cache.get("bitcoin"));
+
+        advance(SOFT_TTL.plusSeconds(1));
+
+        assertEquals("bitcoin-1", cache.get("bitcoin"));
+        assertEquals("bitcoin-2", cache.get("bitcoin"));
+        assertEquals(2, singleLoads.get());
+        assertEquals(1, cache.stats().refreshes());
+        assertEquals(2, cache.stats().hits());
+        assertEquals(1, cache.stats().misses());
+    }
+
+    @Test
+    void valuesPastTheHardTtlWaitForTheLoad() {
+        CoinCache<String, String> cache = createCache(null);
+        cache.get("bitcoin");
+
+        advance(HARD_TTL.plusSeconds(1));
+
+        assertEquals("bitcoin-2", cache.get("bitcoin"));
+        assertEquals(0, cache.stats().refreshes());
+        assertEquals(2, cache.stats().misses());
+    }
+
+    @Test
+    void failedLoadsServeRetainedValuesUntilStaleIfErrorEnds() {
+        CoinCache<String, String> cache = createCache(null);
+        cache.get("bitcoin");
+        failing.set(true);
+
+        advance(HARD_TTL.plusSeconds(1));
+        assertEquals("bitcoin-1", cache.get("bitcoin"));
+
+        advance(STALE_IF_ERROR);
+        assertThrows(IllegalStateException.class, () -> cache.get("bitcoin"));
+        assertEquals(1, cache.stats().staleFallbacks());
+    }
+
+    @Test
+    void softExpiredKeysReadTogetherAreRefreshedWithOneBulkLoad() {
+        CoinCache<String, String> cache = createCache(this::loadAll);
+        cache.getAll(ids, this::loadAll);
+        assertEquals(1, bulkLoads.get());
+
+        advance(SOFT_TTL.multipliedBy(2));
+        cache.getAll(ids, this::loadAll);
+
+        assertEquals(2, bulkLoads.get());
+        assertEquals(0, singleLoads.get());
+        assertEquals(ids.size(), cache.stats().refreshes());
+    }
+
+    @Test
+    void refreshAheadUsesBulkLoader() {
+        CoinCache<String, String> cache = createCache(this::loadAll);
+        cache.getAll(ids, this::loadAll);
+
+        advance(SOFT_TTL.multipliedBy(3).dividedBy(4)); // Past the ahead threshold, still recently read
+        cache.refreshAhead(0.5);
+
+        assertEquals(2, bulkLoads.get());
+        assertEquals(0, singleLoads.get());
+    }
+
+    @Test
+    void valuesOnlyRetainedForStaleIfErrorCountAsMisses() {
+        CoinCache<String, String> cache = createCache(null);
+        cache.get("bitcoin");
+        cache.get("bitcoin");
+
+        advance(HARD_TTL.plusSeconds(1));
+        failing.set(true);
+
+        assertEquals("bitcoin-1", cache.get("bitcoin"));
+        CoinCacheStats stats = cache.stats();
+        assertEquals(1, stats.hits());
+        assertEquals(2, stats.misses());
+        assertEquals(1, stats.staleFallbacks());
+    }
+
+    @Test
+    void readsOfFallbackValuesAreMarkedStaleAndRefreshedSooner() {
+        AtomicInteger loads = new AtomicInteger();
+        CoinCache<String, FallbackValue> cache = new CoinCache<>("test", Duration.ofMinutes(10), Duration.ofMinutes(30),
+                STALE_IF_ERROR, 1_000, value -> 1,
+                id -> loads.incrementAndGet() == 1 ? () -> Duration.ofHours(2) : () -> null,
+                null, Runnable::run, nanos::get);
+        RequestContextHolder.setRequestAttributes(new ServletRequestAttributes(new MockHttpServletRequest()));
+        try {
+            cache.get("bitcoin");
+            // A second request reading the cached fallback is stale as well
+            RequestContextHolder.setRequestAttributes(new ServletRequestAttributes(new MockHttpServletRequest()));
+            cache.get("bitcoin");
+            assertEquals(Duration.ofHours(2), StaleMarker.get());
+
+            advance(CoinCache.FALLBACK_TTL.plusSeconds(1));
+            cache.get("bitcoin");
+            assertEquals(2, loads.get());
+        } finally {
+            RequestContextHolder.resetRequestAttributes();
+        }
+    }
+
+    private CoinCache<String, String> createCache(Function<Set<String>, Map<String, String>> bulkLoader) {
+        Function<String, String> loader = id -> {
+            if (failing.get()) {
+                throw new IllegalStateException("upstream down");
+            }
+            return id + "-" + singleLoads.incrementAndGet();
+        };
+        // Refreshes run on the reading thread so the counts are settled when the read returns
+        return new CoinCache<>("test", SOFT_TTL, HARD_TTL, STALE_IF_ERROR, 1_000,
+                value -> 1, loader, bulkLoader, Runnable::run, nanos::get);
+    }
+
+    private Map<String, String> loadAll(Set<String> keys) {
+        bulkLoads.incrementAndGet();
+        Map<String, String> values = new HashMap<>();
+        keys.forEach(key -> values.put(key, key));
+        return values;
+    }
+
+    private void advance(Duration duration) {
+        nanos.addAndGet(duration.toNanos());
+    }
+}
@@ -0,0 +1,87 @@
+package net.tylerwade.cryptoapp.coins.cache;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import net.tylerwade.cryptoapp.coins.CoinController;
+import net.tylerwade.cryptoapp.coins.CoinData;
+import net.tylerwade.cryptoapp.coins.CoinService;
+import net.tylerwade.cryptoapp.coins.batch.CoinBatchLoader;
+import net.tylerwade.cryptoapp.coins.screener.CoinScreener;
+import net.tylerwade.cryptoapp.coins.stream.PriceStream;
+import net.tylerwade.cryptoapp.config.CryptoAppProperties;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.http.converter.json.MappingJackson2HttpMessageConverter;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+
+import java.time.LocalDateTime;
+
+import static org.hamcrest.Matchers.matchesPattern;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+class ConditionalResponseAdviceTests {
+
+    @Test
+    void matchingETagIsAnsweredWithNotModified() throws Exception {
+        CoinService coinService = mock(CoinService.class);
+        CoinData coinData = new CoinData();
+        coinData.setId("bitcoin");
+        coinData.setCachedAt(LocalDateTime.now().minusSeconds(30));
+        CryptoAppProperties properties = new CryptoAppProperties();
+        properties.setEnvironment("production");
+        ObjectMapper objectMapper = Jackson2ObjectMapperBuilder.json().build();
+        EncodedBodyCache encodedBodyCache = new EncodedBodyCache(objectMapper, properties);
+        when(coinService.getCoinByIdBody("bitcoin")).thenAnswer(invocation -> encodedBodyCache.encode(coinData, coinData.getCachedAt()));
+        MockMvc mockMvc = mockMvc(coinService, properties, objectMapper);
+
+        String etag = mockMvc.perform(get("/api/v1/coins/bitcoin"))
+                .andExpect(status().isOk())
+                .andExpect(header().exists(HttpHeaders.LAST_MODIFIED))
+                .andExpect(jsonPath("$.id").value("bitcoin"))
+                .andExpect(header().string(HttpHeaders.CACHE_CONTROL,
+                        matchesPattern("public, max-age=(8\\d|90), stale-while-revalidate=600")))
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+
+        mockMvc.perform(get("/api/v1/coins/bitcoin").header(HttpHeaders.IF_NONE_MATCH, etag))
+                .andExpect(status().isNotModified())
+                .andExpect(header().string(HttpHeaders.ETAG, etag))
+                .andExpect(content().string(""));
+
+        coinData.setCachedAt(LocalDateTime.now());
+        mockMvc.perform(get("/api/v1/coins/bitcoin").header(HttpHeaders.IF_NONE_MATCH, etag))
+                .andExpect(status().isOk());
+    }
+
+    @Test
+    void staleWhileRevalidateIsLeftOutWithoutMaxStale() throws Exception {
+        CoinService coinService = mock(CoinService.class);
+        CoinData coinData = new CoinData();
+        coinData.setId("bitcoin");
+        CryptoAppProperties properties = new CryptoAppProperties();
+        properties.setEnvironment("production");
+        properties.getCaches().getCoinData().setMaxStale(null);
+        ObjectMapper objectMapper = Jackson2ObjectMapperBuilder.json().build();
+        EncodedBodyCache encodedBodyCache = new EncodedBodyCache(objectMapper, properties);
+        when(coinService.getCoinByIdBody("bitcoin")).thenAnswer(invocation -> encodedBodyCache.encode(coinData, null));
+
+        mockMvc(coinService, properties, objectMapper).perform(get("/api/v1/coins/bitcoin"))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.CACHE_CONTROL,
+                        "public, max-age=" + properties.getCaches().getCoinData().getTtl().toSeconds()));
+    }
+
+    private static MockMvc mockMvc(CoinService coinService, CryptoAppProperties properties, ObjectMapper objectMapper) {
+        return MockMvcBuilders
+                .standaloneSetup(new CoinController(coinService, mock(CoinScreener.class), mock(PriceStream.class), mock(CoinBatchLoader.class)))
+                .setControllerAdvice(new ConditionalResponseAdvice(properties))
+                .setMessageConverters(new EncodedBodyHttpMessageConverter(), new MappingJackson2HttpMessageConverter(objectMapper))
+                .build();
+    }
+}
@@ -0,0 +1,58 @@
+package net.tylerwade.cryptoapp.coins.cache;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import net.tylerwade.cryptoapp.config.CryptoAppProperties;
+import org.junit.jupiter.api.Test;
+
+import java.lang.ref.WeakReference;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+class EncodedBodyCacheTests {
+
+    private final EncodedBodyCache cache = new EncodedBodyCache(new ObjectMapper(), new CryptoAppProperties());
+    private final AtomicInteger encodes = new AtomicInteger();
+
+    @Test
+    void bodiesAreBuiltOncePerSourceInstanceAndVariant() {
+        List<String> source = List.of("bitcoin");
+        List<String> reloaded = new ArrayList<>(source); // Equal, but a new load
+
+        EncodedBody body = get(source, 1);
+        assertSame(body, get(source, 1));
+        get(source, 2);
+        get(reloaded, 1);
+
+        assertEquals(3, encodes.get());
+    }
+
+    @Test
+    void bodiesDoNotKeepTheirSourceReachable() throws InterruptedException {
+        WeakReference<Object> source = cacheBodyOfNewSource();
+
+        for (int i = 0; i < 50 && source.get() != null; i++) {
+            System.gc();
+            Thread.sleep(10);
+        }
+
+        assertNull(source.get());
+    }
+
+    private WeakReference<Object> cacheBodyOfNewSource() {
+        List<String> source = new ArrayList<>(List.of("bitcoin"));
+        get(source, null);
+        return new WeakReference<>(source);
+    }
+
+    private EncodedBody get(Object source, Object variant) {
+        return cache.get(source, variant, null, () -> {
+            encodes.incrementAndGet();
+            return source;
+        });
+    }
+}
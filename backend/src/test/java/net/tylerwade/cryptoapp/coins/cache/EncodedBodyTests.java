@@ -0,0 +1,54 @@
+package net.tylerwade.cryptoapp.coins.cache;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.zip.GZIPInputStream;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+class EncodedBodyTests {
+
+    @Test
+    void gzipVariantIsChosenOnlyWhenAccepted() throws IOException {
+        byte[] json = ("[" + "{\"id\":\"bitcoin\",\"current_price\":67000.5},".repeat(100) + "{}]").getBytes(StandardCharsets.UTF_8);
+        EncodedBody body = EncodedBody.of(json, null, 1024);
+
+        EncodedBody gzip = body.forAcceptEncoding("br, gzip;q=0.8");
+        assertEquals(EncodedBody.GZIP, gzip.getContentEncoding());
+        assertEquals(body.getEtag(), gzip.getEtag());
+        try (GZIPInputStream in = new GZIPInputStream(new ByteArrayInputStream(gzip.bytes()))) {
+            assertArrayEquals(json, in.readAllBytes());
+        }
+
+        assertSame(body, body.forAcceptEncoding(null));
+        assertSame(body, body.forAcceptEncoding("gzip;q=0"));
+        assertSame(body, body.forAcceptEncoding("identity"));
+    }
+
+    @Test
+    void explicitGzipEntryTakesPrecedenceOverTheWildcard() {
+        byte[] json = ("[" + "{\"id\":\"bitcoin\"},".repeat(100) + "{}]").getBytes(StandardCharsets.UTF_8);
+        EncodedBody body = EncodedBody.of(json, null, 1024);
+
+        assertSame(body, body.forAcceptEncoding("*;q=0.5, gzip;q=0"));
+        assertSame(body, body.forAcceptEncoding("gzip;q=0.0, *"));
+        assertEquals(EncodedBody.GZIP, body.forAcceptEncoding("*;q=0, gzip").getContentEncoding());
+        assertEquals(EncodedBody.GZIP, body.forAcceptEncoding("br, *;q=0.1").getContentEncoding());
+        assertSame(body, body.forAcceptEncoding("br, *;q=0"));
+    }
+
+    @Test
+    void smallBodiesAreNotCompressed() {
+        EncodedBody body = EncodedBody.of("{}".getBytes(StandardCharsets.UTF_8), null, 1024);
+
+        assertSame(body, body.forAcceptEncoding("gzip"));
+        assertNull(body.getContentEncoding());
+        assertEquals(2, body.sizeInBytes());
+    }
+}
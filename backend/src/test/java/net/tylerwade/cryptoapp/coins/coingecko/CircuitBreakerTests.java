@@ -0,0 +1,131 @@
+package net.tylerwade.cryptoapp.coins.coingecko;
+
+import net.tylerwade.cryptoapp.common.exception.HttpRequestException;
+import net.tylerwade.cryptoapp.config.CoinGeckoProperties;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class CircuitBreakerTests {
+
+    private static final Duration OPEN_DURATION = Duration.ofSeconds(30);
+
+    private final AtomicLong nanos = new AtomicLong();
+    private final CoinGeckoProperties.Breaker settings = new CoinGeckoProperties.Breaker(
+            true, 3, 10, 4, 0.5, OPEN_DURATION, 2);
+
+    @Test
+    void consecutiveFailuresOpenTheCircuit() {
+        settings.setMinimumCalls(10); // Leave the failure rate out of it
+        CircuitBreaker breaker = createBreaker();
+
+        call(breaker, false);
+        call(breaker, false);
+        call(breaker, true); // Resets the consecutive failures
+        call(breaker, false);
+        call(breaker, false);
+        assertEquals(CircuitBreaker.State.CLOSED, breaker.state());
+
+        call(breaker, false);
+        assertEquals(CircuitBreaker.State.OPEN, breaker.state());
+        assertEquals(503, assertThrows(HttpRequestException.class, breaker::acquirePermission).getHttpStatus().value());
+    }
+
+    @Test
+    void failureRateOverTheWindowOpensTheCircuit() {
+        CircuitBreaker breaker = createBreaker();
+
+        // Never more than one failure in a row, but half of the last calls failed
+        for (int i = 0; i < 5; i++) {
+            call(breaker, true);
+        }
+        for (int i = 0; i < 4; i++) {
+            call(breaker, false);
+            call(breaker, true);
+        }
+        assertEquals(CircuitBreaker.State.CLOSED, breaker.state()); // 4 of 10 failed
+
+        call(breaker, false); // The oldest success leaves the window, 5 of 10 failed
+        assertEquals(CircuitBreaker.State.OPEN, breaker.state());
+    }
+
+    @Test
+    void circuitClosesAfterSuccessfulTrialCalls() {
+        CircuitBreaker breaker = openBreaker();
+
+        nanos.addAndGet(OPEN_DURATION.toNanos());
+        breaker.acquirePermission();
+        assertEquals(CircuitBreaker.State.HALF_OPEN, breaker.state());
+        breaker.acquirePermission();
+        assertThrows(HttpRequestException.class, breaker::acquirePermission); // Only the trial calls pass
+
+        breaker.record(true);
+        assertEquals(CircuitBreaker.State.HALF_OPEN, breaker.state());
+        breaker.record(true);
+        assertEquals(CircuitBreaker.State.CLOSED, breaker.state());
+
+        // Failures before the circuit opened are forgotten
+        call(breaker, false);
+        call(breaker, false);
+        assertEquals(CircuitBreaker.State.CLOSED, breaker.state());
+    }
+
+    @Test
+    void failedTrialCallOpensTheCircuitAgain() {
+        CircuitBreaker breaker = openBreaker();
+
+        nanos.addAndGet(OPEN_DURATION.toNanos());
+        call(breaker, false);
+
+        assertEquals(CircuitBreaker.State.OPEN, breaker.state());
+        nanos.addAndGet(OPEN_DURATION.minusSeconds(1).toNanos());
+        assertThrows(HttpRequestException.class, breaker::acquirePermission);
+    }
+
+    @Test
+    void releasedTrialPermitsCanBeTakenAgain() {
+        CircuitBreaker breaker = openBreaker();
+        nanos.addAndGet(OPEN_DURATION.toNanos());
+
+        breaker.acquirePermission();
+        breaker.acquirePermission();
+        breaker.release(); // E.g. rejected by the request budget before reaching CoinGecko
+
+        breaker.acquirePermission();
+        assertThrows(HttpRequestException.class, breaker::acquirePermission);
+    }
+
+    @Test
+    void disabledBreakerNeverOpens() {
+        settings.setEnabled(false);
+        CircuitBreaker breaker = createBreaker();
+
+        for (int i = 0; i < 10; i++) {
+            call(breaker, false);
+        }
+
+        assertEquals(CircuitBreaker.State.CLOSED, breaker.state());
+    }
+
+    private CircuitBreaker createBreaker() {
+        return new CircuitBreaker(CoinGeckoEndpoint.COIN, settings, nanos::get);
+    }
+
+    private CircuitBreaker openBreaker() {
+        CircuitBreaker breaker = createBreaker();
+        for (int i = 0; i < settings.getFailureThreshold(); i++) {
+            call(breaker, false);
+        }
+        assertEquals(CircuitBreaker.State.OPEN, breaker.state());
+        return breaker;
+    }
+
+    private static void call(CircuitBreaker breaker, boolean success) {
+        breaker.acquirePermission();
+        breaker.record(success);
+    }
+}
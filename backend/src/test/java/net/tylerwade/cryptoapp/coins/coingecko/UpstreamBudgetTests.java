@@ -0,0 +1,128 @@
+package net.tylerwade.cryptoapp.coins.coingecko;
+
+import net.tylerwade.cryptoapp.config.CoinGeckoProperties;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class UpstreamBudgetTests {
+
+    private final AtomicLong nanos = new AtomicLong();
+    private final List<Duration> parks = new ArrayList<>();
+    private final CoinGeckoProperties properties = new CoinGeckoProperties();
+
+    @Test
+    void reservesKeepTokensForHigherPriorities() {
+        UpstreamBudget budget = createBudget(60); // One token per second
+
+        acquire(budget, UpstreamPriority.SEARCH, 45);
+        assertThrows(UpstreamBudgetExhaustedException.class, () -> budget.acquire(UpstreamPriority.SEARCH));
+        assertEquals(List.of(), parks); // Search has no max wait and is rejected right away
+
+        acquire(budget, UpstreamPriority.MARKET, 9);
+        acquire(budget, UpstreamPriority.INTERACTIVE, 6);
+        assertEquals(0, budget.available(), 1e-9);
+        assertEquals(List.of(), parks);
+    }
+
+    @Test
+    void callsWaitForTheRefillWithinTheirMaxWait() {
+        UpstreamBudget budget = createBudget(60);
+        acquire(budget, UpstreamPriority.BACKFILL, 30);
+
+        budget.acquire(UpstreamPriority.BACKFILL);
+
+        assertEquals(List.of(Duration.ofSeconds(1)), parks);
+        assertEquals(30, budget.available(), 1e-9);
+    }
+
+    @Test
+    void callsWhoseTokenIsBeyondTheirMaxWaitAreRejected() {
+        UpstreamBudget budget = createBudget(60);
+        budget.exhausted();
+
+        // The warm-up reserve is half the bucket, 31 seconds away
+        assertThrows(UpstreamBudgetExhaustedException.class, () -> budget.acquire(UpstreamPriority.WARM_UP));
+        assertEquals(List.of(), parks);
+
+        budget.acquire(UpstreamPriority.INTERACTIVE);
+        assertEquals(List.of(Duration.ofSeconds(1)), parks);
+    }
+
+    @Test
+    void callsStillWithoutATokenAtTheirDeadlineAreRejected() {
+        properties.getBudget().setRequestsPerMinute(60);
+        List<UpstreamBudget> budgets = new ArrayList<>();
+        // Every time the caller wakes up, another call has already taken the refilled token
+        budgets.add(new UpstreamBudget(properties, nanos::get, waitNanos -> {
+            parks.add(Duration.ofNanos(waitNanos));
+            nanos.addAndGet(waitNanos);
+            budgets.get(0).acquire(UpstreamPriority.INTERACTIVE);
+        }));
+        UpstreamBudget budget = budgets.get(0);
+        budget.exhausted();
+
+        assertThrows(UpstreamBudgetExhaustedException.class, () -> budget.acquire(UpstreamPriority.INTERACTIVE));
+        assertEquals(5, parks.size()); // The interactive max wait
+    }
+
+    @Test
+    void headroomIsTheTokensAboveTheReserve() {
+        UpstreamBudget budget = createBudget(60);
+        assertEquals(30, budget.headroom(UpstreamPriority.WARM_UP));
+
+        budget.exhausted();
+        assertEquals(0, budget.headroom(UpstreamPriority.WARM_UP));
+
+        nanos.addAndGet(Duration.ofSeconds(40).toNanos());
+        assertEquals(10, budget.headroom(UpstreamPriority.WARM_UP));
+        assertEquals(40, budget.headroom(UpstreamPriority.INTERACTIVE));
+
+        nanos.addAndGet(Duration.ofMinutes(10).toNanos());
+        assertEquals(60, budget.available(), 1e-9); // The bucket holds one minute of requests
+    }
+
+    @Test
+    void configuredReserveAndMaxWaitOverrideThePriorityDefaults() {
+        properties.getBudget().getReserve().put(UpstreamPriority.SEARCH, 0.5);
+        properties.getBudget().getMaxWait().put(UpstreamPriority.SEARCH, Duration.ofSeconds(2));
+        UpstreamBudget budget = createBudget(60);
+
+        acquire(budget, UpstreamPriority.SEARCH, 30);
+        budget.acquire(UpstreamPriority.SEARCH);
+
+        assertEquals(List.of(Duration.ofSeconds(1)), parks);
+    }
+
+    @Test
+    void disabledBudgetNeverLimits() {
+        properties.getBudget().setEnabled(false);
+        UpstreamBudget budget = createBudget(1);
+
+        acquire(budget, UpstreamPriority.SEARCH, 10);
+
+        assertEquals(Integer.MAX_VALUE, budget.headroom(UpstreamPriority.WARM_UP));
+        assertEquals(List.of(), parks);
+    }
+
+    private UpstreamBudget createBudget(int requestsPerMinute) {
+        properties.getBudget().setRequestsPerMinute(requestsPerMinute);
+        // Parking moves the fake time forward instead of waiting
+        return new UpstreamBudget(properties, nanos::get, waitNanos -> {
+            parks.add(Duration.ofNanos(waitNanos));
+            nanos.addAndGet(waitNanos);
+        });
+    }
+
+    private static void acquire(UpstreamBudget budget, UpstreamPriority priority, int calls) {
+        for (int i = 0; i < calls; i++) {
+            budget.acquire(priority);
+        }
+    }
+}
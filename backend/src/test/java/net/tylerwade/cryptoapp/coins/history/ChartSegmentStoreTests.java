@@ -0,0 +1,70 @@
+package net.tylerwade.cryptoapp.coins.history;
+
+import net.tylerwade.cryptoapp.coins.marketchart.MarketChartKey;
+import net.tylerwade.cryptoapp.config.CryptoAppProperties;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ChartSegmentStoreTests {
+
+    @TempDir
+    Path directory;
+
+    private ChartSegmentStore store;
+
+    @BeforeEach
+    void createStore() {
+        CryptoAppProperties properties = new CryptoAppProperties();
+        properties.getPriceHistory().setSegmentDirectory(directory.resolve("segments").toString());
+        properties.getPriceHistory().setMaxSegments(2);
+        store = new ChartSegmentStore(properties);
+    }
+
+    @Test
+    void findDoesNotCreateSegments() {
+        assertNull(store.find(new MarketChartKey("no-such-coin", "usd")));
+
+        assertFalse(Files.exists(directory.resolve("segments")));
+        assertEquals(0, store.size());
+    }
+
+    @Test
+    void createdSegmentsAreFoundAgain() {
+        MarketChartKey key = new MarketChartKey("bitcoin", "usd");
+        ChartSegment created = store.create(key);
+
+        assertNotNull(created);
+        assertTrue(Files.exists(directory.resolve("segments").resolve("usd").resolve("bitcoin.seg")));
+        assertSame(created, store.find(key));
+    }
+
+    @Test
+    void rejectsKeysOutsideTheSegmentDirectoryAndUnknownCurrencies() {
+        assertNull(store.create(new MarketChartKey("..", "usd")));
+        assertNull(store.create(new MarketChartKey(".", "usd")));
+        assertNull(store.create(new MarketChartKey("bitcoin", "..")));
+        assertNull(store.create(new MarketChartKey("bitcoin", "xyz")));
+
+        assertFalse(Files.exists(directory.resolve("segments")));
+    }
+
+    @Test
+    void mappedSegmentsAreBounded() {
+        store.create(new MarketChartKey("bitcoin", "usd"));
+        store.create(new MarketChartKey("ethereum", "usd"));
+        store.create(new MarketChartKey("solana", "usd"));
+
+        assertEquals(2, store.size());
+    }
+}
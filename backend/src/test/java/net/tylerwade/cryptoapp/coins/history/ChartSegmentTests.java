@@ -0,0 +1,80 @@
+package net.tylerwade.cryptoapp.coins.history;
+
+import net.tylerwade.cryptoapp.coins.marketchart.MarketChart;
+import net.tylerwade.cryptoapp.coins.marketchart.MarketSeries;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ChartSegmentTests {
+
+    private static final long DAY = TimeUnit.DAYS.toMillis(1);
+    private static final long START = 1_700_000_000_000L;
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void committedRecordsSurviveReopenAndGrowth() throws Exception {
+        Path path = directory.resolve("usd").resolve("bitcoin.seg");
+        ChartSegment segment = ChartSegment.open(path);
+        segment.commit(chart(0, 400), Instant.ofEpochMilli(START), Instant.ofEpochMilli(START + 400 * DAY));
+        // Replaces the last point and grows past the initial capacity
+        segment.commit(chart(399, 700), Instant.ofEpochMilli(START), Instant.ofEpochMilli(START + 700 * DAY));
+
+        ChartSegment reopened = ChartSegment.open(path);
+
+        assertEquals(700, reopened.size());
+        assertEquals(Instant.ofEpochMilli(START + 700 * DAY), reopened.syncedAt());
+        MarketChart week = reopened.read(Instant.ofEpochMilli(START + 693 * DAY), LocalDateTime.now());
+        assertEquals(7, week.getPrices().size());
+        assertEquals(START + 693 * DAY, week.getPrices().timestamp(0));
+        assertEquals(693, week.getPrices().value(0));
+        assertEquals(693 * 10, week.getMarket_caps().value(0));
+        assertTrue(Double.isNaN(week.getTotal_volumes().value(0)));
+    }
+
+    @Test
+    void tornFooterFallsBackToPreviousCommit() throws Exception {
+        Path path = directory.resolve("bitcoin.seg");
+        ChartSegment segment = ChartSegment.open(path);
+        segment.commit(chart(0, 100), Instant.ofEpochMilli(START), Instant.ofEpochMilli(START + 100 * DAY));
+        segment.commit(chart(100, 120), Instant.ofEpochMilli(START), Instant.ofEpochMilli(START + 120 * DAY));
+
+        // Second commit went to footer slot 0, corrupt its count as if the write was torn
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.WRITE)) {
+            long footer = channel.size() - 2 * 48;
+            channel.write(ByteBuffer.wrap(new byte[]{1, 2, 3}), footer + 16);
+        }
+
+        ChartSegment reopened = ChartSegment.open(path);
+        assertEquals(100, reopened.size());
+        assertEquals(START + 99 * DAY, reopened.lastTimestamp());
+    }
+
+    private static MarketChart chart(int from, int to) {
+        int size = to - from;
+        long[] timestamps = new long[size];
+        double[] prices = new double[size];
+        double[] marketCaps = new double[size];
+        double[] totalVolumes = new double[size];
+        for (int i = 0; i < size; i++) {
+            timestamps[i] = START + (from + i) * DAY;
+            prices[i] = from + i;
+            marketCaps[i] = (from + i) * 10;
+            totalVolumes[i] = Double.NaN;
+        }
+        return new MarketChart(new MarketSeries(timestamps, prices), new MarketSeries(timestamps, marketCaps),
+                new MarketSeries(timestamps, totalVolumes), LocalDateTime.now());
+    }
+}
@@ -0,0 +1,139 @@
+package net.tylerwade.cryptoapp.coins.history;
+
+import net.tylerwade.cryptoapp.coins.marketchart.MarketChart;
+import net.tylerwade.cryptoapp.coins.marketchart.MarketChartKey;
+import net.tylerwade.cryptoapp.config.CryptoAppProperties;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.DataAccessResourceFailureException;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class PriceHistoryStoreTests {
+
+    private static final MarketChartKey KEY = new MarketChartKey("bitcoin", "usd");
+
+    private final PriceHistoryDao priceHistoryDao = mock(PriceHistoryDao.class);
+    private final MarketChart stored = new MarketChart();
+    private final List<Integer> fetches = new ArrayList<>();
+    private PriceHistoryStore store;
+
+    @BeforeEach
+    void setUp() {
+        CryptoAppProperties properties = new CryptoAppProperties();
+        properties.getPriceHistory().setSegmentsEnabled(false);
+        store = new PriceHistoryStore(priceHistoryDao, new ChartSegmentStore(properties), properties);
+        when(priceHistoryDao.findSince(eq(KEY), any(), any())).thenReturn(stored);
+    }
+
+    @Test
+    void firstLoadStoresOneFullFetch() {
+        HistoryChart chart = store.load(KEY, 30, this::fetch);
+
+        assertSame(stored, chart.chart());
+        assertFalse(chart.stale());
+        assertEquals(List.of(30), fetches);
+        verify(priceHistoryDao).replaceFrom(eq(KEY), any(), any(), any());
+    }
+
+    @Test
+    void freshHistoryIsServedWithoutFetching() {
+        when(priceHistoryDao.findSync(KEY)).thenReturn(sync(Duration.ofDays(90), Duration.ofHours(1)));
+
+        HistoryChart chart = store.load(KEY, 30, this::fetch);
+
+        assertSame(stored, chart.chart());
+        assertEquals(List.of(), fetches);
+        verify(priceHistoryDao, never()).replaceFrom(any(), any(), any(), any());
+    }
+
+    @Test
+    void outdatedHistoryFetchesOnlyTheDaysSinceTheNewestPoint() {
+        when(priceHistoryDao.findSync(KEY)).thenReturn(sync(Duration.ofDays(90), Duration.ofDays(3)));
+        when(priceHistoryDao.findLatestTimestamp(KEY)).thenReturn(Instant.now().minus(Duration.ofDays(3)));
+
+        store.load(KEY, 30, this::fetch);
+
+        assertEquals(List.of(4), fetches); // Overlapping the newest point by a day
+    }
+
+    @Test
+    void requestsBeyondTheStoredHistoryAreBackfilled() {
+        when(priceHistoryDao.findSync(KEY)).thenReturn(sync(Duration.ofDays(7), Duration.ofHours(1)));
+
+        store.load(KEY, 30, this::fetch);
+
+        assertEquals(List.of(30), fetches);
+        verify(priceHistoryDao, never()).findLatestTimestamp(any());
+    }
+
+    @Test
+    void failedSyncOfCoveredHistoryServesStoredPointsAsStale() {
+        when(priceHistoryDao.findSync(KEY)).thenReturn(sync(Duration.ofDays(90), Duration.ofDays(3)));
+        when(priceHistoryDao.findLatestTimestamp(KEY)).thenReturn(Instant.now().minus(Duration.ofDays(3)));
+
+        HistoryChart chart = store.load(KEY, 30, days -> {
+            throw new IllegalStateException("upstream down");
+        });
+
+        assertSame(stored, chart.chart());
+        assertTrue(chart.stale());
+    }
+
+    @Test
+    void failedBackfillIsThrown() {
+        when(priceHistoryDao.findSync(KEY)).thenReturn(sync(Duration.ofDays(7), Duration.ofHours(1)));
+
+        assertThrows(IllegalStateException.class, () -> store.load(KEY, 30, days -> {
+            throw new IllegalStateException("upstream down");
+        }));
+    }
+
+    @Test
+    void unavailableDatabaseFallsBackToCoinGecko() {
+        when(priceHistoryDao.findSync(KEY)).thenThrow(new DataAccessResourceFailureException("connection refused"));
+
+        HistoryChart chart = store.load(KEY, 30, this::fetch);
+
+        assertFalse(chart.stale());
+        assertEquals(List.of(30), fetches);
+    }
+
+    @Test
+    void failedWriteReusesTheFetchedChart() {
+        doThrow(new DataAccessResourceFailureException("connection refused"))
+                .when(priceHistoryDao).replaceFrom(eq(KEY), any(), any(), any());
+
+        HistoryChart chart = store.load(KEY, 30, this::fetch);
+
+        assertFalse(chart.stale());
+        assertEquals(List.of(30), fetches);
+        verify(priceHistoryDao, never()).findSince(any(), any(), any());
+    }
+
+    private MarketChart fetch(int days) {
+        fetches.add(days);
+        return new MarketChart();
+    }
+
+    private static PriceHistorySync sync(Duration coveredFor, Duration syncedAgo) {
+        Instant now = Instant.now();
+        return new PriceHistorySync(now.minus(coveredFor), now.minus(syncedAgo));
+    }
+}
@@ -0,0 +1,95 @@
+package net.tylerwade.cryptoapp.coins.marketchart;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class CompactMarketChartTests {
+
+    private static final long DAY = 86_400_000L;
+
+    @Test
+    void losslessEncodingsRoundTrip() {
+        MarketChart chart = chart(365, 7);
+        for (ValueEncoding encoding : List.of(ValueEncoding.DOUBLE, ValueEncoding.XOR)) {
+            MarketChart decoded = new MarketChartEncoder(encoding).encode(chart).toMarketChart();
+
+            assertArrayEquals(chart.getPrices().timestamps(), decoded.getPrices().timestamps());
+            assertArrayEquals(chart.getPrices().values(), decoded.getPrices().values());
+            assertArrayEquals(chart.getMarket_caps().values(), decoded.getMarket_caps().values());
+            assertArrayEquals(chart.getTotal_volumes().timestamps(), decoded.getTotal_volumes().timestamps());
+            assertSame(decoded.getPrices().timestamps(), decoded.getMarket_caps().timestamps());
+            assertEquals(chart.getCachedAt(), decoded.getCachedAt());
+        }
+    }
+
+    @Test
+    void floatEncodingKeepsSevenDigits() {
+        MarketChart chart = chart(30, 3);
+        MarketChart decoded = new MarketChartEncoder(ValueEncoding.FLOAT).encode(chart).toMarketChart();
+
+        double[] expected = chart.getMarket_caps().values();
+        double[] actual = decoded.getMarket_caps().values();
+        for (int i = 0; i < expected.length; i++) {
+            assertEquals(expected[i], actual[i], Math.abs(expected[i]) * 1e-6);
+        }
+    }
+
+    @Test
+    void timestampColumnsAreSharedAndSmall() {
+        MarketChartEncoder encoder = new MarketChartEncoder(ValueEncoding.XOR);
+        CompactMarketChart usd = encoder.encode(chart(365, 1));
+        CompactMarketChart eur = encoder.encode(chart(365, 2));
+
+        MarketChartStats stats = encoder.stats(List.of(usd, eur));
+
+        assertEquals(2, stats.charts());
+        assertEquals(2 * 3 * 366, stats.points());
+        // Regular daily timestamps take about a bit per point, shared by all six series
+        assertTrue(stats.bytes() < usd.sizeInBytes() + eur.sizeInBytes());
+        assertTrue(stats.bytesPerPoint() < 8, "bytes per point " + stats.bytesPerPoint());
+    }
+
+    @Test
+    void priceCountInLastDaysMatchesTheDecodedRange() {
+        MarketChart chart = chart(365, 5);
+        CompactMarketChart compact = new MarketChartEncoder(ValueEncoding.XOR).encode(chart);
+
+        for (int days : List.of(1, 7, 30, 364, 365, 1000)) {
+            assertEquals(chart.lastDays(days).getPrices().size(), compact.priceCountInLastDays(days), "days " + days);
+        }
+        assertEquals(0, new MarketChartEncoder(ValueEncoding.XOR).encode(new MarketChart(null, null, null, null))
+                .priceCountInLastDays(7));
+    }
+
+    /**
+     * Daily points plus a last point at the current time, values following a random walk with gaps.
+     */
+    private static MarketChart chart(int days, long seed) {
+        Random random = new Random(seed);
+        long start = 1_700_000_000_000L / DAY * DAY;
+        long[] timestamps = new long[days + 1];
+        double[] prices = new double[days + 1];
+        double[] caps = new double[days + 1];
+        double price = 100 + random.nextDouble() * 1000;
+        for (int i = 0; i <= days; i++) {
+            timestamps[i] = i < days ? start + i * DAY : start + (days - 1) * DAY + 51_234_567L;
+            price = Math.round(price * (1 + random.nextGaussian() * 0.02) * 100) / 100.0;
+            prices[i] = i == days / 2 ? Double.NaN : price;
+            caps[i] = price * 19_500_000;
+        }
+        return new MarketChart(
+                new MarketSeries(timestamps, prices),
+                new MarketSeries(timestamps, caps),
+                new MarketSeries(timestamps.clone(), caps.clone()),
+                LocalDateTime.of(2024, 1, 1, 0, 0)
+        );
+    }
+}
@@ -0,0 +1,42 @@
+package net.tylerwade.cryptoapp.coins.marketchart;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class LttbTests {
+
+    @Test
+    void keepsEndpointsAndPeaks() {
+        int size = 1000;
+        long[] timestamps = new long[size];
+        double[] values = new double[size];
+        for (int i = 0; i < size; i++) {
+            timestamps[i] = 1_700_000_000_000L + i * 3_600_000L;
+            values[i] = 100 + Math.sin(i / 50.0);
+        }
+        values[423] = 500; // spike
+        values[424] = Double.NaN;
+
+        MarketSeries sampled = Lttb.downsample(new MarketSeries(timestamps, values), 100);
+
+        assertEquals(100, sampled.size());
+        assertEquals(timestamps[0], sampled.timestamp(0));
+        assertEquals(timestamps[size - 1], sampled.timestamp(99));
+        assertTrue(Arrays.stream(sampled.values()).anyMatch(value -> value == 500));
+        assertTrue(Arrays.stream(sampled.values()).noneMatch(Double::isNaN));
+        for (int i = 1; i < sampled.size(); i++) {
+            assertTrue(sampled.timestamp(i) > sampled.timestamp(i - 1));
+        }
+    }
+
+    @Test
+    void shortSeriesAreKept() {
+        MarketSeries series = new MarketSeries(new long[]{1, 2, 3}, new double[]{1, 2, 3});
+        assertSame(series, Lttb.downsample(series, 10));
+    }
+}
@@ -0,0 +1,75 @@
+package net.tylerwade.cryptoapp.coins.marketchart;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.time.LocalDateTime;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class MarketChartJsonTests {
+
+    private static final String COINGECKO_CHART = """
+            {
+              "prices": [[1700000000000, 35000.5], [1700086400000, 36000], [1700172800000, null]],
+              "market_caps": [[1700000000000, 6.8E11], [1700086400000, 7.0E11], [1700172800000, 7.1E11]],
+              "total_volumes": [[1700000000000, 1.5E10], [1700086400000, 1.6E10]],
+              "unknown": {"nested": [1, 2, 3]}
+            }
+            """;
+
+    // Dates as ISO strings like the mapper Spring Boot configures
+    private final ObjectMapper objectMapper = Jackson2ObjectMapperBuilder.json()
+            .featuresToDisable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS)
+            .build();
+
+    @Test
+    void readsSeriesIntoColumns() throws Exception {
+        MarketChart chart = objectMapper.readValue(COINGECKO_CHART, MarketChart.class);
+
+        assertArrayEquals(new long[]{1700000000000L, 1700086400000L, 1700172800000L}, chart.getPrices().timestamps());
+        assertEquals(35000.5, chart.getPrices().value(0));
+        assertEquals(36000, chart.getPrices().value(1));
+        assertTrue(Double.isNaN(chart.getPrices().value(2)));
+        assertSame(chart.getPrices().timestamps(), chart.getMarket_caps().timestamps());
+        assertEquals(2, chart.getTotal_volumes().size());
+    }
+
+    @Test
+    void writesCoinGeckoShape() throws Exception {
+        MarketChart chart = objectMapper.readValue(COINGECKO_CHART, MarketChart.class);
+        chart.setCachedAt(LocalDateTime.of(2024, 1, 1, 12, 0));
+
+        JsonNode json = objectMapper.readTree(objectMapper.writeValueAsString(chart));
+
+        assertEquals(1700086400000L, json.get("prices").get(1).get(0).asLong());
+        assertEquals(36000.0, json.get("prices").get(1).get(1).asDouble());
+        assertTrue(json.get("prices").get(2).get(1).isNull());
+        assertEquals(2, json.get("total_volumes").size());
+        assertEquals("2024-01-01T12:00:00", json.get("cachedAt").asText());
+
+        MarketChart roundTrip = objectMapper.readValue(objectMapper.writeValueAsString(chart), MarketChart.class);
+        assertArrayEquals(chart.getMarket_caps().values(), roundTrip.getMarket_caps().values());
+        assertEquals(chart.getCachedAt(), roundTrip.getCachedAt());
+    }
+
+    @Test
+    void writesColumnsWithMissingValuesAsNull() throws Exception {
+        MarketChart chart = objectMapper.readValue(COINGECKO_CHART, MarketChart.class);
+
+        JsonNode json = objectMapper.readTree(objectMapper.writeValueAsString(MarketChartColumns.of(chart.lastDays(1))));
+
+        JsonNode prices = json.get("prices");
+        assertEquals(2, prices.get("timestamps").size());
+        assertEquals(1700172800000L, prices.get("timestamps").get(1).asLong());
+        assertEquals(36000.0, prices.get("values").get(0).asDouble());
+        assertTrue(prices.get("values").get(1).isNull());
+        assertEquals(1, json.get("total_volumes").get("values").size());
+    }
+}
@@ -0,0 +1,55 @@
+package net.tylerwade.cryptoapp.coins.marketchart;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+class MarketSeriesTests {
+
+    private static final long DAY = TimeUnit.DAYS.toMillis(1);
+    private static final long START = 1_700_000_000_000L;
+
+    @Test
+    void lastDaysIsViewOverTrailingPoints() {
+        MarketChart year = dailyChart(366);
+
+        MarketChart week = year.lastDays(7);
+
+        assertEquals(8, week.getPrices().size());
+        assertEquals(START + 358 * DAY, week.getPrices().timestamp(0));
+        assertEquals(358, week.getPrices().value(0));
+        assertEquals(365, week.getTotal_volumes().value(7));
+        assertArrayEquals(Arrays.copyOfRange(year.getMarket_caps().values(), 358, 366), week.getMarket_caps().values());
+        assertSame(year.getPrices(), year.lastDays(365).getPrices());
+    }
+
+    @Test
+    void downsamplingViewMatchesCopy() {
+        MarketSeries prices = dailyChart(366).lastDays(180).getPrices();
+        MarketSeries copy = new MarketSeries(prices.timestamps(), prices.values());
+
+        MarketSeries fromView = Lttb.downsample(prices, 50);
+        MarketSeries fromCopy = Lttb.downsample(copy, 50);
+
+        assertArrayEquals(fromCopy.timestamps(), fromView.timestamps());
+        assertArrayEquals(fromCopy.values(), fromView.values());
+    }
+
+    private static MarketChart dailyChart(int size) {
+        long[] timestamps = new long[size];
+        double[] values = new double[size];
+        for (int i = 0; i < size; i++) {
+            timestamps[i] = START + i * DAY;
+            values[i] = i;
+        }
+        MarketSeries prices = new MarketSeries(timestamps, values);
+        return new MarketChart(prices, new MarketSeries(timestamps, values.clone()),
+                new MarketSeries(timestamps, values.clone()), LocalDateTime.now());
+    }
+}
@@ -0,0 +1,57 @@
+package net.tylerwade.cryptoapp.coins.query;
+
+import net.tylerwade.cryptoapp.coins.coinpage.Coin;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class CoinSearchIndexTests {
+
+    private final CoinSearchIndex index = CoinSearchIndex.of(
+            List.of(
+                    new CoinListEntry("wrapped-bitcoin", "wbtc", "Wrapped Bitcoin"),
+                    new CoinListEntry("bitcoin", "btc", "Bitcoin"),
+                    new CoinListEntry("bitcoin-cash", "bch", "Bitcoin Cash"),
+                    new CoinListEntry("ethereum", "eth", "Ethereum"),
+                    new CoinListEntry("eth-clone", "eth", "Eth Clone")
+            ),
+            List.of(
+                    coin("bitcoin", 1),
+                    coin("ethereum", 2),
+                    coin("wrapped-bitcoin", 15),
+                    coin("bitcoin-cash", 20)
+            ),
+            LocalDateTime.now()
+    );
+
+    @Test
+    void exactMatchesComeFirstThenPrefixThenSubstring() {
+        assertEquals(List.of("bitcoin", "wrapped-bitcoin", "bitcoin-cash"), ids("bitcoin"));
+        assertEquals(List.of("bitcoin", "wrapped-bitcoin", "bitcoin-cash"), ids("BITC"));
+        assertEquals(List.of("wrapped-bitcoin"), ids("rapped"));
+    }
+
+    @Test
+    void equalMatchesAreOrderedByMarketCapRank() {
+        assertEquals(List.of("ethereum", "eth-clone"), ids("eth"));
+    }
+
+    @Test
+    void resultsAreLimited() {
+        assertEquals(1, index.search("b", 1).getCoins().length);
+        assertEquals(0, index.search("  ", 10).getCoins().length);
+        assertEquals(0, index.search("dogecoin", 10).getCoins().length);
+    }
+
+    private List<String> ids(String query) {
+        return Arrays.stream(index.search(query, 10).getCoins()).map(SearchCoin::getId).toList();
+    }
+
+    private static Coin coin(String id, int rank) {
+        return Coin.builder().id(id).market_cap_rank(rank).image("https://example.com/large/" + id + ".png").build();
+    }
+}
@@ -0,0 +1,75 @@
+package net.tylerwade.cryptoapp.coins.query;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class CoinSuggestIndexTests {
+
+    private static final int TOP_K = 3;
+
+    @Test
+    void suggestionsMatchBruteForceTopK() {
+        Random random = new Random(42);
+        List<SearchCoin> coins = new ArrayList<>();
+        for (int i = 0; i < 300; i++) {
+            String word = randomWord(random);
+            coins.add(SearchCoin.builder()
+                    .id(word + "-" + i)
+                    .api_symbol(word.substring(0, 3))
+                    .name(randomWord(random) + " " + word)
+                    .market_cap_rank(i + 1)
+                    .build());
+        }
+        CoinSuggestIndex index = CoinSuggestIndex.of(coins, TOP_K, 4, LocalDateTime.now());
+
+        for (SearchCoin coin : coins) {
+            for (String term : SearchTerms.terms(coin)) {
+                for (int length = 1; length <= Math.min(term.length(), 4); length++) {
+                    String prefix = term.substring(0, length);
+                    assertEquals(bruteForce(coins, prefix), ids(index.suggest(prefix, TOP_K)), prefix);
+                }
+            }
+        }
+        assertTrue(index.memoryBytes() > 0);
+    }
+
+    @Test
+    void unknownPrefixSuggestsNothing() {
+        CoinSuggestIndex index = CoinSuggestIndex.of(List.of(
+                SearchCoin.builder().id("bitcoin").api_symbol("btc").name("Bitcoin").market_cap_rank(1).build()
+        ), TOP_K, 24, LocalDateTime.now());
+
+        assertEquals(List.of("bitcoin"), ids(index.suggest("BIT", TOP_K)));
+        assertEquals(List.of("bitcoin"), ids(index.suggest("bitcoin", TOP_K)));
+        assertEquals(List.of(), ids(index.suggest("bitcoins", TOP_K)));
+        assertEquals(List.of(), ids(index.suggest("", TOP_K)));
+    }
+
+    private static List<String> bruteForce(List<SearchCoin> coins, String prefix) {
+        return coins.stream()
+                .filter(coin -> SearchTerms.matchesPrefix(coin, SearchTerms.normalize(prefix)))
+                .limit(TOP_K)
+                .map(SearchCoin::getId)
+                .toList();
+    }
+
+    private static List<String> ids(SearchResult result) {
+        return Arrays.stream(result.getCoins()).map(SearchCoin::getId).toList();
+    }
+
+    private static String randomWord(Random random) {
+        char[] word = new char[3 + random.nextInt(5)];
+        for (int i = 0; i < word.length; i++) {
+            word[i] = (char) ('a' + random.nextInt(4)); // small alphabet so many coins share prefixes
+        }
+        return new String(word);
+    }
+}
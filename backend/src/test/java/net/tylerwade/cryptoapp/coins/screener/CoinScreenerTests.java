@@ -0,0 +1,126 @@
+package net.tylerwade.cryptoapp.coins.screener;
+
+import net.tylerwade.cryptoapp.coins.coinpage.Coin;
+import net.tylerwade.cryptoapp.coins.fx.ExchangeRateStore;
+import net.tylerwade.cryptoapp.coins.snapshot.MarketColumn;
+import net.tylerwade.cryptoapp.coins.snapshot.MarketSnapshot;
+import net.tylerwade.cryptoapp.coins.snapshot.MarketSnapshotStore;
+import net.tylerwade.cryptoapp.common.exception.HttpRequestException;
+import net.tylerwade.cryptoapp.config.CryptoAppProperties;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class CoinScreenerTests {
+
+    private CoinScreener screener;
+
+    @BeforeEach
+    void createScreener() {
+        CryptoAppProperties properties = new CryptoAppProperties();
+        MarketSnapshotStore store = new MarketSnapshotStore(new ExchangeRateStore(properties));
+        // Market cap order, prices deliberately out of that order
+        store.put(MarketSnapshot.of("usd", List.of(
+                coin("bitcoin", 60_000, 1_200_000, 1),
+                coin("ethereum", 3_000, 400_000, 2),
+                coin("tether", 1, 100_000, 3),
+                coin("solana", 150, 70_000, 4),
+                coin("dogecoin", 0.15, 20_000, 5),
+                coin("cardano", 0.45, 15_000, 6)
+        ), true, LocalDateTime.now()));
+        screener = new CoinScreener(store, properties);
+    }
+
+    @Test
+    void walksTheSortOrderKeepingOnlyMatchingCoins() {
+        Map<String, String> params = Map.of("current_price_min", "0.2", "market_cap_max", "500000");
+
+        assertEquals(List.of("cardano", "tether", "solana", "ethereum"),
+                ids(screener.screen(screener.parseCriteria("usd", params, "current_price", "asc", 1, 10))));
+        assertEquals(List.of("ethereum", "solana", "tether", "cardano"),
+                ids(screener.screen(screener.parseCriteria("usd", params, "current_price", "DESC", 1, 10))));
+        assertEquals(List.of("bitcoin", "ethereum"),
+                ids(screener.screen(screener.parseCriteria("usd", Map.of("current_price_min", "3000"), "market_cap_rank", "asc", 1, 10))));
+    }
+
+    @Test
+    void tiesKeepMarketCapOrderInBothDirections() {
+        CryptoAppProperties properties = new CryptoAppProperties();
+        MarketSnapshotStore store = new MarketSnapshotStore(new ExchangeRateStore(properties));
+        store.put(MarketSnapshot.of("usd", List.of(
+                coin("tether", 1, 100_000, 1),
+                coin("bitcoin", 60_000, 90_000, 2),
+                coin("usd-coin", 1, 60_000, 3),
+                coin("dai", 1, 5_000, 4)
+        ), true, LocalDateTime.now()));
+        CoinScreener screener = new CoinScreener(store, properties);
+
+        assertEquals(List.of("tether", "usd-coin", "dai", "bitcoin"),
+                ids(screener.screen(screener.parseCriteria("usd", Map.of(), "current_price", "asc", 1, 10))));
+        assertEquals(List.of("bitcoin", "tether", "usd-coin", "dai"),
+                ids(screener.screen(screener.parseCriteria("usd", Map.of(), "current_price", "desc", 1, 10))));
+    }
+
+    @Test
+    void pagesCountOnlyMatchingCoins() {
+        Map<String, String> params = Map.of("market_cap_max", "500000");
+
+        assertEquals(List.of("dogecoin", "cardano"),
+                ids(screener.screen(screener.parseCriteria("usd", params, "current_price", "asc", 1, 2))));
+        assertEquals(List.of("tether", "solana"),
+                ids(screener.screen(screener.parseCriteria("usd", params, "current_price", "asc", 2, 2))));
+        assertEquals(List.of("ethereum"),
+                ids(screener.screen(screener.parseCriteria("usd", params, "current_price", "asc", 3, 2))));
+        assertEquals(0, screener.screen(screener.parseCriteria("usd", params, "current_price", "asc", 4, 2)).length);
+    }
+
+    @Test
+    void rejectsInvalidCriteria() {
+        assertBadRequest(() -> screener.parseCriteria("usd", Map.of(), "name", "asc", 1, 10));
+        assertBadRequest(() -> screener.parseCriteria("usd", Map.of(), "market_cap", "up", 1, 10));
+        assertBadRequest(() -> screener.parseCriteria("usd", Map.of(), "market_cap", "asc", 1, 0));
+        assertBadRequest(() -> screener.parseCriteria("usd", Map.of(), "market_cap", "asc", 1, CoinScreener.MAX_PER_PAGE + 1));
+        assertBadRequest(() -> screener.parseCriteria("usd", Map.of("market_cap_min", "lots"), "market_cap", "asc", 1, 10));
+    }
+
+    @Test
+    void failsWithoutSnapshotForTheCurrency() {
+        ScreenCriteria criteria = screener.parseCriteria("eur", Map.of(), "market_cap", "desc", 1, 10);
+
+        HttpRequestException e = assertThrows(HttpRequestException.class, () -> screener.screen(criteria));
+        assertEquals(HttpStatus.SERVICE_UNAVAILABLE, e.getHttpStatus());
+    }
+
+    @Test
+    void rangeFiltersAreInclusiveAndOpenEnded() {
+        RangeFilter filter = new RangeFilter(MarketColumn.CURRENT_PRICE, 1, Double.POSITIVE_INFINITY);
+
+        assertTrue(filter.matches(1));
+        assertTrue(filter.matches(Double.MAX_VALUE));
+        assertFalse(filter.matches(0.99));
+        assertFalse(filter.matches(Double.NaN));
+    }
+
+    private static void assertBadRequest(Runnable parse) {
+        HttpRequestException e = assertThrows(HttpRequestException.class, parse::run);
+        assertEquals(HttpStatus.BAD_REQUEST, e.getHttpStatus());
+    }
+
+    private static List<String> ids(Coin[] coins) {
+        return Arrays.stream(coins).map(Coin::getId).toList();
+    }
+
+    private static Coin coin(String id, double price, double marketCap, int rank) {
+        return Coin.builder().id(id).current_price(price).market_cap(marketCap).market_cap_rank(rank).build();
+    }
+}
@@ -0,0 +1,61 @@
+package net.tylerwade.cryptoapp.coins.snapshot;
+
+import net.tylerwade.cryptoapp.coins.coinpage.Coin;
+import net.tylerwade.cryptoapp.coins.fx.ExchangeRateResponse;
+import net.tylerwade.cryptoapp.coins.fx.ExchangeRateStore;
+import net.tylerwade.cryptoapp.coins.fx.ExchangeRates;
+import net.tylerwade.cryptoapp.config.CryptoAppProperties;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+class MarketSnapshotStoreTests {
+
+    @Test
+    void otherCurrenciesAreConvertedFromTheBaseSnapshot() {
+        ExchangeRateStore exchangeRateStore = new ExchangeRateStore(new CryptoAppProperties());
+        MarketSnapshotStore store = new MarketSnapshotStore(exchangeRateStore);
+        MarketSnapshot usd = MarketSnapshot.of("usd", List.of(coin("bitcoin", 60_000, 1), coin("ethereum", 3_000, 2)),
+                true, LocalDateTime.now());
+        store.put(usd);
+
+        assertNull(store.latest("eur"));
+
+        exchangeRateStore.put(ExchangeRates.of(rates(Map.of("btc", 1.0, "usd", 60_000.0, "eur", 54_000.0)), LocalDateTime.now()));
+        MarketSnapshot eur = store.get("EUR", Duration.ofMinutes(10));
+
+        assertEquals("eur", eur.getVsCurrency());
+        assertSame(eur, store.latest("eur"));
+        Coin bitcoin = eur.page(1, 1)[0];
+        assertEquals(54_000, bitcoin.getCurrent_price(), 1e-6);
+        assertEquals(1, bitcoin.getMarket_cap_rank());
+        assertEquals(60_000, usd.coin(0).getCurrent_price());
+        assertArrayEquals(new double[]{54_000, 2_700}, eur.column(MarketColumn.CURRENT_PRICE), 1e-6);
+        assertSame(usd.column(MarketColumn.MARKET_CAP_RANK), eur.column(MarketColumn.MARKET_CAP_RANK));
+        assertSame(usd.sortOrder(MarketColumn.CURRENT_PRICE, false), eur.sortOrder(MarketColumn.CURRENT_PRICE, false));
+        assertSame(usd, store.latest("usd"));
+    }
+
+    private static Coin coin(String id, double price, int rank) {
+        return Coin.builder().id(id).current_price(price).market_cap(price * 1_000).market_cap_rank(rank).build();
+    }
+
+    private static ExchangeRateResponse rates(Map<String, Double> values) {
+        ExchangeRateResponse response = new ExchangeRateResponse();
+        response.setRates(values.entrySet().stream().collect(Collectors.toMap(Map.Entry::getKey, entry -> {
+            ExchangeRateResponse.Rate rate = new ExchangeRateResponse.Rate();
+            rate.setValue(entry.getValue());
+            return rate;
+        })));
+        return response;
+    }
+}
@@ -0,0 +1,62 @@
+package net.tylerwade.cryptoapp.coins.stream;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class PriceSubscriberTests {
+
+    @Test
+    void slowConsumerOnlyReceivesLatestPrice() throws Exception {
+        CountDownLatch firstSend = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        List<Object> sent = new CopyOnWriteArrayList<>();
+        SseEmitter emitter = new SseEmitter() {
+            @Override
+            public void send(SseEventBuilder builder) throws IOException {
+                firstSend.countDown();
+                try {
+                    release.await();
+                } catch (InterruptedException e) {
+                    throw new IOException(e);
+                }
+                builder.build().stream()
+                        .filter(data -> data.getData() instanceof PriceUpdate)
+                        .forEach(data -> sent.add(data.getData()));
+            }
+        };
+        ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+        PriceSubscriber subscriber = new PriceSubscriber(emitter, "usd", Set.of("bitcoin"));
+
+        subscriber.offer(update(100), executor);
+        assertTrue(firstSend.await(5, TimeUnit.SECONDS));
+        // Sending the first update is stuck, these coalesce into the newest one
+        for (int price = 101; price <= 200; price++) {
+            subscriber.offer(update(price), executor);
+        }
+        release.countDown();
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (sent.size() < 2 && System.nanoTime() < deadline) {
+            Thread.sleep(10);
+        }
+        Thread.sleep(50); // nothing else may follow
+        executor.shutdown();
+
+        assertEquals(List.of(update(100), update(200)), sent);
+    }
+
+    private static PriceUpdate update(double price) {
+        return new PriceUpdate("bitcoin", "usd", price, 0, 0, 0, null);
+    }
+}
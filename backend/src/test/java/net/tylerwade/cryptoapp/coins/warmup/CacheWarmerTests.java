@@ -0,0 +1,169 @@
+package net.tylerwade.cryptoapp.coins.warmup;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import net.tylerwade.cryptoapp.coins.CoinService;
+import net.tylerwade.cryptoapp.coins.cache.CoinCacheManager;
+import net.tylerwade.cryptoapp.coins.cache.EncodedBodyCache;
+import net.tylerwade.cryptoapp.coins.coingecko.CoinGeckoClient;
+import net.tylerwade.cryptoapp.coins.coingecko.UpstreamBudget;
+import net.tylerwade.cryptoapp.coins.fx.ExchangeRateStore;
+import net.tylerwade.cryptoapp.coins.history.ChartSegmentStore;
+import net.tylerwade.cryptoapp.coins.history.PriceHistoryStore;
+import net.tylerwade.cryptoapp.coins.query.CoinSearchIndexStore;
+import net.tylerwade.cryptoapp.coins.snapshot.MarketSnapshotStore;
+import net.tylerwade.cryptoapp.config.CoinGeckoProperties;
+import net.tylerwade.cryptoapp.config.CryptoAppProperties;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class CacheWarmerTests {
+
+    private static final Pattern PER_PAGE = Pattern.compile("per_page=(\\d+)");
+    private static final Pattern DAYS = Pattern.compile("days=(\\d+)");
+
+    private HttpServer upstream;
+    private final List<String> upstreamCalls = new CopyOnWriteArrayList<>();
+    private final CoinGeckoProperties coinGeckoProperties = new CoinGeckoProperties();
+    private final CryptoAppProperties cryptoAppProperties = new CryptoAppProperties();
+
+    @BeforeEach
+    void startUpstream() throws IOException {
+        upstream = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        upstream.setExecutor(Executors.newCachedThreadPool());
+        upstream.createContext("/coins", this::respond);
+        upstream.start();
+
+        coinGeckoProperties.setApiUrl("http://localhost:" + upstream.getAddress().getPort());
+        coinGeckoProperties.setApiKey("test-key");
+        CryptoAppProperties.WarmUp warmUp = cryptoAppProperties.getWarmUp();
+        warmUp.setCurrencies(List.of("usd"));
+        warmUp.setPages(1);
+        warmUp.setTopCoins(3);
+        warmUp.setChartDays(List.of(7, 30));
+        warmUp.setParallelism(2);
+        cryptoAppProperties.getPriceHistory().setEnabled(false);
+    }
+
+    @AfterEach
+    void stopUpstream() {
+        upstream.stop(0);
+    }
+
+    @Test
+    void warmsEachCoinWithOneChartCallPerCurrency() {
+        cryptoAppProperties.getWarmUp().setMaxUpstreamCalls(100);
+
+        createCacheWarmer().warmUp();
+
+        assertEquals(2, count("markets"));
+        for (int i = 0; i < 3; i++) {
+            assertEquals(1, count("coin-" + i));
+            assertEquals(1, count("coin-" + i + "/market_chart:30"));
+        }
+        assertEquals(0, upstreamCalls.stream().filter(call -> call.endsWith(":7")).count(),
+                "7 days are served from the cached 30 day chart");
+        assertEquals(8, upstreamCalls.size());
+    }
+
+    @Test
+    void stopsBetweenCoinsWhenTheMaximumIsReached() {
+        cryptoAppProperties.getWarmUp().setMaxUpstreamCalls(6);
+
+        createCacheWarmer().warmUp();
+
+        assertWarmedTwoOfThreeCoins();
+    }
+
+    @Test
+    void callsAreCappedByTheBudgetHeadroom() {
+        cryptoAppProperties.getWarmUp().setMaxUpstreamCalls(100);
+        coinGeckoProperties.getBudget().setRequestsPerMinute(12); // 6 tokens above the warm-up reserve
+
+        createCacheWarmer().warmUp();
+
+        assertWarmedTwoOfThreeCoins();
+    }
+
+    private void assertWarmedTwoOfThreeCoins() {
+        assertEquals(2, count("markets"));
+        for (int i = 0; i < 2; i++) {
+            assertEquals(1, count("coin-" + i));
+            assertEquals(1, count("coin-" + i + "/market_chart:30"));
+        }
+        assertEquals(0, count("coin-2"), "A coin only starts when all its calls are available");
+        assertEquals(6, upstreamCalls.size());
+    }
+
+    private CacheWarmer createCacheWarmer() {
+        ObjectMapper objectMapper = Jackson2ObjectMapperBuilder.json().build();
+        UpstreamBudget upstreamBudget = new UpstreamBudget(coinGeckoProperties);
+        CoinGeckoClient coinGeckoClient = new CoinGeckoClient(coinGeckoProperties, objectMapper, upstreamBudget);
+        ExchangeRateStore exchangeRateStore = new ExchangeRateStore(cryptoAppProperties);
+        CoinService coinService = new CoinService(coinGeckoClient, cryptoAppProperties,
+                new CoinCacheManager(cryptoAppProperties), new MarketSnapshotStore(exchangeRateStore), new CoinSearchIndexStore(),
+                new PriceHistoryStore(null, new ChartSegmentStore(cryptoAppProperties), cryptoAppProperties),
+                new EncodedBodyCache(objectMapper, cryptoAppProperties), exchangeRateStore);
+        return new CacheWarmer(coinService, upstreamBudget, cryptoAppProperties);
+    }
+
+    private long count(String call) {
+        return upstreamCalls.stream().filter(call::equals).count();
+    }
+
+    /**
+     * Answers /coins/markets with coin-0, coin-1, ... in market cap order, coin data and three point charts.
+     * Calls are recorded as "markets", "coin-0" and "coin-0/market_chart:30".
+     */
+    private void respond(HttpExchange exchange) throws IOException {
+        String path = exchange.getRequestURI().getPath();
+        String query = exchange.getRequestURI().getQuery();
+        String body;
+        if (path.equals("/coins/markets")) {
+            upstreamCalls.add("markets");
+            int perPage = Integer.parseInt(group(PER_PAGE, query));
+            body = IntStream.range(0, perPage)
+                    .mapToObj(i -> "{\"id\":\"coin-" + i + "\",\"symbol\":\"c" + i + "\",\"market_cap\":" + (1_000_000 - i) + "}")
+                    .collect(Collectors.joining(",", "[", "]"));
+        } else if (path.endsWith("/market_chart")) {
+            upstreamCalls.add(path.substring("/coins/".length()) + ":" + group(DAYS, query));
+            long day = TimeUnit.DAYS.toMillis(1);
+            long now = System.currentTimeMillis();
+            String points = "[[" + (now - 2 * day) + ",100.0],[" + (now - day) + ",110.0],[" + now + ",120.0]]";
+            body = "{\"prices\":" + points + ",\"market_caps\":" + points + ",\"total_volumes\":" + points + "}";
+        } else {
+            String id = path.substring("/coins/".length());
+            upstreamCalls.add(id);
+            body = "{\"id\":\"" + id + "\",\"symbol\":\"c\",\"name\":\"Coin\"}";
+        }
+        byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", "application/json");
+        exchange.sendResponseHeaders(200, bytes.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(bytes);
+        }
+    }
+
+    private static String group(Pattern pattern, String query) {
+        Matcher matcher = pattern.matcher(query);
+        return matcher.find() ? matcher.group(1) : "0";
+    }
+}